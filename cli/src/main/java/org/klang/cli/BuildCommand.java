@@ -4,18 +4,24 @@ import picocli.CommandLine.Command;
 import picocli.CommandLine.Parameters;
 
 import java.io.File;
+import java.nio.MappedByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.klang.cli.error.KcInvalidFileType;
 import org.klang.cli.error.diagnostic.KcDiagnosticCode;
+import org.klang.cli.utils.AstCache;
 import org.klang.cli.utils.BuildCache;
+import org.klang.cli.utils.CheckCacheFile;
+import org.klang.cli.utils.SourceFiles;
+import org.klang.core.errors.DiagnosticSink;
 import org.klang.core.errors.SourceManager;
 import org.klang.core.lexer.Lexer;
-import org.klang.core.lexer.Token;
+import org.klang.core.optimizer.ConstantFolder;
 import org.klang.core.parser.Parser;
 import org.klang.core.parser.ast.ProgramNode;
+import org.klang.core.semantics.CheckCache;
 import org.klang.core.semantics.TypeChecker;
 import org.klang.core.transpilers.JavaTranspiler;
 
@@ -46,40 +52,60 @@ public class BuildCommand implements Runnable {
             Files.createDirectories(cacheDir);
 
             Path cacheFile = cacheDir.resolve(fileName + ".hash");
+            Path astFile = AstCache.fileFor(cacheDir, fileName);
+            Path checkFile = CheckCacheFile.fileFor(cacheDir, fileName);
             Path outputFile = outDir.resolve(fileName + ".java");
 
             // Verificar se precisa rebuildar
-            if (!BuildCache.needsRebuild(path, cacheFile)) {
+            if (!BuildCache.needsRebuild(path, cacheFile) && Files.exists(outputFile)) {
                 System.out.println("✓ " + fileName + ".java is up to date (skipping build)");
                 return;
             }
 
             System.out.println("Building " + fileName + ".k...");
 
-            // 1. Read
-            String source = Files.readString(path);
+            // 1. Map (the lexer reads the UTF-8 bytes in place)
+            MappedByteBuffer source = SourceFiles.map(path);
             SourceManager sourceManager = new SourceManager(source);
 
-            // 2. Lex
-            Lexer lexer = new Lexer(source, file.getPath(), sourceManager);
-            List<Token> tokens = lexer.tokenizeSourceCode();
+            // 2. Lex + 3. Parse, unless the AST of this exact source is cached
+            // (tokens are pulled on demand, large files are lexed up front in
+            // parallel)
+            byte[] stamp = AstCache.stamp(source);
+            ProgramNode program = AstCache.load(astFile, stamp);
+
+            if (program == null) {
+                Lexer lexer = new Lexer(source, file.getPath(), sourceManager);
+                Parser parser = source.limit() >= Lexer.PARALLEL_THRESHOLD
+                        ? new Parser(lexer.tokenizeSourceCode(ForkJoinPool.commonPool()), path, sourceManager)
+                        : new Parser(lexer, path, sourceManager);
+                DiagnosticSink diagnostics = new DiagnosticSink();
+                parser.setDiagnosticSink(diagnostics);
+                program = parser.parseProgram(ForkJoinPool.commonPool());
+                diagnostics.throwIfErrors();
+
+                AstCache.save(astFile, program, stamp);
+            }
 
-            // 3. Parse
-            Parser parser = new Parser(tokens, path, sourceManager);
-            ProgramNode program = parser.parseProgram();
+            // 4. Type check (functions unchanged since the last check are
+            // skipped)
+            CheckCache checks = CheckCacheFile.load(checkFile);
+            TypeChecker checker = new TypeChecker(sourceManager, path, checks);
+            checker.check(program, ForkJoinPool.commonPool());
+            CheckCacheFile.save(checkFile, checks);
+            System.out.println("  " + CheckCacheFile.report(checks));
 
-            // 4. Type check
-            TypeChecker checker = new TypeChecker(sourceManager, path);
-            checker.check(program);
+            // 5. Fold constants
+            new ConstantFolder().fold(program);
 
-            // 5. Transpile
+            // 6. Transpile
             JavaTranspiler transpiler = new JavaTranspiler(fileName, sourceManager, path);
             String javaCode = transpiler.transpile(program);
 
-            // 6. Write output
+            // 7. Write output
             Files.writeString(outputFile, javaCode);
 
-            // 7. Salvar hash para próxima vez
+            // 8. Salvar hash para próxima vez
             BuildCache.saveHash(path, cacheFile);
 
             System.out.println("✓ Build successful → " + fileName + ".java generated");
@@ -5,7 +5,7 @@ import org.klang.cli.error.diagnostic.KcDiagnosticColors;
 import picocli.CommandLine.IVersionProvider;
 
 public class KVersionProvider implements IVersionProvider {
-    private static final String VERSION = "0.12.5";
+    public static final String VERSION = "0.12.5";
     private static final StringBuilder str = new StringBuilder();
 
     @Override
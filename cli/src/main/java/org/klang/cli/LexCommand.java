@@ -5,16 +5,18 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.File;
-import java.nio.file.Files;
+import java.nio.MappedByteBuffer;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.klang.cli.error.KcInvalidFileType;
 import org.klang.cli.error.diagnostic.KcDiagnosticCode;
+import org.klang.cli.utils.SourceFiles;
 import org.klang.core.errors.KException;
 import org.klang.core.errors.SourceManager;
 import org.klang.core.lexer.Lexer;
 import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenStream;
 
 @Command(
     name = "lex",
@@ -41,11 +43,11 @@ public class LexCommand implements Runnable {
         }
 
         try {
-            String source = Files.readString(path);
+            MappedByteBuffer source = SourceFiles.map(path);
             SourceManager sourceManager = new SourceManager(source);
 
             Lexer lexer = new Lexer(source, file.getPath(), sourceManager);
-            List<Token> a = lexer.tokenizeSourceCode();
+            TokenStream a = lexer.tokenizeSourceCode(ForkJoinPool.commonPool());
 
             if (showTokens){
                 for (Token var : a) {
@@ -1,19 +1,24 @@
 package org.klang.cli;
 
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.File;
-import java.nio.file.Files;
+import java.nio.MappedByteBuffer;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.klang.cli.error.KcInvalidFileType;
 import org.klang.cli.error.diagnostic.KcDiagnosticCode;
+import org.klang.cli.utils.SourceFiles;
+import org.klang.core.errors.DiagnosticSink;
 import org.klang.core.errors.SourceManager;
 import org.klang.core.lexer.Lexer;
-import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenStream;
 import org.klang.core.parser.Parser;
+import org.klang.core.parser.flat.FlatAst;
+import org.klang.core.parser.flat.FlatParser;
 import org.klang.core.parser.ast.ProgramNode;
 
 @Command(
@@ -25,6 +30,9 @@ public class ParseCommand implements Runnable {
     @Parameters(paramLabel = "FILE")
     private File file;
 
+    @Option(names = {"--flat", "-f"}, description = "Parse into the compact array-backed AST")
+    private boolean flat = false;
+
     @Override
     public void run() {
         Path path = file.toPath();
@@ -38,14 +46,26 @@ public class ParseCommand implements Runnable {
         }
 
         try {
-            String source = Files.readString(path);
+            MappedByteBuffer source = SourceFiles.map(path);
             SourceManager sourceManager = new SourceManager(source);
 
             Lexer lexer = new Lexer(source, file.getPath(), sourceManager);
-            List<Token> tokens = lexer.tokenizeSourceCode();
 
-            Parser parser = new Parser(tokens, path, sourceManager);
-            ProgramNode program = parser.parseProgram();
+            if (flat) {
+                TokenStream tokens = lexer.tokenizeSourceCode(ForkJoinPool.commonPool());
+                FlatAst ast = new FlatParser(tokens, path, sourceManager).parseProgram();
+
+                System.out.println("Parsed successfully (" + ast.size() + " nodes).");
+                return;
+            }
+
+            Parser parser = source.limit() >= Lexer.PARALLEL_THRESHOLD
+                    ? new Parser(lexer.tokenizeSourceCode(ForkJoinPool.commonPool()), path, sourceManager)
+                    : new Parser(lexer, path, sourceManager);
+            DiagnosticSink diagnostics = new DiagnosticSink();
+            parser.setDiagnosticSink(diagnostics);
+            ProgramNode program = parser.parseProgram(ForkJoinPool.commonPool());
+            diagnostics.throwIfErrors();
 
             System.out.println("Parsed successfully.");
 
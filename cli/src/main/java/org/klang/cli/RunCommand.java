@@ -5,19 +5,25 @@ import picocli.CommandLine.Parameters;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.klang.cli.error.KcInvalidFileType;
 import org.klang.cli.error.diagnostic.KcDiagnosticCode;
+import org.klang.cli.utils.AstCache;
 import org.klang.cli.utils.BuildCache;
+import org.klang.cli.utils.CheckCacheFile;
+import org.klang.cli.utils.SourceFiles;
+import org.klang.core.errors.DiagnosticSink;
 import org.klang.core.errors.KException;
 import org.klang.core.errors.SourceManager;
 import org.klang.core.lexer.Lexer;
-import org.klang.core.lexer.Token;
+import org.klang.core.optimizer.ConstantFolder;
 import org.klang.core.parser.Parser;
 import org.klang.core.parser.ast.ProgramNode;
+import org.klang.core.semantics.CheckCache;
 import org.klang.core.semantics.TypeChecker;
 import org.klang.core.transpilers.JavaTranspiler;
 
@@ -48,6 +54,8 @@ public class RunCommand implements Runnable {
             Files.createDirectories(cacheDir);
 
             Path cacheFile = cacheDir.resolve(fileName + ".hash");
+            Path astFile = AstCache.fileFor(cacheDir, fileName);
+            Path checkFile = CheckCacheFile.fileFor(cacheDir, fileName);
             Path javaFile = outDir.resolve((fileName + ".java"));
             Path classFile = outDir.resolve(fileName + ".class");
 
@@ -57,30 +65,46 @@ public class RunCommand implements Runnable {
             if (needsRebuild) {
                 // System.out.println("Building " + fileName + ".k...");
 
-                // 1. Read
-                String source = Files.readString(path);
+                // 1. Map (the lexer reads the UTF-8 bytes in place)
+                MappedByteBuffer source = SourceFiles.map(path);
                 SourceManager sm = new SourceManager(source);
 
-                // 2. Lexer
-                Lexer lexer = new Lexer(source, file.getPath(), sm);
-                List<Token> tokens = lexer.tokenizeSourceCode();
+                // 2. Lex + 3. Parse, unless the AST of this exact source is
+                // cached (tokens are pulled on demand)
+                byte[] stamp = AstCache.stamp(source);
+                ProgramNode program = AstCache.load(astFile, stamp);
+
+                if (program == null) {
+                    Lexer lexer = new Lexer(source, file.getPath(), sm);
+                    Parser parser = source.limit() >= Lexer.PARALLEL_THRESHOLD
+                            ? new Parser(lexer.tokenizeSourceCode(ForkJoinPool.commonPool()), path, sm)
+                            : new Parser(lexer, path, sm);
+                    DiagnosticSink diagnostics = new DiagnosticSink();
+                    parser.setDiagnosticSink(diagnostics);
+                    program = parser.parseProgram(ForkJoinPool.commonPool());
+                    diagnostics.throwIfErrors();
+
+                    AstCache.save(astFile, program, stamp);
+                }
 
-                // 3. Parse
-                Parser parser = new Parser(tokens, path, sm);
-                ProgramNode program = parser.parseProgram();
+                // 4. Type Checker (functions unchanged since the last check
+                // are skipped)
+                CheckCache checks = CheckCacheFile.load(checkFile);
+                TypeChecker checker = new TypeChecker(sm, path, checks);
+                checker.check(program, ForkJoinPool.commonPool());
+                CheckCacheFile.save(checkFile, checks);
 
-                // 4. Type Checker
-                TypeChecker checker = new TypeChecker(sm, path);
-                checker.check(program);
+                // 5. Fold constants
+                new ConstantFolder().fold(program);
 
-                // 5. Transpile
+                // 6. Transpile
                 JavaTranspiler transpiler = new JavaTranspiler(fileName, sm, path);
                 String javaCode = transpiler.transpile(program);
 
-                // 6. Write Java file
+                // 7. Write Java file
                 Files.writeString(javaFile, javaCode);
 
-                // 7. Compile
+                // 8. Compile
                 // System.out.println("Compiling Java code...");
                 // System.out.println("\n");
                 Process javac = new ProcessBuilder(
@@ -97,7 +121,7 @@ public class RunCommand implements Runnable {
                     throw new RuntimeException(".class file was not generated at: " + classFile);
                 }
 
-                // 8. Save hash
+                // 9. Save hash
                 BuildCache.saveHash(path, cacheFile);
 
                 // System.out.println("✓ Build successful");
@@ -106,7 +130,7 @@ public class RunCommand implements Runnable {
             }
             // System.out.println("\n");
 
-            // 9. Execute (sempre executa, mesmo se não recompilou)
+            // 10. Execute (sempre executa, mesmo se não recompilou)
             Process java = new ProcessBuilder(
                     "java", "-cp", outDir.toAbsolutePath().toString(), fileName).inheritIO().start();
 
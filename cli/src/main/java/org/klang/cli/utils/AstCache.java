@@ -0,0 +1,70 @@
+package org.klang.cli.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.klang.core.parser.ast.ProgramNode;
+import org.klang.core.parser.binary.AstReader;
+import org.klang.core.parser.binary.AstWriter;
+
+/**
+ * Keeps the parsed AST of each source file in {@code out/.cache/<name>.kast},
+ * so a rebuild of an unchanged source (after a compiler upgrade, or when the
+ * generated Java is missing) restarts from the type checker instead of lexing
+ * and parsing again.
+ * <p>
+ * The file is stamped with the SHA-256 of the source and read back through a
+ * memory mapping; a stale, foreign or corrupt file is simply a miss.
+ * </p>
+ */
+public class AstCache {
+
+    public static Path fileFor(Path cacheDir, String fileName) {
+        return cacheDir.resolve(fileName + ".kast");
+    }
+
+    /**
+     * @return The stamp of a source: the SHA-256 of its bytes.
+     */
+    public static byte[] stamp(ByteBuffer source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(source.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return The cached program of the source with this stamp, or {@code null}
+     *         when there is none.
+     */
+    public static ProgramNode load(Path astFile, byte[] stamp) {
+        if (!Files.isRegularFile(astFile)) {
+            return null;
+        }
+
+        try {
+            return AstReader.read(SourceFiles.map(astFile), stamp);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the program next to a temporary name and moves it in place, so a
+     * reader never sees a partial file.
+     */
+    public static void save(Path astFile, ProgramNode program, byte[] stamp) throws IOException {
+        Path temporary = astFile.resolveSibling(astFile.getFileName() + ".tmp");
+
+        Files.write(temporary, AstWriter.write(program, stamp));
+        Files.move(temporary, astFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
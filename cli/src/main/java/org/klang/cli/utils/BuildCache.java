@@ -4,6 +4,8 @@ import java.security.MessageDigest;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import org.klang.cli.KVersionProvider;
+
 public class BuildCache {
     
     public static String calculateFileHash(Path file) throws Exception {
@@ -27,15 +29,19 @@ public class BuildCache {
         // Ler hash anterior
         String cachedHash = Files.readString(cacheFile).trim();
         
-        // Calcular hash atual
-        String currentHash = calculateFileHash(sourceFile);
+        // Calcular hash atual (um compilador novo também rebuilda)
+        String currentHash = stamp(sourceFile);
         
         // Comparar
         return !currentHash.equals(cachedHash);
     }
     
     public static void saveHash(Path sourceFile, Path cacheFile) throws Exception {
-        String hash = calculateFileHash(sourceFile);
+        String hash = stamp(sourceFile);
         Files.writeString(cacheFile, hash);
     }
+
+    private static String stamp(Path sourceFile) throws Exception {
+        return calculateFileHash(sourceFile) + " " + KVersionProvider.VERSION;
+    }
 }
\ No newline at end of file
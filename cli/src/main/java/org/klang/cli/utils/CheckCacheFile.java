@@ -0,0 +1,59 @@
+package org.klang.cli.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.klang.core.semantics.CheckCache;
+
+/**
+ * Keeps the {@link CheckCache} of each source file in
+ * {@code out/.cache/<name>.kchk}, so a rebuild after an edit only type checks
+ * the functions the edit touched.
+ * <p>
+ * The file is stamped with {@link CheckCache#RULES}; a stale, foreign or
+ * corrupt file is an empty cache.
+ * </p>
+ */
+public class CheckCacheFile {
+
+    private static final byte[] STAMP = ("rules " + CheckCache.RULES).getBytes(StandardCharsets.UTF_8);
+
+    public static Path fileFor(Path cacheDir, String fileName) {
+        return cacheDir.resolve(fileName + ".kchk");
+    }
+
+    public static CheckCache load(Path cacheFile) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return new CheckCache();
+        }
+
+        try {
+            return CheckCache.read(SourceFiles.map(cacheFile), STAMP);
+        } catch (IOException | IllegalArgumentException e) {
+            return new CheckCache();
+        }
+    }
+
+    /**
+     * Writes the cache next to a temporary name and moves it in place, so a
+     * reader never sees a partial file.
+     */
+    public static void save(Path cacheFile, CheckCache cache) throws IOException {
+        Path temporary = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+
+        Files.write(temporary, cache.write(STAMP));
+        Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return How much of the last check the cache saved, e.g.
+     *         {@code "12 of 15 functions unchanged (80.0%)"}.
+     */
+    public static String report(CheckCache cache) {
+        return String.format("%d of %d functions unchanged (%.1f%%)", cache.hits(), cache.hits() + cache.misses(),
+                cache.hitRate() * 100);
+    }
+}
@@ -0,0 +1,20 @@
+package org.klang.cli.utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class SourceFiles {
+
+    /**
+     * Maps a source file into memory, read-only, so the lexer can scan its UTF-8
+     * bytes in place instead of decoding and copying it into a String.
+     */
+    public static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
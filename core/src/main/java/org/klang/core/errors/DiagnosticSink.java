@@ -0,0 +1,98 @@
+package org.klang.core.errors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the errors of a compilation instead of stopping at the first one.
+ * <p>
+ * A phase running in recovery mode (see
+ * {@link org.klang.core.parser.Parser#setDiagnosticSink}) reports each error
+ * here and carries on; the caller then asks {@link #throwIfErrors()} to fail
+ * with all of them at once. An error at the same position and with the same
+ * code as the previous one is a cascade of it and is dropped, and after
+ * {@link #limit()} errors the sink is {@link #isFull() full} so the phase can
+ * stop early.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class DiagnosticSink {
+
+    /** Errors kept by {@link #DiagnosticSink()}. */
+    public static final int DEFAULT_LIMIT = 100;
+
+    private final List<KException> errors = new ArrayList<>();
+    private final int limit;
+
+    public DiagnosticSink() {
+        this(DEFAULT_LIMIT);
+    }
+
+    public DiagnosticSink(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit must be positive: " + limit);
+        }
+
+        this.limit = limit;
+    }
+
+    /**
+     * Records an error, unless the sink is full or the error repeats the
+     * previous one.
+     */
+    public void report(KException error) {
+        if (isFull()) {
+            return;
+        }
+
+        if (!errors.isEmpty()) {
+            KException last = errors.get(errors.size() - 1);
+
+            if (last.code == error.code && last.location.equals(error.location)) {
+                return;
+            }
+        }
+
+        errors.add(error);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public boolean isFull() {
+        return errors.size() >= limit;
+    }
+
+    public int size() {
+        return errors.size();
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * @return The errors, in the order they were reported.
+     */
+    public List<KException> errors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Throws the only error reported, or a {@link MultipleErrorsException}
+     * with all of them; does nothing when there are none.
+     */
+    public void throwIfErrors() {
+        if (errors.size() == 1) {
+            throw errors.get(0);
+        }
+
+        if (!errors.isEmpty()) {
+            throw new MultipleErrorsException(errors, isFull());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.klang.core.errors;
+
+import java.util.List;
+
+import org.klang.core.diagnostics.DiagnosticColors;
+
+/**
+ * Every error collected by a {@link DiagnosticSink}, reported together.
+ * <p>
+ * The code and location are those of the first error, so callers that only
+ * look at one error still see the earliest.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public class MultipleErrorsException extends KException {
+    private final List<KException> errors;
+    private final boolean truncated;
+
+    public MultipleErrorsException(List<KException> errors, boolean truncated) {
+        super(errors.get(0).code, errors.get(0).location, errors.get(0).contextLines, errors.get(0).cause,
+                errors.get(0).fix, errors.get(0).example, errors.get(0).note, errors.get(0).length);
+        this.errors = List.copyOf(errors);
+        this.truncated = truncated;
+    }
+
+    public List<KException> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+
+        for (KException error : errors) {
+            sb.append(error.format()).append("\n");
+        }
+
+        sb.append(DiagnosticColors.error(errors.size() + " errors"));
+
+        if (truncated) {
+            sb.append(DiagnosticColors.structure(" (stopped after the first " + errors.size() + ")"));
+        }
+
+        return sb.append("\n").toString();
+    }
+}
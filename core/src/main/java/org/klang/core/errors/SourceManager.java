@@ -1,42 +1,166 @@
 package org.klang.core.errors;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 public final class SourceManager {
 
 
     private final String source;
-    private String[] lines; // lazy
+    private ByteBuffer utf8Source; // lazy when built from a String
+
+    // Byte offset where each line starts, recorded by the Lexer as it walks newlines
+    private int[] lineStarts = new int[64];
+    private int lineCount = 1;
+    private int scannedUpTo = 0;
 
     public SourceManager(String source) {
         this.source = source;
     }
 
-    /** 
-    * @return Returns context lines with the error line ALWAYS as the last line. 
-    * @param errorLine error line (1-indexed) 
-    * @param linesBefore how many lines to show BEFORE the error 
+    /**
+     * Creates a manager over the raw UTF-8 bytes of a source file (e.g. a
+     * memory-mapped file). The text is only decoded when a diagnostic asks for
+     * context lines, so successful compilations never materialize it.
+     *
+     * @param utf8Source the UTF-8 encoded source, from its position to its limit.
+     */
+    public SourceManager(ByteBuffer utf8Source) {
+        this.source = null;
+        this.utf8Source = utf8Source.slice();
+    }
+
+    /**
+     * Records that a line starts at {@code offset}. Called by the Lexer for every
+     * newline it consumes, so the line index is ready when a diagnostic needs it.
+     * Offsets at or before the last recorded line start are ignored.
+     *
+     * @param offset UTF-8 byte offset of the first character of the line.
+     */
+    public void recordLineStart(int offset) {
+        if (offset <= lineStarts[lineCount - 1]) {
+            return;
+        }
+
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+
+        lineStarts[lineCount++] = offset;
+        scannedUpTo = Math.max(scannedUpTo, offset);
+    }
+
+    /**
+     * Copies the line starts recorded by {@code other} over the same source, e.g.
+     * by the Lexer of one chunk of a file lexed in parallel. Chunks must be
+     * merged in source order.
+     */
+    public void recordLineStarts(SourceManager other) {
+        for (int i = 1; i < other.lineCount; i++) {
+            recordLineStart(other.lineStarts[i]);
+        }
+    }
+
+    /**
+     * Indexes every line starting at or before {@code offset} by scanning the
+     * source, for a Lexer that starts scanning in the middle of it.
+     */
+    public void indexLinesUpTo(int offset) {
+        ensureIndexed(offset);
+    }
+
+    /**
+     * @return the line (1-indexed) containing the UTF-8 byte {@code offset}.
+     */
+    public int lineOf(int offset) {
+        ensureIndexed(offset);
+
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+    * @return Returns context lines with the error line ALWAYS as the last line.
+    * @param errorLine error line (1-indexed)
+    * @param linesBefore how many lines to show BEFORE the error
     */
     public String[] getContextLines(int errorLine, int linesBefore) {
-        String[] allLines = lines();
-        
+        ensureLines(errorLine + 1);
+
         int errorIndex = errorLine - 1;
         int startIndex = Math.max(0, errorIndex - linesBefore);
         int endIndex = errorIndex;
-        
+
         String[] context = new String[endIndex - startIndex + 1];
-        
+
         for (int i = startIndex; i <= endIndex; i++) {
-            context[i - startIndex] = allLines[i];
+            context[i - startIndex] = line(i);
         }
-    
+
         return context;
     }
 
+    /**
+     * Decodes the line at {@code index} (0-indexed), without its line break.
+     */
+    private String line(int index) {
+        ByteBuffer bytes = utf8();
+
+        if (index >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + (index + 1) + " is past the end of the source");
+        }
+
+        int start = lineStarts[index];
+        int end = index + 1 < lineCount ? lineStarts[index + 1] - 1 : bytes.limit();
+
+        return StandardCharsets.UTF_8.decode(bytes.duplicate().position(start).limit(end)).toString();
+    }
+
+    /**
+     * Makes sure the index covers {@code count} lines, or the whole source.
+     */
+    private void ensureLines(int count) {
+        ByteBuffer bytes = utf8();
+
+        while (lineCount < count && scannedUpTo < bytes.limit()) {
+            scanNextLine(bytes);
+        }
+    }
+
+    /**
+     * Makes sure the index covers every line starting at or before
+     * {@code offset}.
+     */
+    private void ensureIndexed(int offset) {
+        ByteBuffer bytes = utf8();
+
+        while (scannedUpTo <= offset && scannedUpTo < bytes.limit()) {
+            scanNextLine(bytes);
+        }
+    }
+
+    // Fallback for lines the Lexer has not walked (yet)
+    private void scanNextLine(ByteBuffer bytes) {
+        int limit = bytes.limit();
+        int i = scannedUpTo;
+
+        while (i < limit && bytes.get(i) != '\n') {
+            i++;
+        }
+
+        if (i < limit) {
+            recordLineStart(i + 1);
+        } else {
+            scannedUpTo = limit;
+        }
+    }
 
-    private String[] lines(){
-        if (lines == null){
-            lines = source.split("\n", -1);
+    private ByteBuffer utf8() {
+        if (utf8Source == null) {
+            utf8Source = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
         }
 
-        return lines;
+        return utf8Source;
     }
-}
\ No newline at end of file
+}
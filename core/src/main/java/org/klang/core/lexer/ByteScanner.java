@@ -0,0 +1,114 @@
+package org.klang.core.lexer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Word-at-a-time (SWAR) scanning primitives used by the {@link Lexer} to skip
+ * runs of blanks, comment bodies and string contents.
+ * <p>
+ * Eight source bytes are loaded into a {@code long} and tested at once with
+ * branch-free bit tricks, instead of looking at one character per loop
+ * iteration. The scanners only ever skip ASCII bytes: they stop at the first
+ * non-ASCII byte so the lexer can decode (and validate) it with the regular
+ * scalar path, which keeps columns and UTF-8 diagnostics exact.
+ * </p>
+ * <p>
+ * Buffers must be in little-endian order, so that the lowest-order byte of
+ * a word is the first byte in the source.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+final class ByteScanner {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private static final long SPACES = ' ' * ONES;
+    private static final long TABS = '\t' * ONES;
+
+    private ByteScanner() {
+    }
+
+    /**
+     * @return The index of the first byte at or after {@code from} that is not a
+     *         space or a tab, or {@code limit}.
+     */
+    static int skipBlanks(ByteBuffer source, int from, int limit) {
+        int i = from;
+
+        while (i + Long.BYTES <= limit) {
+            long word = source.getLong(i);
+            long blanks = zeroBytes(word ^ SPACES) | zeroBytes(word ^ TABS);
+            long others = ~blanks & HIGH_BITS;
+
+            if (others != 0) {
+                return i + (Long.numberOfTrailingZeros(others) >>> 3);
+            }
+
+            i += Long.BYTES;
+        }
+
+        while (i < limit) {
+            byte b = source.get(i);
+
+            if (b != ' ' && b != '\t') {
+                return i;
+            }
+
+            i++;
+        }
+
+        return limit;
+    }
+
+    /**
+     * @return The index of the first byte at or after {@code from} that equals
+     *         {@code a}, {@code b} or {@code c}, or that is not ASCII; or
+     *         {@code limit} when there is none.
+     */
+    static int indexOfAnyOrNonAscii(ByteBuffer source, int from, int limit, char a, char b, char c) {
+        long patternA = a * ONES;
+        long patternB = b * ONES;
+        long patternC = c * ONES;
+
+        int i = from;
+
+        while (i + Long.BYTES <= limit) {
+            long word = source.getLong(i);
+            long hits = zeroBytes(word ^ patternA)
+                    | zeroBytes(word ^ patternB)
+                    | zeroBytes(word ^ patternC)
+                    | (word & HIGH_BITS);
+
+            if (hits != 0) {
+                return i + (Long.numberOfTrailingZeros(hits) >>> 3);
+            }
+
+            i += Long.BYTES;
+        }
+
+        while (i < limit) {
+            byte v = source.get(i);
+
+            if (v < 0 || v == a || v == b || v == c) {
+                return i;
+            }
+
+            i++;
+        }
+
+        return limit;
+    }
+
+    /**
+     * @return A word with the high bit set in exactly the bytes of {@code x} that
+     *         are zero (no false positives from borrows between bytes).
+     */
+    private static long zeroBytes(long x) {
+        long t = (x & LOW_BITS) + LOW_BITS;
+        return ~(t | x | LOW_BITS);
+    }
+}
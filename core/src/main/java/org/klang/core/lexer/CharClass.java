@@ -0,0 +1,89 @@
+package org.klang.core.lexer;
+
+/**
+ * Character classification used by the {@link Lexer}.
+ * <p>
+ * ASCII code points are classified with a single lookup in a 128-entry table
+ * of class bits. Anything above ASCII falls back to the code point overloads
+ * of {@link Character}, so supplementary letters and digits (outside the Basic
+ * Multilingual Plane) are classified correctly, never as lone surrogates.
+ * </p>
+ * <p>
+ * The table is derived from {@link Character} itself, so both paths agree
+ * on every code point.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+final class CharClass {
+
+    static final byte WHITESPACE = 1;
+    static final byte LETTER = 1 << 1;
+    static final byte DIGIT = 1 << 2;
+    static final byte IDENTIFIER_START = 1 << 3;
+    static final byte IDENTIFIER_PART = 1 << 4;
+
+    private static final byte[] ASCII = new byte[128];
+
+    static {
+        for (int c = 0; c < ASCII.length; c++) {
+            byte classes = 0;
+
+            if (Character.isWhitespace(c)) {
+                classes |= WHITESPACE;
+            }
+
+            if (Character.isLetter(c)) {
+                classes |= LETTER | IDENTIFIER_START | IDENTIFIER_PART;
+            }
+
+            if (Character.isDigit(c)) {
+                classes |= DIGIT | IDENTIFIER_PART;
+            }
+
+            ASCII[c] = classes;
+        }
+
+        ASCII['_'] |= IDENTIFIER_START | IDENTIFIER_PART;
+        ASCII['$'] |= IDENTIFIER_START;
+    }
+
+    private CharClass() {
+    }
+
+    /**
+     * @return The class bits of an ASCII byte ({@code 0} to {@code 127}).
+     */
+    static byte ascii(int c) {
+        return ASCII[c];
+    }
+
+    static boolean isWhitespace(int c) {
+        return c < 128 ? (ASCII[c] & WHITESPACE) != 0 : Character.isWhitespace(c);
+    }
+
+    static boolean isLetter(int c) {
+        return c < 128 ? (ASCII[c] & LETTER) != 0 : Character.isLetter(c);
+    }
+
+    static boolean isDigit(int c) {
+        return c < 128 ? (ASCII[c] & DIGIT) != 0 : Character.isDigit(c);
+    }
+
+    /**
+     * @return Whether {@code c} can start an identifier: a letter, {@code _} or
+     *         {@code $}.
+     */
+    static boolean isIdentifierStart(int c) {
+        return c < 128 ? (ASCII[c] & IDENTIFIER_START) != 0 : Character.isLetter(c);
+    }
+
+    /**
+     * @return Whether {@code c} can continue an identifier: a letter, a digit or
+     *         {@code _}.
+     */
+    static boolean isIdentifierPart(int c) {
+        return c < 128 ? (ASCII[c] & IDENTIFIER_PART) != 0 : Character.isLetterOrDigit(c);
+    }
+}
@@ -0,0 +1,190 @@
+package org.klang.core.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.klang.core.errors.LexicalException;
+import org.klang.core.errors.SourceManager;
+
+/**
+ * Parallel tokenization of large inputs (see
+ * {@link Lexer#tokenizeSourceCode(ForkJoinPool)}).
+ * <p>
+ * The input is split at line starts that begin a top-level declaration (an
+ * access modifier or {@code @Use}). Strings and character literals cannot span
+ * lines without failing, and line comments end at the line break, so such a
+ * position is outside any token unless a block comment is still open. Every
+ * chunk is lexed by its own bounded {@link Lexer} with lines counted from
+ * {@code 1}; the streams are then stitched in order, shifting lines by the
+ * newlines of the preceding chunks.
+ * </p>
+ * <p>
+ * A chunk that fails, or that ends inside a block comment (the boundary was
+ * not safe after all), is lexed again sequentially from its start up to the
+ * end of the input with the caller's {@link SourceManager}. The result, tokens
+ * and diagnostics alike, is therefore the same as the sequential path.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+final class ChunkedLexing {
+
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+    private static final byte[][] DECLARATION_STARTS = {
+            "public".getBytes(StandardCharsets.US_ASCII),
+            "internal".getBytes(StandardCharsets.US_ASCII),
+            "protected".getBytes(StandardCharsets.US_ASCII),
+            "@Use".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private record Chunk(TokenStream tokens, SourceManager lines, int endLine, boolean insideComment) {
+    }
+
+    private ChunkedLexing() {
+    }
+
+    static TokenStream tokenize(ByteBuffer input, String filePath, SourceManager sourceManager, ForkJoinPool pool) {
+        int length = input.limit();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (pool.getParallelism() * 4));
+        int[] bounds = boundaries(input, chunkSize);
+        int chunks = bounds.length - 1;
+
+        List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            tasks.add(pool.submit(() -> lexChunk(input, from, to, filePath)));
+        }
+
+        TokenStream tokens = new TokenStream(input, Math.max(16, length / 4));
+        int lineDelta = 0;
+
+        for (int i = 0; i < chunks; i++) {
+            Chunk chunk = tasks.get(i).join();
+            boolean last = i == chunks - 1;
+
+            if (chunk == null || (chunk.insideComment() && !last)) {
+                for (int j = i + 1; j < chunks; j++) {
+                    tasks.get(j).cancel(false);
+                }
+
+                // Finish exactly like the sequential lexer would from here on
+                Lexer rest = new Lexer(input, bounds[i], length, 1 + lineDelta, filePath, sourceManager);
+                TokenStream tail = rest.tokenizeSourceCode();
+                tokens.append(tail, 0, tail.size(), 0, 0);
+                break;
+            }
+
+            sourceManager.recordLineStarts(chunk.lines());
+
+            // Every chunk but the last ends with an EOF token of its own
+            int count = last ? chunk.tokens().size() : chunk.tokens().size() - 1;
+            tokens.append(chunk.tokens(), 0, count, 0, lineDelta);
+            lineDelta += chunk.endLine() - 1;
+        }
+
+        tokens.trimToSize();
+        return tokens;
+    }
+
+    private static Chunk lexChunk(ByteBuffer input, int from, int to, String filePath) {
+        // Private manager: records this chunk's line starts, and keeps diagnostics
+        // of a failing chunk away from the shared one (they are reported again
+        // by the sequential re-lex)
+        SourceManager lines = new SourceManager(input);
+        Lexer lexer = new Lexer(input, from, to, 1, filePath, lines);
+
+        try {
+            TokenStream tokens = lexer.tokenizeSourceCode();
+            return new Chunk(tokens, lines, lexer.currentLine(), lexer.endedInsideComment());
+        } catch (LexicalException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The chunk boundaries: {@code 0}, every chosen split point, and the
+     *         input length.
+     */
+    private static int[] boundaries(ByteBuffer input, int chunkSize) {
+        int length = input.limit();
+        int[] bounds = new int[8];
+        int count = 0;
+
+        bounds[count++] = 0;
+
+        int next = chunkSize;
+        while (next < length) {
+            int boundary = nextDeclarationStart(input, next);
+
+            if (boundary < 0) {
+                break;
+            }
+
+            if (count + 1 >= bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+
+            bounds[count++] = boundary;
+            next = boundary + chunkSize;
+        }
+
+        bounds[count++] = length;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * @return The first line start after {@code from} that begins with an access
+     *         modifier or {@code @Use}, or {@code -1}.
+     */
+    private static int nextDeclarationStart(ByteBuffer input, int from) {
+        int length = input.limit();
+        int i = from;
+
+        while (i < length) {
+            int stop = ByteScanner.indexOfAnyOrNonAscii(input, i, length, '\n', '\n', '\n');
+
+            if (stop >= length) {
+                return -1;
+            }
+
+            if (input.get(stop) == '\n' && startsDeclaration(input, stop + 1)) {
+                return stop + 1;
+            }
+
+            i = stop + 1;
+        }
+
+        return -1;
+    }
+
+    private static boolean startsDeclaration(ByteBuffer input, int at) {
+        for (byte[] word : DECLARATION_STARTS) {
+            int end = at + word.length;
+
+            if (end >= input.limit()) {
+                continue;
+            }
+
+            boolean matches = true;
+            for (int k = 0; k < word.length && matches; k++) {
+                matches = input.get(at + k) == word[k];
+            }
+
+            // The word must not just be the prefix of a longer identifier
+            byte after = input.get(end);
+            if (matches && after >= 0 && (CharClass.ascii(after) & CharClass.IDENTIFIER_PART) == 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,108 @@
+package org.klang.core.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Static, immutable keyword recognizer shared by every {@link Lexer}.
+ * <p>
+ * Keywords are placed in a 64-slot table by a perfect hash of their length,
+ * first byte and last byte, so classifying an identifier costs one table
+ * probe plus a byte comparison against a single candidate, straight over the
+ * source bytes and without building a {@link String}.
+ * </p>
+ * <p>
+ * The table is checked for collisions when the class is loaded: adding a
+ * keyword that collides fails fast and means the hash constants in
+ * {@link #slot(int, int, int)} have to be adjusted.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+final class Keywords {
+
+    private static final int SIZE = 64;
+
+    private static final byte[][] SPELLINGS = new byte[SIZE][];
+    private static final TokenType[] TYPES = new TokenType[SIZE];
+
+    static {
+        define("return", TokenType.RETURN);
+        define("if", TokenType.IF);
+        define("otherwise", TokenType.OTHERWISE);
+        define("afterall", TokenType.AFTERALL);
+        define("while", TokenType.WHILE);
+        define("public", TokenType.PUBLIC);
+        define("internal", TokenType.INTERNAL);
+        define("protected", TokenType.PROTECTED);
+        define("true", TokenType.TRUE);
+        define("false", TokenType.FALSE);
+        define("integer", TokenType.INTEGER_TYPE);
+        define("try", TokenType.TRY);
+        define("catch", TokenType.CATCH);
+        define("double", TokenType.DOUBLE_TYPE);
+        define("boolean", TokenType.BOOLEAN_TYPE);
+        define("character", TokenType.CHARACTER_TYPE);
+        define("void", TokenType.VOID);
+        define("null", TokenType.NULL);
+        define("new", TokenType.NEW);
+        define("or", TokenType.OR);
+        define("and", TokenType.AND);
+        define("module", TokenType.MODULE);
+        define("import", TokenType.IMPORT);
+        define("because", TokenType.BECAUSE);
+        define("constant", TokenType.CONSTANT);
+
+        // References
+        define("String", TokenType.STRING_TYPE);
+    }
+
+    private Keywords() {
+    }
+
+    /**
+     * Classifies the word spelled by {@code length} bytes of {@code source}
+     * starting at {@code start}.
+     *
+     * @return The keyword token type, or {@code null} for a plain identifier.
+     */
+    static TokenType lookup(ByteBuffer source, int start, int length) {
+        if (length < 2 || length > 9) {
+            return null;
+        }
+
+        int slot = slot(source.get(start), source.get(start + length - 1), length);
+        byte[] spelling = SPELLINGS[slot];
+
+        if (spelling == null || spelling.length != length) {
+            return null;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (spelling[i] != source.get(start + i)) {
+                return null;
+            }
+        }
+
+        return TYPES[slot];
+    }
+
+    private static int slot(int first, int last, int length) {
+        return ((first << 2) + (last << 4) + length) & (SIZE - 1);
+    }
+
+    private static void define(String keyword, TokenType type) {
+        byte[] spelling = keyword.getBytes(StandardCharsets.US_ASCII);
+        int slot = slot(spelling[0], spelling[spelling.length - 1], spelling.length);
+
+        if (SPELLINGS[slot] != null) {
+            throw new IllegalStateException(
+                    "Keyword '" + keyword + "' collides with '"
+                            + new String(SPELLINGS[slot], StandardCharsets.US_ASCII) + "'");
+        }
+
+        SPELLINGS[slot] = spelling;
+        TYPES[slot] = type;
+    }
+}
@@ -1,9 +1,9 @@
 package org.klang.core.lexer;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ForkJoinPool;
+import java.nio.charset.StandardCharsets;
 
 import org.klang.core.diagnostics.DiagnosticCode;
 import org.klang.core.errors.LexicalException;
@@ -36,31 +36,78 @@ import org.klang.core.errors.SourceManager;
  * <li><strong>String Interning:</strong> Uses a symbol table to canonicalize
  * identifiers, reducing memory usage.</li>
  * </ul>
+ * <p>
+ * The input is scanned as UTF-8 bytes, so a memory-mapped file can be lexed
+ * without decoding it into a {@link String} first. ASCII bytes take a fast
+ * path; multi-byte sequences are decoded to code points on the fly. Token
+ * offsets ({@link #tokenStart()}, {@link #tokenLength()}) are byte offsets,
+ * while columns keep counting UTF-16 characters as before.
+ * </p>
  * 
  * @author Lucas Paulino Da Silva (~K')
  * @since 0.1
  */
 public class Lexer {
 
+    /**
+     * Input size, in bytes, from which {@link #tokenizeSourceCode(ForkJoinPool)}
+     * splits the work across threads.
+     */
+    public static final int PARALLEL_THRESHOLD = 1024 * 1024;
+
+    // How far past the end of a token the Lexer may look to decide it: the '.'
+    // after an integer plus a whole code point
+    private static final int RELEX_LOOKAHEAD = 5;
+
     private int position = 0;
     private int line = 1;
     private int column = 0;
 
-    private final String source;
     private final String filePath;
 
-    private final char[] input;
+    private final ByteBuffer input;
     private final int length;
 
-    private final ArrayList<Token> tokens;
+    private TokenType emittedType;
+    private int emittedStart;
+    private int emittedLength;
+    private int emittedLine;
+    private int emittedColumn;
+    private long emittedPayload;
+    private String emittedText;
+
+    private boolean unterminatedComment = false;
 
     private final SourceManager sourceManager;
     private final StringBuilder stringBuilder = new StringBuilder(255);
 
-    private final HashMap<String, TokenType> tokensTypeByString = new HashMap<>(65, 1.0f);
-    private final TokenType[] singleCharTokens = new TokenType[128];
-
-    private final Map<String, String> symbolTable = new HashMap<>(512, 0.75f);
+    private final SymbolTable symbolTable = new SymbolTable(512);
+
+    private static final TokenType[] SINGLE_CHAR_TOKENS = new TokenType[128];
+
+    static {
+        SINGLE_CHAR_TOKENS['('] = TokenType.LPAREN;
+        SINGLE_CHAR_TOKENS[')'] = TokenType.RPAREN;
+        SINGLE_CHAR_TOKENS['{'] = TokenType.LBRACE;
+        SINGLE_CHAR_TOKENS['}'] = TokenType.RBRACE;
+        SINGLE_CHAR_TOKENS['['] = TokenType.LBRACKET;
+        SINGLE_CHAR_TOKENS[']'] = TokenType.RBRACKET;
+        SINGLE_CHAR_TOKENS[','] = TokenType.COMMA;
+        SINGLE_CHAR_TOKENS[';'] = TokenType.SEMICOLON;
+        SINGLE_CHAR_TOKENS[':'] = TokenType.COLON;
+        SINGLE_CHAR_TOKENS['.'] = TokenType.DOT;
+        SINGLE_CHAR_TOKENS['+'] = TokenType.PLUS;
+        SINGLE_CHAR_TOKENS['-'] = TokenType.MINUS;
+        SINGLE_CHAR_TOKENS['*'] = TokenType.MULTIPLY;
+        SINGLE_CHAR_TOKENS['/'] = TokenType.DIVISION;
+        SINGLE_CHAR_TOKENS['%'] = TokenType.REMAINDER;
+        SINGLE_CHAR_TOKENS['='] = TokenType.ASSIGNMENT;
+        SINGLE_CHAR_TOKENS['<'] = TokenType.LT;
+        SINGLE_CHAR_TOKENS['>'] = TokenType.GT;
+        SINGLE_CHAR_TOKENS['!'] = TokenType.BANG;
+        // Specials
+        SINGLE_CHAR_TOKENS['@'] = TokenType.AT;
+    }
 
     /**
      * Constructs a new Lexer instance.
@@ -72,48 +119,205 @@ public class Lexer {
      *                      diagnostics.
      */
     public Lexer(String source, String filePath, SourceManager sourceManager) {
-        this.source = source;
+        this(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), filePath, sourceManager);
+    }
+
+    /**
+     * Constructs a new Lexer that scans UTF-8 encoded bytes directly.
+     * <p>
+     * Meant for memory-mapped source files: the buffer is read in place, from
+     * its current position up to its limit, and is never decoded as a whole.
+     * </p>
+     *
+     * @param source        The UTF-8 encoded source code.
+     * @param filePath      The path to the file being processed (used for error
+     *                      reporting).
+     * @param sourceManager The manager responsible for handling source context and
+     *                      diagnostics.
+     */
+    public Lexer(ByteBuffer source, String filePath, SourceManager sourceManager) {
         this.filePath = filePath;
 
-        this.input = source.toCharArray();
-        this.length = input.length;
+        // Little-endian so ByteScanner sees source order in its words
+        this.input = source.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.length = input.limit();
 
         this.sourceManager = sourceManager;
-        // Optimization: Estimate token count to avoid frequent array resizing
-        int estimedTokens = Math.max(16, source.length() / 4);
-        this.tokens = new ArrayList<>(estimedTokens);
+    }
 
-        initialzerhashMapTokensTypes();
+    /**
+     * Constructs a Lexer over the {@code [from, to)} slice of an input already
+     * prepared by another Lexer, starting at the given line (column 0). Used to
+     * lex chunks of a file in parallel.
+     */
+    Lexer(ByteBuffer input, int from, int to, int line, String filePath, SourceManager sourceManager) {
+        this.filePath = filePath;
+        this.input = input;
+        this.position = from;
+        this.length = to;
+        this.line = line;
+        this.sourceManager = sourceManager;
     }
 
     /**
-     * Canonicalizes identifier strings using a symbol table (String Interning).
+     * Tokenizes the whole source code up front, using the given pool for large
+     * inputs.
      * <p>
-     * This ensures that identical identifiers share the same String instance in
-     * memory,
-     * which optimizes memory usage and speeds up equality checks in later stages of
-     * compilation.
+     * Inputs of at least {@link #PARALLEL_THRESHOLD} bytes are split at line
+     * starts that begin a top-level declaration and the chunks are lexed
+     * concurrently, then stitched back together. The tokens, line index and
+     * diagnostics are the same as with {@link #tokenizeSourceCode()}. Must be
+     * called on a Lexer that has not scanned anything yet.
      * </p>
-     * 
-     * @param s The string to canonicalize.
-     * @return The canonical instance of the string.
+     *
+     * @param pool The pool that lexes the chunks.
+     * @return A compact {@link TokenStream} representing the source code.
+     * @throws LexicalException if an invalid character or malformed literal is
+     *                          encountered.
      */
-    private String canonical(String s) {
-        String existing = symbolTable.get(s);
+    public TokenStream tokenizeSourceCode(ForkJoinPool pool) {
+        if (length - position < PARALLEL_THRESHOLD) {
+            return tokenizeSourceCode();
+        }
+
+        return ChunkedLexing.tokenize(input, filePath, sourceManager, pool);
+    }
 
-        if (existing != null) {
-            return existing;
+    /**
+     * Re-tokenizes the source after an edit, reusing the tokens of the previous
+     * version wherever the edit cannot have changed them.
+     * <p>
+     * This Lexer must be fresh and read the edited source (see
+     * {@link TextEdit#applyTo(ByteBuffer)}). Scanning restarts at the last token
+     * that ends far enough before the edit, and stops as soon as a scanned token
+     * starts past the edit where a previous token started (shifted by the size
+     * change): from there on both versions lex alike, so the remaining previous
+     * tokens are copied with their offsets, lines and columns adjusted. The
+     * tokens are the same as {@link #tokenizeSourceCode()} on the edited source.
+     * </p>
+     *
+     * @param previous The token stream of the source before the edit.
+     * @param edit     The edit that turned the old source into this Lexer's
+     *                 input.
+     * @return The spliced stream and the range of changed tokens.
+     * @throws LexicalException if the damaged region does not lex.
+     */
+    public RelexResult relex(TokenStream previous, TextEdit edit) {
+        int editStart = edit.offset();
+        int editEnd = editStart + edit.removedLength();
+        int delta = edit.insertedLength() - edit.removedLength();
+
+        if (editEnd > previous.source().limit() || previous.source().limit() + delta != length) {
+            throw new IllegalArgumentException("The edit does not turn the previous source into the input of this Lexer");
         }
 
-        symbolTable.put(s, s);
-        return s;
+        // Tokens [0, safe) were decided without looking at the edited bytes
+        int low = 0;
+        int high = previous.size() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (previous.start(middle) + previous.length(middle) + RELEX_LOOKAHEAD <= editStart) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        // Restart at the start of the last safe token, whose line and column are known
+        int kept = 0;
+        if (low > 0) {
+            kept = low - 1;
+            position = previous.start(kept);
+            line = previous.line(kept);
+            column = previous.column(kept);
+        }
+
+        // The lines before the restart point are not walked again
+        sourceManager.indexLinesUpTo(position);
+
+        TokenStream tokens = new TokenStream(input, previous.size() + Math.max(0, delta) / 4);
+        tokens.append(previous, 0, kept, 0, 0);
+
+        // First previous token that may resynchronize: the ones after the edit
+        int candidate = kept;
+        while (previous.start(candidate) < editEnd) {
+            candidate++;
+        }
+
+        while (true) {
+            TokenType type = nextToken();
+
+            if (emittedStart >= editEnd + delta) {
+                // The previous EOF (at its source length + delta) stops this loop
+                while (previous.start(candidate) + delta < emittedStart) {
+                    candidate++;
+                }
+
+                if (previous.start(candidate) + delta == emittedStart) {
+                    int end = tokens.size();
+
+                    tokens.append(previous, candidate, previous.size(), delta, emittedLine - previous.line(candidate));
+                    tokens.shiftColumns(end, emittedLine, emittedColumn - previous.column(candidate));
+                    tokens.trimToSize();
+
+                    // Tokens rescanned unchanged before the edit are not part of the damage
+                    int start = kept;
+                    while (start < end
+                            && tokens.type(start) == previous.type(start)
+                            && tokens.start(start) == previous.start(start)
+                            && tokens.length(start) == previous.length(start)
+                            && tokens.start(start) + tokens.length(start) <= editStart) {
+                        start++;
+                    }
+
+                    return new RelexResult(tokens, start, candidate, end);
+                }
+            }
+
+            tokens.add(type, emittedStart, emittedLength, emittedLine, emittedColumn, emittedPayload, emittedText);
+        }
     }
 
     /**
-     * Performs the main tokenization loop.
+     * Tokenizes the whole source code up front.
+     * <p>
+     * Drains {@link #nextToken()} until the End Of File (EOF) token into a compact
+     * {@link TokenStream}. Callers that can consume tokens incrementally should
+     * prefer the pull API (see {@link TokenWindow}), which keeps only a bounded
+     * lookahead in memory.
+     * </p>
+     * 
+     * @return A compact {@link TokenStream} representing the source code.
+     * @throws LexicalException if an invalid character or malformed literal is
+     *                          encountered.
+     */
+    public TokenStream tokenizeSourceCode() {
+        // Optimization: Estimate token count to avoid frequent array resizing
+        int estimedTokens = Math.max(16, (length - position) / 4);
+        TokenStream tokens = new TokenStream(input, estimedTokens);
+
+        TokenType type;
+        do {
+            type = nextToken();
+            tokens.add(type, emittedStart, emittedLength, emittedLine, emittedColumn, emittedPayload, emittedText);
+        } while (type != TokenType.EOF);
+
+        tokens.trimToSize();
+        return tokens;
+    }
+
+    /**
+     * Scans the next token (pull API).
+     * <p>
+     * Scans the input character by character until one token is recognized or
+     * the End Of File (EOF) is reached. Once the input is exhausted every call
+     * returns {@link TokenType#EOF}. The attributes of the scanned token are
+     * available through {@link #tokenStart()}, {@link #tokenLength()},
+     * {@link #tokenLine()}, {@link #tokenColumn()} and {@link #tokenText()} until
+     * the next call.
+     * </p>
      * <p>
-     * Scans the input character by character until the End Of File (EOF) is
-     * reached.
      * It delegates specific patterns (strings, numbers, identifiers) to specialized
      * methods
      * and handles single-character tokens and operators directly.
@@ -126,23 +330,31 @@ public class Lexer {
      * diagnostic messages suggesting the correct Klang alternatives.
      * </p>
      * 
-     * @return A list of tokens representing the source code.
+     * @return The type of the scanned token.
      * @throws LexicalException if an invalid character or malformed literal is
      *                          encountered.
      */
-    public List<Token> tokenizeSourceCode() {
+    public TokenType nextToken() {
         this.stringBuilder.setLength(0);
-        while (!isAtEnd()) {
+        this.emittedType = null;
+        this.emittedPayload = 0;
 
-            char c = peek();
+        while (emittedType == null && !isAtEnd()) {
+
+            int c = peek();
+            int offset = position;
 
             // Handle Whitespace
-            if (Character.isWhitespace(c)) {
+            if (CharClass.isWhitespace(c)) {
                 advance();
                 if (c == '\n') {
-                    line++;
-                    column = 0;
+                    newLine(position);
                 }
+
+                // Indentation: skip the whole run of blanks at once
+                int end = ByteScanner.skipBlanks(input, position, length);
+                column += end - position;
+                position = end;
                 continue;
             }
 
@@ -153,12 +365,9 @@ public class Lexer {
 
                 advance();
 
-                String content = readString(startLine, startColumn);
-                tokens.add(new Token(
-                        TokenType.STRING_LITERAL,
-                        content,
-                        line,
-                        startColumn)); // CORREÇÃO: Usa startColumn, não position
+                // The value is sliced from the source only when someone asks for it
+                readString(startLine, startColumn);
+                addToken(TokenType.STRING_LITERAL, offset, startColumn, null); // CORREÇÃO: Usa startColumn, não position
 
                 continue;
             }
@@ -169,20 +378,16 @@ public class Lexer {
                 advance();
 
                 String content = readCharacter();
-                tokens.add(new Token(
-                        TokenType.CHARACTER_LITERAL,
-                        content,
-                        line,
-                        startColumn)); // CORREÇÃO: Usa startColumn, não position
+                addToken(TokenType.CHARACTER_LITERAL, offset, startColumn, content); // CORREÇÃO: Usa startColumn, não position
 
                 continue;
             }
 
             // Handle Identifiers and Keywords
-            if (Character.isLetter(c) || c == '_' || c == '$') {
+            if (CharClass.isIdentifierStart(c)) {
                 int startColumn = this.column; // Captura coluna inicial
 
-                if (c == '$' && !(Character.isLetter(peekNext()) || peekNext() == '_')) {
+                if (c == '$' && !(CharClass.isLetter(peekNext()) || peekNext() == '_')) {
                     String example = "integer $validName = 10; // ok\n  integer $ = 10; // invalid";
 
                     lexicalError(
@@ -194,29 +399,28 @@ public class Lexer {
                             1);
                 }
 
-                String ident = readIdentifier();
-                ident = canonical(ident);
-                TokenType tokenType = tokensTypeByString.getOrDefault(ident, TokenType.IDENTIFIER);
+                readIdentifier();
+                TokenType keyword = Keywords.lookup(input, offset, position - offset);
 
-                if (tokenType == TokenType.IDENTIFIER) {
-                    tokens.add(new Token(tokenType, ident, line, startColumn));
+                if (keyword == null) {
+                    String ident = symbolTable.intern(input, offset, position - offset);
+                    addToken(TokenType.IDENTIFIER, offset, startColumn, ident);
                 } else {
-                    tokens.add(new Token(tokenType, line, startColumn));
+                    addToken(keyword, offset, startColumn, null);
                 }
 
                 continue;
             }
 
             // Handle Numbers
-            if (Character.isDigit(c)) {
+            if (CharClass.isDigit(c)) {
                 int startColumn = this.column; // Captura coluna inicial
-                String[] data = readNumber();
-                String num = data[0];
+                boolean isDouble = readNumber();
 
-                if (data[1].equals("true")) {
-                    tokens.add(new Token(TokenType.DOUBLE_LITERAL, num, line, startColumn));
+                if (isDouble) {
+                    addToken(TokenType.DOUBLE_LITERAL, offset, startColumn, null);
                 } else {
-                    tokens.add(new Token(TokenType.INTEGER_LITERAL, num, line, startColumn));
+                    addToken(TokenType.INTEGER_LITERAL, offset, startColumn, null);
                 }
 
                 continue;
@@ -227,7 +431,17 @@ public class Lexer {
                 advance();
                 advance();
 
-                while (!isAtEnd() && peek() != '\n') {
+                while (!isAtEnd()) {
+                    skipAsciiUntil('\n', '\n', '\n');
+
+                    if (isAtEnd()) {
+                        break;
+                    }
+
+                    if (peek() == '\n') {
+                        break;
+                    }
+
                     advance();
                 }
 
@@ -239,43 +453,53 @@ public class Lexer {
                 advance();
                 advance();
 
+                boolean closed = false;
+
                 while (!isAtEnd()) {
 
+                    skipAsciiUntil('*', '\n', '\n');
+
+                    if (isAtEnd()) {
+                        break;
+                    }
+
                     if (peek() == '*' && peekNext() == '/') {
                         advance();
                         advance();
+                        closed = true;
                         break;
                     }
 
                     if (peek() == '\n') {
-                        line++;
-                        column = 0;
+                        newLine(position + 1);
                     }
 
                     advance();
                 }
 
+                unterminatedComment = !closed;
+
                 continue;
             }
 
             // Handle Operators and Symbols
             // CRUCIAL: Captura a coluna ANTES de avançar no switch
             int tokenStart = this.column;
-            TokenType tokenType = c < 128 ? singleCharTokens[c] : null;
+            TokenType tokenType = c < 128 ? SINGLE_CHAR_TOKENS[c] : null;
             this.stringBuilder.setLength(0);
 
             switch (c) {
                 case '@':
                     advance();
-                    tokens.add(TokenFactory.simple(TokenType.AT, "@", line, tokenStart));
+                    addToken(TokenType.AT, offset, tokenStart, null);
                     continue;
 
                 case '=':
                     advance();
                     if (match('=')) {
-                        tokens.add(TokenFactory.simple(TokenType.DOUBLEEQUAL, "==", line, tokenStart));
+                        addToken(TokenType.DOUBLEEQUAL, offset, tokenStart, null);
                     } else {
-                        tokens.add(TokenFactory.simple(TokenType.ASSIGNMENT, "=", line, tokenStart));
+                        addToken(TokenType.ASSIGNMENT, offset, tokenStart, null);
                     }
                     continue;
 
@@ -284,7 +508,7 @@ public class Lexer {
                     this.stringBuilder.append('+');
                     if (peek() == '+') {
                         while (peek() == '+') {
-                            this.stringBuilder.append(advance());
+                            this.stringBuilder.appendCodePoint(advance());
                         }
 
                         lexicalError(
@@ -296,13 +520,13 @@ public class Lexer {
                                 this.stringBuilder.length());
 
                     } else {
-                        tokens.add(TokenFactory.simple(TokenType.PLUS, "+", line, tokenStart));
+                        addToken(TokenType.PLUS, offset, tokenStart, null);
                     }
                     continue;
 
                 case '.':
                     advance();
-                    tokens.add(TokenFactory.simple(TokenType.DOT, ".", line, tokenStart));
+                    addToken(TokenType.DOT, offset, tokenStart, null);
                     continue;
 
                 case '-':
@@ -310,7 +534,7 @@ public class Lexer {
                     if (peek() == '-') {
                         this.stringBuilder.append('-');
                         while (peek() == '-') {
-                            this.stringBuilder.append(advance());
+                            this.stringBuilder.appendCodePoint(advance());
                         }
 
                         lexicalError(
@@ -324,7 +548,7 @@ public class Lexer {
                     } else if (peek() == '>') {
                         this.stringBuilder.append('>');
                         while (peek() == '-' || peek() == '>') {
-                            this.stringBuilder.append(advance());
+                            this.stringBuilder.appendCodePoint(advance());
                         }
 
                         lexicalError(
@@ -335,7 +559,7 @@ public class Lexer {
                                 null,
                                 this.stringBuilder.length());
                     } else {
-                        tokens.add(TokenFactory.simple(TokenType.MINUS, "-", line, tokenStart));
+                        addToken(TokenType.MINUS, offset, tokenStart, null);
                     }
                     continue;
 
@@ -345,7 +569,7 @@ public class Lexer {
 
                     if (peek() == '*') {
                         while (peek() == '*') {
-                            this.stringBuilder.append(advance());
+                            this.stringBuilder.appendCodePoint(advance());
                         }
 
                         lexicalError(
@@ -356,34 +580,34 @@ public class Lexer {
                                 "The Mathematics standard library is not yet implemented. Use manual multiplication for powers in the meantime.",
                                 this.stringBuilder.length());
                     } else {
-                        tokens.add(TokenFactory.simple(TokenType.MULTIPLY, "*", line, tokenStart));
+                        addToken(TokenType.MULTIPLY, offset, tokenStart, null);
                     }
                     continue;
 
                 case '>':
                     advance();
                     if (match('=')) {
-                        tokens.add(TokenFactory.simple(TokenType.GTE, ">=", line, tokenStart));
+                        addToken(TokenType.GTE, offset, tokenStart, null);
                     } else {
-                        tokens.add(TokenFactory.simple(TokenType.GT, ">", line, tokenStart));
+                        addToken(TokenType.GT, offset, tokenStart, null);
                     }
                     continue;
 
                 case '<':
                     advance();
                     if (match('=')) {
-                        tokens.add(TokenFactory.simple(TokenType.LTE, "<=", line, tokenStart));
+                        addToken(TokenType.LTE, offset, tokenStart, null);
                     } else {
-                        tokens.add(TokenFactory.simple(TokenType.LT, "<", line, tokenStart));
+                        addToken(TokenType.LT, offset, tokenStart, null);
                     }
                     continue;
 
                 case '!':
                     advance();
                     if (match('=')) {
-                        tokens.add(TokenFactory.simple(TokenType.NOTEQUAL, "!=", line, tokenStart));
+                        addToken(TokenType.NOTEQUAL, offset, tokenStart, null);
                     } else {
-                        tokens.add(TokenFactory.simple(TokenType.BANG, "!", line, tokenStart));
+                        addToken(TokenType.BANG, offset, tokenStart, null);
                     }
                     continue;
 
@@ -392,7 +616,7 @@ public class Lexer {
                     this.stringBuilder.append("&");
 
                     while (peek() == '&') {
-                        this.stringBuilder.append(advance());
+                        this.stringBuilder.appendCodePoint(advance());
                     }
 
                     lexicalError(
@@ -409,7 +633,7 @@ public class Lexer {
                     this.stringBuilder.append("|");
 
                     while (peek() == '|') {
-                        this.stringBuilder.append(advance());
+                        this.stringBuilder.appendCodePoint(advance());
                     }
 
                     lexicalError(
@@ -425,7 +649,7 @@ public class Lexer {
             if (tokenType == null) {
                 lexicalError(
                         DiagnosticCode.E001,
-                        "Unexpected character '" + c + "'.",
+                        "Unexpected character '" + Character.toString(c) + "'.",
                         "Remove or replace this character.",
                         null,
                         "This character is not valid in the source code context.",
@@ -433,13 +657,105 @@ public class Lexer {
             }
 
             // CORREÇÃO: Usa tokenStart aqui também, pois é um singleCharToken
-            tokens.add(TokenFactory.simple(tokenType, String.valueOf(c), line, tokenStart));
             advance();
+            addToken(tokenType, offset, tokenStart, null);
         }
 
-        tokens.add(TokenFactory.simple(TokenType.EOF, "\0", line, column));
-        tokens.trimToSize();
-        return tokens;
+        if (emittedType == null) {
+            emittedType = TokenType.EOF;
+            emittedStart = length;
+            emittedLength = 0;
+            emittedLine = line;
+            emittedColumn = column;
+            emittedText = null;
+        }
+
+        return emittedType;
+    }
+
+    public int tokenStart() {
+        return emittedStart;
+    }
+
+    public int tokenLength() {
+        return emittedLength;
+    }
+
+    public int tokenLine() {
+        return emittedLine;
+    }
+
+    public int tokenColumn() {
+        return emittedColumn;
+    }
+
+    /**
+     * @return The value of the last scanned token, or {@code null} when it is
+     *         implied by its type or, for string and numeric literals, left in
+     *         the source to be sliced on demand (see {@link #source()}).
+     */
+    public String tokenText() {
+        return emittedText;
+    }
+
+    /**
+     * @return The value parsed for the last token when it is a numeric literal:
+     *         the integer itself, or the raw bits of the double
+     *         ({@link Double#doubleToRawLongBits(double)}); {@code 0} otherwise.
+     */
+    long tokenPayload() {
+        return emittedPayload;
+    }
+
+    /**
+     * @return The line the Lexer is currently on.
+     */
+    int currentLine() {
+        return line;
+    }
+
+    /**
+     * @return Whether the input ended inside a block comment (only meaningful
+     *         once the EOF token was produced).
+     */
+    boolean endedInsideComment() {
+        return unterminatedComment;
+    }
+
+    /**
+     * @return The UTF-8 source being scanned; token offsets index into it.
+     */
+    ByteBuffer source() {
+        return input;
+    }
+
+    /**
+     * Moves to the next line and records where it starts in the SourceManager's
+     * line index, so diagnostics never have to split the whole source.
+     *
+     * @param lineStart Byte offset of the first character of the new line.
+     */
+    private void newLine(int lineStart) {
+        line++;
+        column = 0;
+        sourceManager.recordLineStart(lineStart);
+    }
+
+    /**
+     * Records the token that spans from {@code offset} to the current position.
+     *
+     * @param type   The token type.
+     * @param offset Source offset where the token starts.
+     * @param column Column where the token starts.
+     * @param text   The token value, or {@code null} when implied by the type.
+     */
+    private void addToken(TokenType type, int offset, int column, String text) {
+        emittedType = type;
+        emittedStart = offset;
+        emittedLength = position - offset;
+        emittedLine = line;
+        emittedColumn = column;
+        emittedText = text;
     }
 
     /**
@@ -448,86 +764,80 @@ public class Lexer {
      * Handles escape sequences (e.g., {@code \n}, {@code \t}, {@code \"}) and
      * checks for
      * unclosed strings or line breaks within the string (which are not allowed in
-     * Klang).
+     * Klang). The literal is only validated here; its value is sliced from the
+     * source later, when it is actually needed.
      * </p>
      * 
      * @param startLine   The line number where the string started.
      * @param startColumn The column number where the string started.
-     * @return The content of the string literal.
      * @throws LexicalException if the string is unclosed or contains invalid
      *                          escapes.
      */
-    private String readString(int startLine, int startColumn) {
-        this.stringBuilder.setLength(0);
-        this.stringBuilder.append("\"");
-        String example = "\"" + this.stringBuilder.toString().strip() + "\"";
+    private void readString(int startLine, int startColumn) {
+        // Length of the value read so far (opening quote included), for highlighting
+        int valueLength = 1;
+        String example = "\"\"\"";
 
         while (!isAtEnd()) {
-            char c = advance();
+            valueLength += skipAsciiUntil('"', '\\', '\n');
+
+            if (isAtEnd()) {
+                break;
+            }
+
+            int c = advance();
             if (c == '"') {
-                this.stringBuilder.append("\"");
-                return this.stringBuilder.toString();
+                return;
             }
 
             if (c == '\n') {
-                int errorLength = this.stringBuilder.length();
-
                 lexicalError(
                         DiagnosticCode.E002,
                         "Unterminated string literal.",
                         "String literals cannot span multiple lines. Close the string before the line break.",
                         example,
                         null,
-                        errorLength);
+                        valueLength);
             }
 
             if (c == '\\') {
                 if (isAtEnd()) {
-                    int errorLength = this.stringBuilder.length();
                     lexicalError(
                             DiagnosticCode.E002,
                             "Unterminated string literal at EOF.",
                             "Add a closing quote '\"' to the string.",
                             example,
                             null,
-                            errorLength);
+                            valueLength);
                 }
 
-                char escaped = advance();
+                int escaped = advance();
 
-                if (escaped == 'n') {
-                    this.stringBuilder.append("\\n");
-                } else if (escaped == 't') {
-                    this.stringBuilder.append("\\t");
-                } else if (escaped == '"') {
-                    this.stringBuilder.append('"');
-                } else if (escaped == '\\') {
-                    this.stringBuilder.append("\\");
+                if (escaped == 'n' || escaped == 't') {
+                    valueLength += 2;
+                } else if (escaped == '"' || escaped == '\\') {
+                    valueLength += 1;
                 } else {
-                    int errorLength = this.stringBuilder.length();
-
                     lexicalError(
                             DiagnosticCode.E001,
-                            "Invalid escape sequence '\\" + escaped + "'.",
+                            "Invalid escape sequence '\\" + Character.toString(escaped) + "'.",
                             "Use valid escape sequences like \\n, \\t, \\\", or \\\\.",
                             example,
                             null,
-                            errorLength);
+                            valueLength);
                 }
                 continue;
             }
-            this.stringBuilder.append(c);
+            valueLength += Character.charCount(c);
         }
 
-        int errorLength = this.stringBuilder.length();
         lexicalError(
                 DiagnosticCode.E002,
                 "Unterminated string literal.",
                 "Add a closing quote '\"' before the end of the file.",
                 example,
                 null,
-                errorLength);
-        return null;
+                valueLength);
     }
 
     /**
@@ -559,9 +869,19 @@ public class Lexer {
                     errorLength);
         }
 
-        char c = advance();
+        int c = advance();
         String value;
 
+        if (c == '\n') {
+            lexicalError(
+                    DiagnosticCode.E104,
+                    "Unclosed character literal.",
+                    "Character literals cannot span multiple lines. Use '\\n' for a line break.",
+                    "character c = '\\n';",
+                    null,
+                    errorLength);
+        }
+
         if (c == '\\') {
             if (isAtEnd()) {
                 String example = "\'\\n\'";
@@ -575,7 +895,7 @@ public class Lexer {
                         errorLength + 2);
             }
 
-            char escaped = advance();
+            int escaped = advance();
 
             if (escaped == 'n') {
                 value = "\\n";
@@ -589,7 +909,7 @@ public class Lexer {
                 String example = "'\\n'";
                 lexicalError(
                         DiagnosticCode.E001,
-                        "Invalid escape sequence in character literal: \\" + escaped,
+                        "Invalid escape sequence in character literal: \\" + Character.toString(escaped),
                         "Use valid escapes like \\n, \\t, \\', or \\\\.",
                         example,
                         null,
@@ -598,7 +918,7 @@ public class Lexer {
             }
 
         } else {
-            value = String.valueOf(c);
+            value = Character.toString(c);
         }
 
         if (isAtEnd()) {
@@ -618,7 +938,7 @@ public class Lexer {
             this.stringBuilder.append(value);
 
             while (!isAtEnd() && peek() != '\'') {
-                this.stringBuilder.append(advance());
+                this.stringBuilder.appendCodePoint(advance());
             }
 
             String allChars = this.stringBuilder.toString();
@@ -636,8 +956,7 @@ public class Lexer {
         }
 
         advance(); // Consume closing '
-        c += '\'';
-        value = String.valueOf(c);
+        value = String.valueOf((char) (c + '\''));
 
         return value;
     }
@@ -645,24 +964,36 @@ public class Lexer {
     /**
      * Reads an identifier or keyword from the input.
      * <p>
-     * Scans alphanumeric characters and underscores. The resulting string is
-     * canonicalized to optimize storage.
+     * Scans alphanumeric characters and underscores. The caller classifies the
+     * scanned bytes with {@link Keywords} and canonicalizes plain identifiers
+     * through the symbol table, so no string is allocated for keywords or for
+     * names that were already seen. ASCII bytes are classified straight from
+     * the source; only non-ASCII ones are decoded to code points.
      * </p>
-     * 
-     * @return The scanned identifier string.
      */
-    private String readIdentifier() {
-        int start = position;
+    private void readIdentifier() {
         advance();
 
-        while (Character.isLetterOrDigit(peek()) || peek() == '_') {
-            advance();
-        }
+        while (!isAtEnd()) {
+            byte b = input.get(position);
 
-        int len = position - start;
-        String ident = new String(input, start, len);
+            // ASCII: classified straight from the byte, no decoding
+            if (b >= 0) {
+                if ((CharClass.ascii(b) & CharClass.IDENTIFIER_PART) == 0) {
+                    return;
+                }
 
-        return canonical(ident);
+                position++;
+                column++;
+                continue;
+            }
+
+            if (!CharClass.isIdentifierPart(peek())) {
+                return;
+            }
+
+            advance();
+        }
     }
 
     /**
@@ -671,39 +1002,50 @@ public class Lexer {
      * Validates that the number is not immediately followed by letters, which would
      * indicate a malformed identifier or invalid syntax.
      * </p>
+     * <p>
+     * The value is parsed here, once, and recorded as the token payload (see
+     * {@link #tokenPayload()}), so later phases never re-read the digits. Values
+     * that do not fit their type are rejected right away.
+     * </p>
      * 
-     * @return The string representation of the number.
-     * @throws LexicalException if the number format is invalid.
+     * @return {@code true} if the literal is a floating point number.
+     * @throws LexicalException if the number format is invalid or out of range.
      */
-    private String[] readNumber() {
+    private boolean readNumber() {
+        int start = position;
+        boolean isDouble = false;
+        long integerValue = 0;
+
+        // ASCII spelling of the literal, only turned into a String for decimals
         this.stringBuilder.setLength(0);
-        String isDouble = "false";
 
-        this.stringBuilder.append(advance());
+        do {
+            int digit = Character.digit(advance(), 10);
+            this.stringBuilder.append((char) ('0' + digit));
 
-        while (Character.isDigit(peek())) {
-            this.stringBuilder.append(advance());
-        }
+            // Stops accumulating once out of range; the literal is rejected below
+            if (integerValue <= Integer.MAX_VALUE) {
+                integerValue = integerValue * 10 + digit;
+            }
+        } while (CharClass.isDigit(peek()));
 
-        if (peek() == '.' && Character.isDigit(peekNext())) {
-            isDouble = "true";
-            this.stringBuilder.append(advance());
+        if (peek() == '.' && CharClass.isDigit(peekNext())) {
+            isDouble = true;
+            this.stringBuilder.append((char) advance());
 
-            while (Character.isDigit(peek())) {
-                this.stringBuilder.append(advance());
+            while (CharClass.isDigit(peek())) {
+                this.stringBuilder.append((char) ('0' + Character.digit(advance(), 10)));
             }
         }
 
-        if (Character.isLetter(peek())) {
-            String example = "integer n = " + this.stringBuilder.toString() + ";";
+        if (CharClass.isLetter(peek())) {
+            String example = "integer n = " + TokenFactory.decode(input, start, position - start) + ";";
 
-            this.stringBuilder.setLength(0);
-            while (!isAtEnd() && Character.isLetter(peek())) {
-                this.stringBuilder.append(advance());
+            int errorLenth = 0;
+            while (!isAtEnd() && CharClass.isLetter(peek())) {
+                errorLenth += Character.charCount(advance());
             }
 
-            int errorLenth = this.stringBuilder.length();
-
             lexicalError(
                     DiagnosticCode.E101,
                     "Malformed numeric literal.",
@@ -713,7 +1055,35 @@ public class Lexer {
                     (errorLenth));
         }
 
-        return new String[] { this.stringBuilder.toString(), isDouble };
+        if (isDouble) {
+            double doubleValue = Double.parseDouble(this.stringBuilder.toString());
+
+            if (Double.isInfinite(doubleValue)) {
+                lexicalError(
+                        DiagnosticCode.E101,
+                        "Decimal literal is too large.",
+                        "The largest value of type 'double' is about 1.8E308.",
+                        null,
+                        null,
+                        this.stringBuilder.length());
+            }
+
+            this.emittedPayload = Double.doubleToRawLongBits(doubleValue);
+        } else {
+            if (integerValue > Integer.MAX_VALUE) {
+                lexicalError(
+                        DiagnosticCode.E101,
+                        "Integer literal is too large.",
+                        "The largest value of type 'integer' is " + Integer.MAX_VALUE + ".",
+                        "integer n = " + Integer.MAX_VALUE + ";",
+                        "Use 'double' for larger magnitudes.",
+                        this.stringBuilder.length());
+            }
+
+            this.emittedPayload = integerValue;
+        }
+
+        return isDouble;
     }
 
     // Utility methods
@@ -722,29 +1092,129 @@ public class Lexer {
         return position >= this.length;
     }
 
-    private char peek() {
+    private int peek() {
         if (isAtEnd()) {
             return '\0';
         }
-        return this.input[position];
+        return codePointAt(position);
     }
 
-    private char peekNext() {
-        int next = position + 1;
+    private int peekNext() {
+        int next = position + utf8Length(peek());
         if (next >= this.length) {
             return '\0';
         }
-        return this.input[next];
+        return codePointAt(next);
     }
 
-    private char advance() {
-        char c = peek();
-        position++;
-        column++;
+    private int advance() {
+        int c = peek();
+        position += utf8Length(c);
+        column += Character.charCount(c);
         return c;
     }
 
-    private boolean match(char expected) {
+    private int codePointAt(int index) {
+        byte b = this.input.get(index);
+
+        // ASCII fast path
+        if (b >= 0) {
+            return b;
+        }
+
+        return decodeMultiByte(index, b);
+    }
+
+    /**
+     * Decodes the UTF-8 sequence that starts with the non-ASCII byte
+     * {@code lead} at {@code index}.
+     *
+     * @throws LexicalException if the bytes are not well-formed UTF-8.
+     */
+    private int decodeMultiByte(int index, byte lead) {
+        int size;
+        int codePoint;
+
+        if ((lead & 0xE0) == 0xC0) {
+            size = 2;
+            codePoint = lead & 0x1F;
+        } else if ((lead & 0xF0) == 0xE0) {
+            size = 3;
+            codePoint = lead & 0x0F;
+        } else if ((lead & 0xF8) == 0xF0) {
+            size = 4;
+            codePoint = lead & 0x07;
+        } else {
+            return malformedInput();
+        }
+
+        if (index + size > this.length) {
+            return malformedInput();
+        }
+
+        for (int i = 1; i < size; i++) {
+            byte next = this.input.get(index + i);
+
+            if ((next & 0xC0) != 0x80) {
+                return malformedInput();
+            }
+
+            codePoint = (codePoint << 6) | (next & 0x3F);
+        }
+
+        // Reject overlong encodings, surrogates and values past U+10FFFF
+        if (utf8Length(codePoint) != size
+                || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)
+                || codePoint > Character.MAX_CODE_POINT) {
+            return malformedInput();
+        }
+
+        return codePoint;
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        if (codePoint < 0x10000) {
+            return 3;
+        }
+        return 4;
+    }
+
+    private int malformedInput() {
+        column++;
+        lexicalError(
+                DiagnosticCode.E001,
+                "Invalid UTF-8 byte sequence.",
+                "Save the source file with UTF-8 encoding.",
+                null,
+                null,
+                1);
+        return '\0';
+    }
+
+    /**
+     * Skips plain ASCII bytes up to the next {@code a}, {@code b} or {@code c},
+     * the next non-ASCII byte or the end of the input, word by word (see
+     * {@link ByteScanner}).
+     *
+     * @return How many characters were skipped.
+     */
+    private int skipAsciiUntil(char a, char b, char c) {
+        int stop = ByteScanner.indexOfAnyOrNonAscii(input, position, length, a, b, c);
+        int skipped = stop - position;
+
+        position = stop;
+        column += skipped;
+
+        return skipped;
+    }
+
+    private boolean match(int expected) {
         if (isAtEnd()) {
             return false;
         }
@@ -783,63 +1253,4 @@ public class Lexer {
                 note,
                 lenth);
     }
-
-    /**
-     * Initializes the lookup tables for keywords and single-character tokens.
-     */
-    private void initialzerhashMapTokensTypes() {
-        // Keywords
-        tokensTypeByString.put("return", TokenType.RETURN);
-        tokensTypeByString.put("if", TokenType.IF);
-        tokensTypeByString.put("otherwise", TokenType.OTHERWISE);
-        tokensTypeByString.put("afterall", TokenType.AFTERALL);
-        tokensTypeByString.put("while", TokenType.WHILE);
-        tokensTypeByString.put("public", TokenType.PUBLIC);
-        tokensTypeByString.put("internal", TokenType.INTERNAL);
-        tokensTypeByString.put("protected", TokenType.PROTECTED);
-        tokensTypeByString.put("true", TokenType.TRUE);
-        tokensTypeByString.put("false", TokenType.FALSE);
-        tokensTypeByString.put("integer", TokenType.INTEGER_TYPE);
-        tokensTypeByString.put("try", TokenType.TRY);
-        tokensTypeByString.put("catch", TokenType.CATCH);
-        tokensTypeByString.put("double", TokenType.DOUBLE_TYPE);
-        tokensTypeByString.put("boolean", TokenType.BOOLEAN_TYPE);
-        tokensTypeByString.put("character", TokenType.CHARACTER_TYPE);
-        tokensTypeByString.put("void", TokenType.VOID);
-        tokensTypeByString.put("null", TokenType.NULL);
-        tokensTypeByString.put("new", TokenType.NEW);
-        tokensTypeByString.put("Use", TokenType.IDENTIFIER);
-        tokensTypeByString.put("or", TokenType.OR);
-        tokensTypeByString.put("and", TokenType.AND);
-        tokensTypeByString.put("module", TokenType.MODULE);
-        tokensTypeByString.put("import", TokenType.IMPORT);
-        tokensTypeByString.put("because", TokenType.BECAUSE);
-        tokensTypeByString.put("constant", TokenType.CONSTANT);
-
-        // References
-        tokensTypeByString.put("String", TokenType.STRING_TYPE);
-
-        // Single-Characters
-        singleCharTokens['('] = TokenType.LPAREN;
-        singleCharTokens[')'] = TokenType.RPAREN;
-        singleCharTokens['{'] = TokenType.LBRACE;
-        singleCharTokens['}'] = TokenType.RBRACE;
-        singleCharTokens['['] = TokenType.LBRACKET;
-        singleCharTokens[']'] = TokenType.RBRACKET;
-        singleCharTokens[','] = TokenType.COMMA;
-        singleCharTokens[';'] = TokenType.SEMICOLON;
-        singleCharTokens[':'] = TokenType.COLON;
-        singleCharTokens['.'] = TokenType.DOT;
-        singleCharTokens['+'] = TokenType.PLUS;
-        singleCharTokens['-'] = TokenType.MINUS;
-        singleCharTokens['*'] = TokenType.MULTIPLY;
-        singleCharTokens['/'] = TokenType.DIVISION;
-        singleCharTokens['%'] = TokenType.REMAINDER;
-        singleCharTokens['='] = TokenType.ASSIGNMENT;
-        singleCharTokens['<'] = TokenType.LT;
-        singleCharTokens['>'] = TokenType.GT;
-        singleCharTokens['!'] = TokenType.BANG;
-        // Specials
-        singleCharTokens['@'] = TokenType.AT;
-    }
-}
\ No newline at end of file
+}
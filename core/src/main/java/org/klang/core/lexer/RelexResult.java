@@ -0,0 +1,22 @@
+package org.klang.core.lexer;
+
+/**
+ * Outcome of {@link Lexer#relex(TokenStream, TextEdit)}.
+ * <p>
+ * The tokens {@code [start, end)} of {@code tokens} replace the tokens
+ * {@code [start, previousEnd)} of the previous stream. Every other token is
+ * the same as before the edit; those after the range are only shifted (offset,
+ * line and, on the line of the edit, column).
+ * </p>
+ *
+ * @param tokens      The token stream of the edited source.
+ * @param start       Index of the first changed token.
+ * @param previousEnd End (exclusive) of the changed tokens in the previous
+ *                    stream.
+ * @param end         End (exclusive) of the changed tokens in {@code tokens}.
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public record RelexResult(TokenStream tokens, int start, int previousEnd, int end) {
+}
@@ -0,0 +1,40 @@
+package org.klang.core.lexer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link Token} whose value is a slice of the source that is only decoded the
+ * first time it is requested.
+ * <p>
+ * Used for string and numeric literals: the lexer validates them while
+ * scanning but does not build their text, so literals that are only ever
+ * inspected through {@link #getType()} never allocate a {@link String}.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+final class SliceToken extends Token {
+
+    private final ByteBuffer source;
+    private final int start;
+    private final int length;
+
+    private String value;
+
+    SliceToken(TokenType type, ByteBuffer source, int start, int length, int line, int column) {
+        super(type, line, column);
+        this.source = source;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    String value() {
+        if (value == null) {
+            value = TokenFactory.slice(type, source, start, length);
+        }
+
+        return value;
+    }
+}
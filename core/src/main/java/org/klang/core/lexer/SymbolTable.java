@@ -0,0 +1,117 @@
+package org.klang.core.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Identifier table keyed by the raw UTF-8 bytes of the source.
+ * <p>
+ * The {@link Lexer} resolves every identifier through this table without
+ * building a {@link String} first: the bytes are hashed and compared in place,
+ * and only the first occurrence of each identifier allocates its canonical
+ * instance. Repeated identifiers therefore share the same String (interning).
+ * Keywords are recognized beforehand by {@link Keywords}.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+final class SymbolTable {
+
+    private byte[][] keys;
+    private String[] names;
+    private int[] hashes;
+
+    private int mask;
+    private int size;
+
+    SymbolTable(int expectedSymbols) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSymbols * 2) * 2 - 1);
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the canonical name spelled by {@code length} bytes of
+     * {@code source} starting at {@code start}, adding it when it is new.
+     */
+    String intern(ByteBuffer source, int start, int length) {
+        int hash = hash(source, start, length);
+        int slot = hash & mask;
+
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && sameBytes(keys[slot], source, start, length)) {
+                return names[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+            return intern(source, start, length);
+        }
+
+        byte[] key = new byte[length];
+        source.get(start, key);
+
+        keys[slot] = key;
+        names[slot] = new String(key, StandardCharsets.UTF_8);
+        hashes[slot] = hash;
+        size++;
+
+        return names[slot];
+    }
+
+    private static int hash(ByteBuffer source, int start, int length) {
+        int hash = length;
+
+        for (int i = start, end = start + length; i < end; i++) {
+            hash = 31 * hash + source.get(i);
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean sameBytes(byte[] key, ByteBuffer source, int start, int length) {
+        if (key.length != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (key[i] != source.get(start + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        byte[][] oldKeys = keys;
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+
+            int slot = oldHashes[i] & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            names[slot] = oldNames[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new byte[capacity][];
+        this.names = new String[capacity];
+        this.hashes = new int[capacity];
+        this.mask = capacity - 1;
+    }
+}
@@ -0,0 +1,76 @@
+package org.klang.core.lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single text replacement in a source file: {@code removedLength} bytes at
+ * {@code offset} are replaced by {@code insertedText}.
+ * <p>
+ * Offsets and lengths are counted in UTF-8 bytes, like the token offsets of a
+ * {@link TokenStream}. Used with {@link Lexer#relex(TokenStream, TextEdit)}.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class TextEdit {
+
+    private final int offset;
+    private final int removedLength;
+    private final byte[] inserted;
+
+    /**
+     * @param offset        UTF-8 byte offset of the edit in the old source.
+     * @param removedLength Number of bytes removed at {@code offset}.
+     * @param insertedText  Text inserted at {@code offset} (may be empty).
+     */
+    public TextEdit(int offset, int removedLength, String insertedText) {
+        if (offset < 0 || removedLength < 0) {
+            throw new IllegalArgumentException("Invalid edit: offset " + offset + ", removed " + removedLength);
+        }
+
+        this.offset = offset;
+        this.removedLength = removedLength;
+        this.inserted = insertedText.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int removedLength() {
+        return removedLength;
+    }
+
+    /**
+     * @return The UTF-8 length of the inserted text.
+     */
+    public int insertedLength() {
+        return inserted.length;
+    }
+
+    /**
+     * Builds the edited source.
+     *
+     * @param source The old UTF-8 source, from its position to its limit.
+     * @return A new buffer holding the source with the edit applied.
+     * @throws IllegalArgumentException if the edit falls outside the source.
+     */
+    public ByteBuffer applyTo(ByteBuffer source) {
+        ByteBuffer old = source.slice();
+        int removedEnd = offset + removedLength;
+
+        if (removedEnd > old.limit()) {
+            throw new IllegalArgumentException(
+                    "Edit [" + offset + ", " + removedEnd + ") is outside a source of " + old.limit() + " bytes");
+        }
+
+        ByteBuffer edited = ByteBuffer.allocate(old.limit() - removedLength + inserted.length);
+        edited.put(old.duplicate().limit(offset));
+        edited.put(inserted);
+        edited.put(old.duplicate().position(removedEnd));
+
+        return edited.flip();
+    }
+}
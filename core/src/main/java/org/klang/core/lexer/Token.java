@@ -4,7 +4,7 @@ import org.klang.core.Heddle;
 
 public class Token {
     public final TokenType type;
-    public final String value;
+    private final String value;
     public final int line;
     public final int column;
 
@@ -34,6 +34,8 @@ public class Token {
     }
 
     public String getValue(){
+        String value = value();
+
         if (value == null){
             return "";
         }
@@ -41,6 +43,15 @@ public class Token {
         return value;
     }
 
+    /**
+     * @return The raw token value, or {@code null} when it is implied by the
+     *         type. Overridden by {@link SliceToken} to read it from the source
+     *         on demand.
+     */
+    String value() {
+        return value;
+    }
+
     public int getLine() {
         return line;
     }
@@ -60,6 +71,7 @@ public class Token {
     @Override
     public String toString() {
         String saida = "" + type;
+        String value = value();
 
         if (value != null) {
             saida += "(" + value + ")";
@@ -1,10 +1,13 @@
 package org.klang.core.lexer;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.EnumMap;
 
 public final class TokenFactory {
 
     private static final EnumMap<TokenType, Token> SIMPLE_TEMPLATES = new EnumMap<>(TokenType.class);
+    private static final EnumMap<TokenType, String> SPELLINGS = new EnumMap<>(TokenType.class);
 
     static {
         for (TokenType type : TokenType.values()) {
@@ -14,6 +17,32 @@ public final class TokenFactory {
                         new Token(type, null, 0, 0));
             }
         }
+
+        SPELLINGS.put(TokenType.LPAREN, "(");
+        SPELLINGS.put(TokenType.RPAREN, ")");
+        SPELLINGS.put(TokenType.LBRACE, "{");
+        SPELLINGS.put(TokenType.RBRACE, "}");
+        SPELLINGS.put(TokenType.LBRACKET, "[");
+        SPELLINGS.put(TokenType.RBRACKET, "]");
+        SPELLINGS.put(TokenType.COMMA, ",");
+        SPELLINGS.put(TokenType.SEMICOLON, ";");
+        SPELLINGS.put(TokenType.COLON, ":");
+        SPELLINGS.put(TokenType.DOT, ".");
+        SPELLINGS.put(TokenType.PLUS, "+");
+        SPELLINGS.put(TokenType.MINUS, "-");
+        SPELLINGS.put(TokenType.MULTIPLY, "*");
+        SPELLINGS.put(TokenType.DIVISION, "/");
+        SPELLINGS.put(TokenType.REMAINDER, "%");
+        SPELLINGS.put(TokenType.ASSIGNMENT, "=");
+        SPELLINGS.put(TokenType.LT, "<");
+        SPELLINGS.put(TokenType.GT, ">");
+        SPELLINGS.put(TokenType.BANG, "!");
+        SPELLINGS.put(TokenType.LTE, "<=");
+        SPELLINGS.put(TokenType.GTE, ">=");
+        SPELLINGS.put(TokenType.DOUBLEEQUAL, "==");
+        SPELLINGS.put(TokenType.NOTEQUAL, "!=");
+        SPELLINGS.put(TokenType.AT, "@");
+        SPELLINGS.put(TokenType.EOF, "\0");
     }
 
     private TokenFactory() {
@@ -33,6 +62,117 @@ public final class TokenFactory {
                 column);
     }
 
+    /**
+     * Returns the fixed source spelling of a simple token (e.g. {@code "=="} for
+     * {@link TokenType#DOUBLEEQUAL}), or {@code null} when the token has no fixed
+     * spelling.
+     */
+    public static String spelling(TokenType type) {
+        return SPELLINGS.get(type);
+    }
+
+    /**
+     * Returns the value of a token as exposed by {@link Token#getValue()}.
+     *
+     * @param type   The token type.
+     * @param text   The text recorded by the lexer, or {@code null} when implied
+     *               by the type or read lazily from the source.
+     * @param source The UTF-8 source the token was scanned from.
+     * @param start  Byte offset of the token in {@code source}.
+     * @param length Byte length of the token.
+     */
+    static String value(TokenType type, String text, ByteBuffer source, int start, int length) {
+        if (text != null) {
+            return text;
+        }
+
+        if (isSourceSlice(type)) {
+            return slice(type, source, start, length);
+        }
+
+        String spelling = spelling(type);
+        return spelling == null ? "" : spelling;
+    }
+
+    /**
+     * Materializes a {@link Token} from the compact representation kept by
+     * {@link TokenStream} and {@link TokenWindow}.
+     */
+    static Token view(TokenType type, String text, ByteBuffer source, int start, int length, int line, int column) {
+        if (text != null) {
+            return new Token(type, text, line, column);
+        }
+
+        if (isSourceSlice(type)) {
+            return new SliceToken(type, source, start, length, line, column);
+        }
+
+        String spelling = spelling(type);
+
+        if (spelling != null) {
+            return simple(type, spelling, line, column);
+        }
+
+        return new Token(type, line, column);
+    }
+
+    /**
+     * Tells whether the lexer leaves the value of this token type in the source
+     * instead of recording its text.
+     */
+    static boolean isSourceSlice(TokenType type) {
+        return type == TokenType.STRING_LITERAL
+                || type == TokenType.INTEGER_LITERAL
+                || type == TokenType.DOUBLE_LITERAL;
+    }
+
+    /**
+     * Builds the value of a literal from its source bytes. Numeric literals are
+     * taken verbatim; string literals keep their quotes and the {@code \"} and
+     * {@code \\} escapes are resolved, like the lexer always did.
+     */
+    static String slice(TokenType type, ByteBuffer source, int start, int length) {
+        String raw = decode(source, start, length);
+
+        if (type != TokenType.STRING_LITERAL || raw.indexOf('\\') < 0) {
+            return raw;
+        }
+
+        StringBuilder cooked = new StringBuilder(raw.length());
+
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+
+            if (c == '\\' && i + 1 < raw.length()) {
+                char escaped = raw.charAt(i + 1);
+
+                if (escaped == '"' || escaped == '\\') {
+                    cooked.append(escaped);
+                    i++;
+                    continue;
+                }
+            }
+
+            cooked.append(c);
+        }
+
+        return cooked.toString();
+    }
+
+    /**
+     * Decodes {@code length} UTF-8 bytes of {@code source} starting at
+     * {@code start}.
+     */
+    static String decode(ByteBuffer source, int start, int length) {
+        if (source.hasArray()) {
+            return new String(source.array(), source.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes = new byte[length];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
     private static boolean isSimple(TokenType type) {
         switch (type) {
             case PLUS:
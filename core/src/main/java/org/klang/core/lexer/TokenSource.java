@@ -0,0 +1,55 @@
+package org.klang.core.lexer;
+
+/**
+ * Random access to tokens by absolute index, as consumed by the
+ * {@link org.klang.core.parser.Parser}.
+ * <p>
+ * Implemented by the fully buffered {@link TokenStream} and by the streaming
+ * {@link TokenWindow}, which only keeps a bounded window of tokens around the
+ * parser position.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public interface TokenSource {
+
+    TokenType type(int index);
+
+    int start(int index);
+
+    int length(int index);
+
+    int line(int index);
+
+    int column(int index);
+
+    /**
+     * @return The token value, with the same semantics as
+     *         {@link Token#getValue()}.
+     */
+    String value(int index);
+
+    /**
+     * @return The value parsed by the lexer for an
+     *         {@link TokenType#INTEGER_LITERAL}; unspecified for other tokens.
+     */
+    long integerValue(int index);
+
+    /**
+     * @return The value parsed by the lexer for a
+     *         {@link TokenType#DOUBLE_LITERAL}; unspecified for other tokens.
+     */
+    double doubleValue(int index);
+
+    /**
+     * Materializes a {@link Token} view of the token at {@code index}.
+     */
+    Token token(int index);
+
+    /**
+     * @return {@code index}, or the index of the EOF token when {@code index}
+     *         lies beyond the end of the input.
+     */
+    int clamp(int index);
+}
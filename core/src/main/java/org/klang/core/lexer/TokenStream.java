@@ -0,0 +1,262 @@
+package org.klang.core.lexer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact sequence of tokens produced by the {@link Lexer}.
+ * <p>
+ * Instead of allocating one {@link Token} object per token, the stream keeps
+ * its data in parallel primitive arrays (struct-of-arrays): the type ordinal,
+ * the start offset and length in the source, the line/column used for
+ * diagnostics and the numeric payload of integer and decimal literals. Only identifiers keep a reference to their (interned) text;
+ * punctuation and keywords are implied by the type, and the values of string
+ * and numeric literals are sliced from the source when first asked for.
+ * </p>
+ * <p>
+ * {@link Token} objects are materialized on demand through
+ * {@link #token(int)}, which is meant for the places that really need an
+ * object (AST nodes, diagnostics, {@code kc lex --show-tokens}). Hot parser
+ * paths should use the indexed accessors such as {@link #type(int)}.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class TokenStream implements TokenSource, Iterable<Token> {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final ByteBuffer source;
+
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    private long[] payloads;
+    private String[] texts;
+
+    private int size;
+
+    /**
+     * Creates an empty stream.
+     *
+     * @param source         the UTF-8 source the tokens are scanned from.
+     * @param expectedTokens initial capacity, usually estimated from the source
+     *                       length.
+     */
+    TokenStream(ByteBuffer source, int expectedTokens) {
+        this.source = source;
+
+        int capacity = Math.max(16, expectedTokens);
+
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.payloads = new long[capacity];
+        this.texts = new String[capacity];
+    }
+
+    /**
+     * Appends a token to the stream.
+     *
+     * @param type    The token type.
+     * @param start   Byte offset of the first character of the token in the
+     *                source.
+     * @param length  Number of source bytes covered by the token.
+     * @param line    Line of the token (1-indexed).
+     * @param column  Column of the token (0-indexed).
+     * @param payload The parsed value of a numeric literal: the integer itself,
+     *                or the raw bits of the double ({@code 0} otherwise).
+     * @param text    The token value, or {@code null} when it is implied by the
+     *                type (punctuation, operators and keywords) or sliced from
+     *                the source (string and numeric literals).
+     */
+    void add(TokenType type, int start, int length, int line, int column, long payload, String text) {
+        if (size == types.length) {
+            grow();
+        }
+
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = column;
+        payloads[size] = payload;
+        texts[size] = text;
+        size++;
+    }
+
+    /**
+     * Appends the tokens {@code [from, to)} of {@code other}, shifting their
+     * start offsets by {@code startDelta} and their lines by {@code lineDelta}.
+     * Used to stitch streams lexed in parallel and to splice relexed streams.
+     */
+    void append(TokenStream other, int from, int to, int startDelta, int lineDelta) {
+        int count = to - from;
+
+        while (size + count > types.length) {
+            grow();
+        }
+
+        System.arraycopy(other.types, from, types, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        System.arraycopy(other.columns, from, columns, size, count);
+        System.arraycopy(other.payloads, from, payloads, size, count);
+        System.arraycopy(other.texts, from, texts, size, count);
+
+        for (int i = 0; i < count; i++) {
+            starts[size + i] = other.starts[from + i] + startDelta;
+            lines[size + i] = other.lines[from + i] + lineDelta;
+        }
+
+        size += count;
+    }
+
+    /**
+     * Shifts by {@code delta} the columns of the tokens from {@code from} on
+     * that are still on {@code line}.
+     */
+    void shiftColumns(int from, int line, int delta) {
+        for (int i = from; i < size && lines[i] == line; i++) {
+            columns[i] += delta;
+        }
+    }
+
+    private void grow() {
+        int capacity = types.length + (types.length >> 1) + 1;
+
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+    }
+
+    /**
+     * Releases the unused tail of the backing arrays.
+     */
+    void trimToSize() {
+        if (size == types.length) {
+            return;
+        }
+
+        types = Arrays.copyOf(types, size);
+        starts = Arrays.copyOf(starts, size);
+        lengths = Arrays.copyOf(lengths, size);
+        lines = Arrays.copyOf(lines, size);
+        columns = Arrays.copyOf(columns, size);
+        payloads = Arrays.copyOf(payloads, size);
+        texts = Arrays.copyOf(texts, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return TYPES[types[checkIndex(index)]];
+    }
+
+    @Override
+    public int start(int index) {
+        return starts[checkIndex(index)];
+    }
+
+    @Override
+    public int length(int index) {
+        return lengths[checkIndex(index)];
+    }
+
+    @Override
+    public int line(int index) {
+        return lines[checkIndex(index)];
+    }
+
+    @Override
+    public int column(int index) {
+        return columns[checkIndex(index)];
+    }
+
+    @Override
+    public long integerValue(int index) {
+        return payloads[checkIndex(index)];
+    }
+
+    @Override
+    public double doubleValue(int index) {
+        return Double.longBitsToDouble(payloads[checkIndex(index)]);
+    }
+
+    /**
+     * Returns the value of the token, with the same semantics as
+     * {@link Token#getValue()}: fixed spellings for punctuation and operators,
+     * the text for identifiers and literals, and an empty string for keywords.
+     */
+    @Override
+    public String value(int index) {
+        return TokenFactory.value(type(index), texts[index], source, starts[index], lengths[index]);
+    }
+
+    /**
+     * Materializes a {@link Token} view of the token at {@code index}.
+     * <p>
+     * A new object is created on every call, so callers on hot paths should
+     * prefer the indexed accessors.
+     * </p>
+     */
+    @Override
+    public Token token(int index) {
+        return TokenFactory.view(
+                type(index), texts[index], source, starts[index], lengths[index], lines[index], columns[index]);
+    }
+
+    @Override
+    public int clamp(int index) {
+        return Math.min(index, size - 1);
+    }
+
+    @Override
+    public Iterator<Token> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Token next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return token(next++);
+            }
+        };
+    }
+
+    /**
+     * @return The UTF-8 source the tokens were scanned from.
+     */
+    ByteBuffer source() {
+        return source;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Token index " + index + " out of bounds for length " + size);
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,148 @@
+package org.klang.core.lexer;
+
+/**
+ * Streaming {@link TokenSource} that pulls tokens from a {@link Lexer} on
+ * demand.
+ * <p>
+ * Only a bounded window of tokens is kept, in a ring buffer of parallel
+ * primitive arrays. Tokens are lexed as the consumer looks ahead and are
+ * overwritten once they fall behind the window, so lexing and parsing
+ * interleave and peak memory no longer depends on the size of the input.
+ * The first lexical error is reported as soon as the consumer reaches it.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class TokenWindow implements TokenSource {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final Lexer lexer;
+    private final int mask;
+
+    private final byte[] types;
+    private final int[] starts;
+    private final int[] lengths;
+    private final int[] lines;
+    private final int[] columns;
+    private final long[] payloads;
+    private final String[] texts;
+
+    private int count = 0;
+    private int eofIndex = -1;
+
+    /**
+     * @param lexer      The lexer to pull tokens from.
+     * @param lookbehind How many already consumed tokens must stay reachable.
+     * @param lookahead  How many tokens past the current one may be inspected.
+     */
+    public TokenWindow(Lexer lexer, int lookbehind, int lookahead) {
+        this.lexer = lexer;
+
+        int capacity = Integer.highestOneBit(Math.max(1, lookbehind + lookahead + 1) * 2 - 1);
+        this.mask = capacity - 1;
+
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.payloads = new long[capacity];
+        this.texts = new String[capacity];
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return TYPES[types[slot(index)]];
+    }
+
+    @Override
+    public int start(int index) {
+        return starts[slot(index)];
+    }
+
+    @Override
+    public int length(int index) {
+        return lengths[slot(index)];
+    }
+
+    @Override
+    public int line(int index) {
+        return lines[slot(index)];
+    }
+
+    @Override
+    public int column(int index) {
+        return columns[slot(index)];
+    }
+
+    @Override
+    public long integerValue(int index) {
+        return payloads[slot(index)];
+    }
+
+    @Override
+    public double doubleValue(int index) {
+        return Double.longBitsToDouble(payloads[slot(index)]);
+    }
+
+    @Override
+    public String value(int index) {
+        int slot = slot(index);
+        return TokenFactory.value(TYPES[types[slot]], texts[slot], lexer.source(), starts[slot], lengths[slot]);
+    }
+
+    @Override
+    public Token token(int index) {
+        int slot = slot(index);
+        return TokenFactory.view(
+                TYPES[types[slot]], texts[slot], lexer.source(), starts[slot], lengths[slot], lines[slot], columns[slot]);
+    }
+
+    @Override
+    public int clamp(int index) {
+        fill(index);
+
+        if (eofIndex >= 0 && index > eofIndex) {
+            return eofIndex;
+        }
+
+        return index;
+    }
+
+    private int slot(int index) {
+        fill(index);
+
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Token index " + index + " is past the end of the input");
+        }
+
+        if (index <= count - 1 - (mask + 1)) {
+            throw new IllegalStateException("Token index " + index + " already left the lookahead window");
+        }
+
+        return index & mask;
+    }
+
+    private void fill(int index) {
+        while (index >= count && eofIndex < 0) {
+            TokenType type = lexer.nextToken();
+            int slot = count & mask;
+
+            types[slot] = (byte) type.ordinal();
+            starts[slot] = lexer.tokenStart();
+            lengths[slot] = lexer.tokenLength();
+            lines[slot] = lexer.tokenLine();
+            columns[slot] = lexer.tokenColumn();
+            payloads[slot] = lexer.tokenPayload();
+            texts[slot] = lexer.tokenText();
+
+            if (type == TokenType.EOF) {
+                eofIndex = count;
+            }
+
+            count++;
+        }
+    }
+}
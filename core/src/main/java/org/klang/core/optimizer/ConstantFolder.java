@@ -0,0 +1,524 @@
+package org.klang.core.optimizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenType;
+import org.klang.core.parser.ast.*;
+import org.klang.core.semantics.PrimitiveTypeSymbol;
+import org.klang.core.semantics.Type;
+
+/**
+ * Replaces the expressions of a checked program whose value is known at
+ * compile time with the literal of that value, before it is transpiled.
+ * <p>
+ * Binary operators whose operands are both literals are evaluated as the
+ * emitted Java would: {@code integer} as 32-bit {@code int}, wrapping around
+ * on overflow and truncating divisions, {@code double} as {@code double}, and
+ * {@code +} with a {@code String} operand as concatenation. Arithmetic,
+ * comparisons and the logical operators are folded; an operation that would
+ * not give a literal is left as it is, so that it keeps its behavior at run
+ * time: an {@code integer} division or remainder by zero, a {@code double}
+ * result that is infinite or NaN, or an integer literal out of the
+ * {@code int} range. Strings are only folded when their text needs no
+ * escaping, and equality of strings never is, being a comparison of
+ * references in Java.
+ * </p>
+ * <p>
+ * The value of a {@code constant}, once folded to a literal, is propagated to
+ * the variables that read it, converted to the declared type of the constant;
+ * the declaration itself is kept. Variables are matched with their
+ * declaration by the coordinates the {@link org.klang.core.semantics.ScopeResolver}
+ * left on them, so the program must have been checked right before. Like the
+ * resolver and the checker, the folder walks the program with explicit stacks
+ * instead of recursive calls.
+ * </p>
+ * <p>
+ * The tree is rewritten in place, and its literals then no longer follow the
+ * rules of the checker (a folded literal may be a magic number): fold only a
+ * program about to be transpiled.
+ * </p>
+ *
+ * <pre>{@code
+ * new TypeChecker(sourceManager, path).check(program);
+ * new ConstantFolder().fold(program);
+ * String java = new JavaTranspiler(name, sourceManager, path).transpile(program);
+ * }</pre>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class ConstantFolder {
+
+    // Statements folded one after the other in the scope of a level
+    private static final class Frame {
+        List<StatementNode> statements;
+        int next;
+        int level;
+    }
+
+    private final List<Frame> frames = new ArrayList<>();
+    private int depth = 0;
+
+    // Values of the constants of the open scopes, by level and slot (null for
+    // anything else declared there), and how many slots each scope has
+    private LiteralExpressionNode[][] constants = new LiteralExpressionNode[16][];
+    private int[] slots = new int[16];
+
+    // Expressions waiting for their operands to be folded (ready unset) or
+    // to be folded themselves
+    private ExpressionNode[] expressions = new ExpressionNode[16];
+    private boolean[] ready = new boolean[16];
+    private int expressionDepth = 0;
+    // What each folded operand folds to, or null when it is not a literal
+    private final List<LiteralExpressionNode> values = new ArrayList<>();
+
+    private int folded;
+
+    /**
+     * Folds every expression of the program.
+     *
+     * @return How many expressions were replaced by a literal.
+     */
+    public int fold(ProgramNode program) {
+        folded = 0;
+        open(0);
+        enter(program.statements, 0);
+
+        try {
+            while (depth > 0) {
+                Frame frame = frames.get(depth - 1);
+
+                if (frame.next < frame.statements.size()) {
+                    fold(frame.statements.get(frame.next++), frame.level);
+                    continue;
+                }
+
+                frame.statements = null;
+                depth--;
+            }
+        } finally {
+            for (int i = 0; i < depth; i++) {
+                frames.get(i).statements = null;
+            }
+            depth = 0;
+            Arrays.fill(expressions, 0, expressionDepth, null);
+            expressionDepth = 0;
+            values.clear();
+            for (LiteralExpressionNode[] scope : constants) {
+                if (scope != null) {
+                    Arrays.fill(scope, null);
+                }
+            }
+        }
+
+        return folded;
+    }
+
+    // Opens scopes exactly as the ScopeResolver does, for the slots to match
+    private void fold(StatementNode node, int level) {
+        switch (node) {
+            case ConstantDeclarationNode c -> {
+                c.value = fold(c.value);
+                declare(level, c.slot, c.value instanceof LiteralExpressionNode l ? convert(l, c.type) : null);
+            }
+            case VariableDeclarationNode v -> {
+                v.value = fold(v.value);
+                declare(level, v.slot, null);
+            }
+            case AssignmentStatementNode a -> {
+                if (a.name instanceof IndexExpressionNode) {
+                    fold(a.name);
+                }
+                a.value = fold(a.value);
+            }
+            case BlockStatementNode b -> {
+                open(level + 1);
+                enter(b.statements, level + 1);
+            }
+            case ExpressionStatementNode e -> e.expression = fold(e.expression);
+            case FunctionDeclarationNode f -> {
+                open(level + 1);
+                for (ParameterNode p : f.parameters) {
+                    declare(level + 1, p.slot, null);
+                }
+                open(level + 2);
+                enter(f.body.statements, level + 2);
+            }
+            case ReturnStatementNode r -> r.value = fold(r.value);
+            case DecisionStatementNode d -> {
+                d.condition = fold(d.condition);
+                for (OtherwiseBranchNode o : d.otherwiseBranches) {
+                    o.condition = fold(o.condition);
+                }
+
+                List<StatementNode> blocks = new ArrayList<>(d.otherwiseBranches.size() + 2);
+                blocks.add(d.ifBlock);
+                for (OtherwiseBranchNode o : d.otherwiseBranches) {
+                    blocks.add(o.body);
+                }
+                if (d.afterallBlock != null) {
+                    blocks.add(d.afterallBlock);
+                }
+                enter(blocks, level + 1);
+            }
+            case WhileStatementNode w -> {
+                w.condition = fold(w.condition);
+                open(level + 2);
+                enter(w.body.statements, level + 2);
+            }
+            case ModuleDeclarationNode m -> {
+            }
+            case ImportDeclarationNode i -> {
+            }
+        }
+    }
+
+    /**
+     * @return The literal the expression folds to, or the expression itself,
+     *         its operands folded.
+     */
+    private ExpressionNode fold(ExpressionNode root) {
+        if (root == null) {
+            return null;
+        }
+
+        int base = expressionDepth;
+        push(root);
+
+        while (expressionDepth > base) {
+            int top = expressionDepth - 1;
+            ExpressionNode node = expressions[top];
+
+            if (!ready[top]) {
+                // Operands are pushed last first, so their values come in order
+                ready[top] = true;
+                switch (node) {
+                    case BinaryExpressionNode b -> {
+                        push(b.right);
+                        push(b.left);
+                    }
+                    case IndexExpressionNode i -> {
+                        push(i.index);
+                        push(i.target);
+                    }
+                    case CallExpressionNode c -> {
+                        for (int k = c.arguments.size() - 1; k >= 0; k--) {
+                            push(c.arguments.get(k));
+                        }
+                    }
+                    case NewArrayExpressionNode n -> {
+                        if (n.initializer != null) {
+                            for (int k = n.initializer.size() - 1; k >= 0; k--) {
+                                push(n.initializer.get(k));
+                            }
+                        }
+                        push(n.size);
+                    }
+                    case LiteralExpressionNode l -> {
+                    }
+                    case VariableExpressionNode v -> {
+                    }
+                }
+                continue;
+            }
+
+            expressions[--expressionDepth] = null;
+            values.add(switch (node) {
+                case LiteralExpressionNode l -> isFoldable(l) ? l : null;
+                case VariableExpressionNode v -> propagate(v);
+                case BinaryExpressionNode b -> {
+                    LiteralExpressionNode right = pop();
+                    LiteralExpressionNode left = pop();
+
+                    LiteralExpressionNode value = left == null || right == null ? null : evaluate(b, left, right);
+                    if (value == null) {
+                        b.left = replace(b.left, left);
+                        b.right = replace(b.right, right);
+                    }
+                    yield value;
+                }
+                case IndexExpressionNode i -> {
+                    i.index = replace(i.index, pop());
+                    pop();
+                    yield null;
+                }
+                case CallExpressionNode c -> {
+                    for (int k = c.arguments.size() - 1; k >= 0; k--) {
+                        c.arguments.set(k, replace(c.arguments.get(k), pop()));
+                    }
+                    yield null;
+                }
+                case NewArrayExpressionNode n -> {
+                    if (n.initializer != null) {
+                        for (int k = n.initializer.size() - 1; k >= 0; k--) {
+                            n.initializer.set(k, replace(n.initializer.get(k), pop()));
+                        }
+                    }
+                    n.size = replace(n.size, pop());
+                    yield null;
+                }
+            });
+        }
+
+        return replace(root, pop());
+    }
+
+    private void push(ExpressionNode node) {
+        if (node == null) {
+            return;
+        }
+
+        if (expressionDepth == expressions.length) {
+            expressions = Arrays.copyOf(expressions, expressionDepth * 2);
+            ready = Arrays.copyOf(ready, expressionDepth * 2);
+        }
+        expressions[expressionDepth] = node;
+        ready[expressionDepth++] = false;
+    }
+
+    private LiteralExpressionNode pop() {
+        return values.remove(values.size() - 1);
+    }
+
+    private ExpressionNode replace(ExpressionNode node, LiteralExpressionNode value) {
+        if (value == null || value == node) {
+            return node;
+        }
+        folded++;
+        return value;
+    }
+
+    // The value of the constant a variable reads, at the position of the variable
+    private LiteralExpressionNode propagate(VariableExpressionNode v) {
+        if (v.depth < 0 || v.slot < 0 || v.depth >= constants.length || v.slot >= slots[v.depth]) {
+            return null;
+        }
+
+        LiteralExpressionNode value = constants[v.depth][v.slot];
+        return value == null ? null : copy(value, v.line, v.column);
+    }
+
+    /**
+     * @return The value of the operation, or {@code null} if it is not folded.
+     */
+    private LiteralExpressionNode evaluate(BinaryExpressionNode b, LiteralExpressionNode left,
+            LiteralExpressionNode right) {
+        TokenType operator = b.operator.getType();
+        TokenType l = left.value.getType();
+        TokenType r = right.value.getType();
+
+        if (l == TokenType.STRING_LITERAL || r == TokenType.STRING_LITERAL) {
+            if (operator != TokenType.PLUS) {
+                return null;
+            }
+            return string(text(left) + text(right), b.line, b.column);
+        }
+
+        if (l == TokenType.INTEGER_LITERAL && r == TokenType.INTEGER_LITERAL) {
+            int x = (int) left.integerValue;
+            int y = (int) right.integerValue;
+
+            return switch (operator) {
+                case PLUS -> integer(x + y, b.line, b.column);
+                case MINUS -> integer(x - y, b.line, b.column);
+                case MULTIPLY -> integer(x * y, b.line, b.column);
+                case DIVISION -> y == 0 ? null : integer(x / y, b.line, b.column);
+                case REMAINDER -> y == 0 ? null : integer(x % y, b.line, b.column);
+                case LT -> bool(x < y, b.line, b.column);
+                case GT -> bool(x > y, b.line, b.column);
+                case LTE -> bool(x <= y, b.line, b.column);
+                case GTE -> bool(x >= y, b.line, b.column);
+                case DOUBLEEQUAL -> bool(x == y, b.line, b.column);
+                case NOTEQUAL -> bool(x != y, b.line, b.column);
+                default -> null;
+            };
+        }
+
+        if (isNumber(l) && isNumber(r)) {
+            double x = number(left);
+            double y = number(right);
+
+            return switch (operator) {
+                case PLUS -> decimal(x + y, b.line, b.column);
+                case MINUS -> decimal(x - y, b.line, b.column);
+                case MULTIPLY -> decimal(x * y, b.line, b.column);
+                case DIVISION -> decimal(x / y, b.line, b.column);
+                case REMAINDER -> decimal(x % y, b.line, b.column);
+                case LT -> bool(x < y, b.line, b.column);
+                case GT -> bool(x > y, b.line, b.column);
+                case LTE -> bool(x <= y, b.line, b.column);
+                case GTE -> bool(x >= y, b.line, b.column);
+                case DOUBLEEQUAL -> bool(x == y, b.line, b.column);
+                case NOTEQUAL -> bool(x != y, b.line, b.column);
+                default -> null;
+            };
+        }
+
+        if (isBoolean(l) && isBoolean(r)) {
+            boolean x = l == TokenType.TRUE;
+            boolean y = r == TokenType.TRUE;
+
+            return switch (operator) {
+                case AND -> bool(x && y, b.line, b.column);
+                case OR -> bool(x || y, b.line, b.column);
+                case DOUBLEEQUAL -> bool(x == y, b.line, b.column);
+                case NOTEQUAL -> bool(x != y, b.line, b.column);
+                default -> null;
+            };
+        }
+
+        return null;
+    }
+
+    // Literals whose value the folder knows, and can write back as a literal
+    private static boolean isFoldable(LiteralExpressionNode l) {
+        return switch (l.value.getType()) {
+            case INTEGER_LITERAL -> l.integerValue == (int) l.integerValue;
+            case DOUBLE_LITERAL -> Double.isFinite(l.doubleValue);
+            case TRUE, FALSE -> true;
+            case STRING_LITERAL -> isPlain(l.value.getValue());
+            default -> false;
+        };
+    }
+
+    // A quoted string whose text has no escapes nor inner quotes
+    private static boolean isPlain(String literal) {
+        if (literal.length() < 2 || literal.indexOf('\\') >= 0) {
+            return false;
+        }
+        return literal.indexOf('"', 1) == literal.length() - 1;
+    }
+
+    private static boolean isNumber(TokenType type) {
+        return type == TokenType.INTEGER_LITERAL || type == TokenType.DOUBLE_LITERAL;
+    }
+
+    private static boolean isBoolean(TokenType type) {
+        return type == TokenType.TRUE || type == TokenType.FALSE;
+    }
+
+    private static double number(LiteralExpressionNode l) {
+        return l.value.getType() == TokenType.INTEGER_LITERAL ? (int) l.integerValue : l.doubleValue;
+    }
+
+    // The text Java appends for this literal in a concatenation
+    private static String text(LiteralExpressionNode l) {
+        return switch (l.value.getType()) {
+            case STRING_LITERAL -> {
+                String literal = l.value.getValue();
+                yield literal.substring(1, literal.length() - 1);
+            }
+            case INTEGER_LITERAL -> Integer.toString((int) l.integerValue);
+            case DOUBLE_LITERAL -> Double.toString(l.doubleValue);
+            case TRUE -> "true";
+            case FALSE -> "false";
+            default -> throw new IllegalStateException("Not a foldable literal: " + l.value);
+        };
+    }
+
+    // A folded constant as the type it is declared with, or null if it differs
+    private static LiteralExpressionNode convert(LiteralExpressionNode value, TypeReferenceNode type) {
+        if (!isFoldable(value) || !(type.resolvedType instanceof PrimitiveTypeSymbol declared)) {
+            return null;
+        }
+
+        TokenType kind = value.value.getType();
+        return switch (declared.type) {
+            case INTEGER -> kind == TokenType.INTEGER_LITERAL ? value : null;
+            case DOUBLE -> kind == TokenType.DOUBLE_LITERAL ? value
+                    : kind == TokenType.INTEGER_LITERAL ? decimal(number(value), value.line, value.column) : null;
+            case BOOLEAN -> isBoolean(kind) ? value : null;
+            case STRING -> kind == TokenType.STRING_LITERAL ? value : null;
+            default -> null;
+        };
+    }
+
+    private static LiteralExpressionNode copy(LiteralExpressionNode value, int line, int column) {
+        return switch (value.value.getType()) {
+            case INTEGER_LITERAL -> integer((int) value.integerValue, line, column);
+            case DOUBLE_LITERAL -> decimal(value.doubleValue, line, column);
+            case TRUE -> bool(true, line, column);
+            case FALSE -> bool(false, line, column);
+            default -> string(text(value), line, column);
+        };
+    }
+
+    private static LiteralExpressionNode integer(int value, int line, int column) {
+        LiteralExpressionNode literal = new LiteralExpressionNode(
+                new Token(TokenType.INTEGER_LITERAL, Integer.toString(value), line, column), value, line, column);
+        literal.resolvedType = PrimitiveTypeSymbol.of(Type.INTEGER, true);
+        return literal;
+    }
+
+    private static LiteralExpressionNode decimal(double value, int line, int column) {
+        if (!Double.isFinite(value)) {
+            return null;
+        }
+
+        LiteralExpressionNode literal = new LiteralExpressionNode(
+                new Token(TokenType.DOUBLE_LITERAL, Double.toString(value), line, column), value, line, column);
+        literal.resolvedType = PrimitiveTypeSymbol.of(Type.DOUBLE, true);
+        return literal;
+    }
+
+    private static LiteralExpressionNode bool(boolean value, int line, int column) {
+        TokenType type = value ? TokenType.TRUE : TokenType.FALSE;
+        LiteralExpressionNode literal = new LiteralExpressionNode(
+                new Token(type, Boolean.toString(value), line, column), line, column);
+        literal.resolvedType = PrimitiveTypeSymbol.of(Type.BOOLEAN, true);
+        return literal;
+    }
+
+    private static LiteralExpressionNode string(String text, int line, int column) {
+        LiteralExpressionNode literal = new LiteralExpressionNode(
+                new Token(TokenType.STRING_LITERAL, '"' + text + '"', line, column), line, column);
+        literal.resolvedType = PrimitiveTypeSymbol.of(Type.STRING, true);
+        return literal;
+    }
+
+    private void enter(List<StatementNode> statements, int level) {
+        if (depth == frames.size()) {
+            frames.add(new Frame());
+        }
+
+        Frame frame = frames.get(depth++);
+        frame.statements = statements;
+        frame.next = 0;
+        frame.level = level;
+    }
+
+    private void open(int level) {
+        if (level >= constants.length) {
+            int capacity = Math.max(level + 1, constants.length * 2);
+            constants = Arrays.copyOf(constants, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        slots[level] = 0;
+    }
+
+    // A slot declared twice in one scope (kept by the checker as the first
+    // declaration) is never propagated
+    private void declare(int level, int slot, LiteralExpressionNode value) {
+        if (slot < 0) {
+            return;
+        }
+
+        LiteralExpressionNode[] scope = constants[level];
+        if (scope == null || slot >= scope.length) {
+            scope = constants[level] = Arrays.copyOf(scope == null ? new LiteralExpressionNode[4] : scope,
+                    Math.max(slot + 1, scope == null ? 4 : scope.length * 2));
+        }
+
+        if (slot < slots[level]) {
+            scope[slot] = null;
+            return;
+        }
+
+        Arrays.fill(scope, slots[level], slot, null);
+        scope[slot] = value;
+        slots[level] = slot + 1;
+    }
+}
@@ -2,15 +2,23 @@ package org.klang.core.parser;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import org.klang.core.lexer.Lexer;
 import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenSource;
+import org.klang.core.lexer.TokenStream;
+import org.klang.core.lexer.TokenWindow;
 import org.klang.core.lexer.TokenType;
 import org.klang.core.parser.ast.AccessModifier;
 import org.klang.core.parser.ast.AssignmentStatementNode;
 import org.klang.core.parser.ast.BinaryExpressionNode;
 import org.klang.core.parser.ast.BlockStatementNode;
 import org.klang.core.parser.ast.CallExpressionNode;
+import org.klang.core.parser.ast.ConstantDeclarationNode;
 import org.klang.core.parser.ast.DecisionStatementNode;
 import org.klang.core.parser.ast.ExpressionNode;
 import org.klang.core.parser.ast.ExpressionStatementNode;
@@ -33,6 +41,8 @@ import org.klang.core.parser.ast.WhileStatementNode;
 import org.klang.core.Heddle;
 import org.klang.core.diagnostics.DiagnosticCode;
 import org.klang.core.errors.BackendException;
+import org.klang.core.errors.DiagnosticSink;
+import org.klang.core.errors.KException;
 import org.klang.core.errors.ParserException;
 import org.klang.core.errors.SourceLocation;
 import org.klang.core.errors.SourceManager;
@@ -47,40 +57,52 @@ import org.klang.core.errors.SourceManager;
  * @since 0.2
  */
 public class Parser {
-    private final List<Token> tokens;
+    /** Tokens before the current one that the parser may inspect ({@code peek(-1)}). */
+    public static final int MAX_LOOKBEHIND = 1;
+    /** Tokens after the current one that the parser may inspect ({@code peek(3)}). */
+    public static final int MAX_LOOKAHEAD = 3;
+    /**
+     * Number of tokens from which {@link #parseProgram(ForkJoinPool)} parses
+     * top-level functions in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final TokenSource tokens;
     private final Path filePath;
     private final SourceManager sourceManager;
     private final String fileName;
+    private DiagnosticSink diagnostics;
+    private int recovered = 0;
     private int position = 0;
     private int functionDepth = 0;
     private int controlDepth = 0;
 
-    // Parser
-
-    /**
-     * Parses postfix expressions, specifically array indexing operations.
-     * * @return an expression node representing the postfix expression
-     */
-    private ExpressionNode parsePostfixExpression() {
-        ExpressionNode expr = parsePrimary();
-        while (check(TokenType.LBRACKET)) {
-            Token braket = consume();
-            ExpressionNode index = parseExpression();
-
-            expect(TokenType.RBRACKET,
-                    DiagnosticCode.E105,
-                    "Missing closing bracket ']' in array index",
-                    "Array index expressions must be enclosed in '[' and ']'",
-                    "Add ']'",
-                    "]",
-                    "integer[] arr = integer[sizeVariable];",
-                    null);
-
-            expr = new IndexExpressionNode(expr, index, braket.getLine(), braket.getColumn());
+    // Unwinds a recovering parse to the top level; no stack trace needed
+    private static final class Abandon extends RuntimeException {
+        Abandon() {
+            super(null, null, false, false);
         }
-        return expr;
     }
 
+    private static final Abandon ABANDON = new Abandon();
+
+    // An operator, parenthesis, index or call waiting for an operand in
+    // parseExpression: kind is the operator, LPAREN, LBRACKET or IDENTIFIER
+    private static final class Pending {
+        TokenType kind;
+        int resume; // minimum power of the expression around it
+        ExpressionNode left;
+        Token token; // operator or callee
+        int line;
+        int column;
+        List<ExpressionNode> arguments;
+    }
+
+    private final List<Pending> pending = new ArrayList<>();
+    private int pendingDepth = 0;
+
+    // Parser
+
     /**
      * Parses a type reference, including support for array types.
      * * @return a type reference node containing the base type and array depth
@@ -99,98 +121,249 @@ public class Parser {
                     null,
                     base.getValue().length());
         }
-        consume();
+        advance();
         int depth = 0;
-        while (check(TokenType.LBRACKET) && peek(1).getType() == TokenType.RBRACKET) {
-            consume(); // '['
-            consume(); // ']'
+        while (check(TokenType.LBRACKET) && peekType(1) == TokenType.RBRACKET) {
+            advance(); // '['
+            advance(); // ']'
             depth++;
         }
         return new TypeReferenceNode(base, depth);
     }
 
     /**
-     * Parses a while loop statement.
-     * * @return a while statement node
+     * A while, if or block statement whose blocks {@link #parseNested} is
+     * parsing, linked to the statement whose block contains it.
      */
-    private WhileStatementNode parseWhileStatement() {
-        Token keyword = expect(TokenType.WHILE,
-                DiagnosticCode.E000,
-                "Expected 'while' keyword",
-                "Loop structure must start with 'while'",
-                "Add 'while'",
-                "while",
-                "while (condition) { ... }",
-                null);
+    private static final class Nested {
+        final TokenType kind;
+        final Nested parent;
+        // Where the statement starts in the block of its parent, and the depths
+        // before it: an error while closing it is recovered from there
+        final int start;
+        final int functions;
+        final int controls;
+        final int line;
+        final int column;
+
+        // The block being parsed
+        List<StatementNode> statements;
+        int blockLine;
+        int blockColumn;
+
+        ExpressionNode condition;
+        BlockStatementNode ifBlock;
+        List<OtherwiseBranchNode> otherwiseBranches;
+        ExpressionNode otherwiseCondition;
+        String reason;
+        boolean afterall;
+
+        Nested(TokenType kind, Nested parent, int start, int functions, int controls, int line, int column) {
+            this.kind = kind;
+            this.parent = parent;
+            this.start = start;
+            this.functions = functions;
+            this.controls = controls;
+            this.line = line;
+            this.column = column;
+        }
+    }
 
-        controlDepth++;
+    /**
+     * Parses a while loop ({@code kind} {@link TokenType#WHILE}), a decision
+     * (if/otherwise/afterall, {@link TokenType#IF}) or a block
+     * ({@link TokenType#LBRACE}), with every while, if and block nested in it.
+     * <p>
+     * Nesting is kept on an explicit stack of {@link Nested} statements rather
+     * than on the call stack, so blocks may be nested as deeply as memory
+     * allows. Statements, diagnostics and recovery are the same as if each
+     * nested statement were parsed by a call of its own.
+     * </p>
+     * * @return the statement node
+     */
+    private StatementNode parseNested(TokenType kind) {
+        Nested top = openNested(kind, null, position, functionDepth, controlDepth);
+
+        while (true) {
+            if (!check(TokenType.RBRACE) && !isAtEnd()) {
+                int start = position;
+                int functions = functionDepth;
+                int controls = controlDepth;
+                TokenType type = currentType();
+
+                try {
+                    if (type == TokenType.WHILE || type == TokenType.IF || type == TokenType.LBRACE) {
+                        top = openNested(type, top, start, functions, controls);
+                    } else {
+                        top.statements.add(parseStatement());
+                    }
+                } catch (ParserException | BackendException e) {
+                    if (diagnostics == null) {
+                        throw e;
+                    }
+                    recover(e, start, functions, controls, type);
+                }
+                continue;
+            }
 
-        expect(TokenType.LPAREN,
-                DiagnosticCode.E000,
-                "Expected '(' after 'while'",
-                "Loop condition must be enclosed in parentheses",
-                "Add '('",
-                "(",
-                "while (i < 10) { ... }",
-                null);
+            Nested closed = top;
+            top = closed.parent;
+
+            try {
+                StatementNode statement = closeBlock(closed);
+
+                if (statement == null) {
+                    top = closed; // it went on with its next block
+                } else if (top == null) {
+                    return statement;
+                } else {
+                    top.statements.add(statement);
+                }
+            } catch (ParserException | BackendException e) {
+                // Belongs to the statement in the parent's block
+                if (diagnostics == null || top == null) {
+                    throw e;
+                }
+                recover(e, closed.start, closed.functions, closed.controls, closed.kind);
+            }
+        }
+    }
 
-        ExpressionNode condition = parseExpression();
+    /**
+     * Parses the head of a while, if or block statement, up to and including
+     * the brace opening its (first) block.
+     */
+    private Nested openNested(TokenType kind, Nested parent, int start, int functions, int controls) {
+        Nested nested = new Nested(kind, parent, start, functions, controls, tokens.line(position),
+                tokens.column(position));
 
-        expect(TokenType.RPAREN,
+        if (kind == TokenType.WHILE) {
+            require(TokenType.WHILE,
+                    DiagnosticCode.E000,
+                    "Expected 'while' keyword",
+                    "Loop structure must start with 'while'",
+                    "Add 'while'",
+                    "while",
+                    "while (condition) { ... }",
+                    null);
+
+            controlDepth++;
+
+            require(TokenType.LPAREN,
+                    DiagnosticCode.E000,
+                    "Expected '(' after 'while'",
+                    "Loop condition must be enclosed in parentheses",
+                    "Add '('",
+                    "(",
+                    "while (i < 10) { ... }",
+                    null);
+
+            nested.condition = parseExpression();
+
+            require(TokenType.RPAREN,
+                    DiagnosticCode.E000,
+                    "Expected ')' after condition",
+                    "Close the condition parentheses",
+                    "Add ')'",
+                    ")",
+                    "while (i < 10) { ... }",
+                    null);
+        } else if (kind == TokenType.IF) {
+            require(TokenType.IF,
+                    DiagnosticCode.E000,
+                    "Expected 'if' keyword",
+                    "Decision structure must start with 'if'",
+                    "Add 'if'",
+                    "if",
+                    "if (condition) { ... }",
+                    null);
+
+            controlDepth++;
+
+            require(TokenType.LPAREN,
+                    DiagnosticCode.E000,
+                    "Expected '(' after 'if'",
+                    "Condition must be enclosed in parentheses",
+                    "Add '('",
+                    "(",
+                    "if (isValid) { ... }",
+                    null);
+
+            nested.condition = parseExpression();
+
+            require(TokenType.RPAREN,
+                    DiagnosticCode.E000,
+                    "Expected ')' after condition",
+                    "Close the condition parentheses",
+                    "Add ')'",
+                    ")",
+                    "if (isValid) { ... }",
+                    null);
+
+            nested.otherwiseBranches = new ArrayList<>(5);
+        }
+
+        openBlock(nested);
+        return nested;
+    }
+
+    private void openBlock(Nested nested) {
+        nested.blockLine = tokens.line(position);
+        nested.blockColumn = tokens.column(position);
+        require(TokenType.LBRACE,
                 DiagnosticCode.E000,
-                "Expected ')' after condition",
-                "Close the condition parentheses",
-                "Add ')'",
-                ")",
-                "while (i < 10) { ... }",
+                "Expected '{' to start block",
+                "Block must start with '{'",
+                "Add '{'",
+                "{",
+                "{ ... }",
                 null);
 
-        BlockStatementNode body = parseBlockStatement();
-        controlDepth--;
-        return new WhileStatementNode(condition, body, keyword.getLine(), keyword.getColumn());
+        nested.statements = new ArrayList<>();
     }
 
     /**
-     * Parses a decision statement (if/otherwise/afterall construct).
-     * * @return a decision statement node
+     * Closes the block being parsed and parses what follows it in the
+     * statement: for a decision, its next {@code otherwise} branch or its
+     * {@code afterall}.
+     *
+     * @return The complete statement, or {@code null} if another of its blocks
+     *         was opened.
      */
-    private DecisionStatementNode parseDecisionStatement() {
-        Token ifToken = expect(TokenType.IF,
+    private StatementNode closeBlock(Nested nested) {
+        require(TokenType.RBRACE,
                 DiagnosticCode.E000,
-                "Expected 'if' keyword",
-                "Decision structure must start with 'if'",
-                "Add 'if'",
-                "if",
-                "if (condition) { ... }",
+                "Expected '}' to close block",
+                "Block must end with '}'",
+                "Add '}'",
+                "}",
+                "{ ... }",
                 null);
 
-        controlDepth++;
+        BlockStatementNode block = new BlockStatementNode(nested.statements, nested.blockLine, nested.blockColumn);
+        nested.statements = null;
 
-        expect(TokenType.LPAREN,
-                DiagnosticCode.E000,
-                "Expected '(' after 'if'",
-                "Condition must be enclosed in parentheses",
-                "Add '('",
-                "(",
-                "if (isValid) { ... }",
-                null);
+        if (nested.kind == TokenType.LBRACE) {
+            return block;
+        }
 
-        ExpressionNode condition = parseExpression();
+        if (nested.kind == TokenType.WHILE) {
+            controlDepth--;
+            return new WhileStatementNode(nested.condition, block, nested.line, nested.column);
+        }
 
-        expect(TokenType.RPAREN,
-                DiagnosticCode.E000,
-                "Expected ')' after condition",
-                "Close the condition parentheses",
-                "Add ')'",
-                ")",
-                "if (isValid) { ... }",
-                null);
+        if (nested.afterall) {
+            return closeDecision(nested, block);
+        }
 
-        BlockStatementNode ifBlock = parseBlockStatement();
-        List<OtherwiseBranchNode> otherwiseBranches = new ArrayList<>(5);
+        if (nested.ifBlock == null) {
+            nested.ifBlock = block;
+        } else {
+            nested.otherwiseBranches.add(new OtherwiseBranchNode(nested.otherwiseCondition, nested.reason, block));
+        }
 
-        while (match(TokenType.OTHERWISE)) {
-            expect(TokenType.LPAREN,
+        if (match(TokenType.OTHERWISE)) {
+            require(TokenType.LPAREN,
                     DiagnosticCode.E000,
                     "Expected '(' after 'otherwise'",
                     "Otherwise condition must be enclosed in parentheses",
@@ -199,9 +372,9 @@ public class Parser {
                     "otherwise (x > 0) { ... }",
                     null);
 
-            ExpressionNode otherwiseCondition = parseExpression();
+            nested.otherwiseCondition = parseExpression();
 
-            expect(TokenType.RPAREN,
+            require(TokenType.RPAREN,
                     DiagnosticCode.E000,
                     "Expected ')' after condition",
                     "Close the condition parentheses",
@@ -210,7 +383,7 @@ public class Parser {
                     "otherwise (x > 0) { ... }",
                     null);
 
-            String reason = null;
+            nested.reason = null;
 
             if (match(TokenType.BECAUSE)) {
                 Token str = expect(TokenType.STRING_LITERAL,
@@ -221,15 +394,14 @@ public class Parser {
                         "\"Reason\"",
                         "because \"Verification failed\" { ... }",
                         null);
-                reason = str.getValue();
+                nested.reason = str.getValue();
             }
 
-            BlockStatementNode body = parseBlockStatement();
-
-            otherwiseBranches.add(new OtherwiseBranchNode(otherwiseCondition, reason, body));
+            openBlock(nested);
+            return null;
         }
 
-        expect(TokenType.AFTERALL,
+        require(TokenType.AFTERALL,
                 DiagnosticCode.E000,
                 "Expected 'afterall' to close decision block",
                 "All decision structures in Klang must end with 'afterall'",
@@ -238,24 +410,28 @@ public class Parser {
                 "if (...) { ... } afterall;",
                 null);
 
-        BlockStatementNode afterallBlock = null;
-
         if (check(TokenType.LBRACE)) {
-            afterallBlock = parseBlockStatement();
-        } else {
-            expect(TokenType.SEMICOLON,
-                    DiagnosticCode.E102,
-                    "Expected ';' or block after 'afterall'",
-                    "Declarative 'afterall' must be terminated with a semicolon",
-                    "Add ';'",
-                    ";",
-                    "afterall;",
-                    null);
-            afterallBlock = new BlockStatementNode(List.of(), ifToken.getLine(), ifToken.getColumn());
+            nested.afterall = true;
+            openBlock(nested);
+            return null;
         }
+
+        require(TokenType.SEMICOLON,
+                DiagnosticCode.E102,
+                "Expected ';' or block after 'afterall'",
+                "Declarative 'afterall' must be terminated with a semicolon",
+                "Add ';'",
+                ";",
+                "afterall;",
+                null);
+
+        return closeDecision(nested, new BlockStatementNode(List.of(), nested.line, nested.column));
+    }
+
+    private DecisionStatementNode closeDecision(Nested nested, BlockStatementNode afterallBlock) {
         controlDepth--;
-        return new DecisionStatementNode(condition, ifBlock, otherwiseBranches, afterallBlock, ifToken.getLine(),
-                ifToken.getColumn());
+        return new DecisionStatementNode(nested.condition, nested.ifBlock, nested.otherwiseBranches, afterallBlock,
+                nested.line, nested.column);
     }
 
     /**
@@ -263,7 +439,9 @@ public class Parser {
      * * @return a module declaration node
      */
     private StatementNode parseModuleDeclaration() {
-        Token keyword = expect(TokenType.MODULE,
+        int line = tokens.line(position);
+        int column = tokens.column(position);
+        require(TokenType.MODULE,
                 DiagnosticCode.E000,
                 "Expected 'module' keyword",
                 "File must define a module",
@@ -281,7 +459,7 @@ public class Parser {
                 "module MySystem;",
                 null);
 
-        expect(TokenType.SEMICOLON,
+        require(TokenType.SEMICOLON,
                 DiagnosticCode.E102,
                 "Expected ';' after module declaration",
                 "Statements must be terminated",
@@ -290,7 +468,7 @@ public class Parser {
                 "module MySystem;",
                 null);
 
-        return new ModuleDeclarationNode(name, keyword.getLine(), keyword.getColumn());
+        return new ModuleDeclarationNode(name, line, column);
     }
 
     /**
@@ -298,7 +476,9 @@ public class Parser {
      * * @return an import declaration node
      */
     private StatementNode parseImportDeclaration() {
-        Token keyword = expect(TokenType.IMPORT,
+        int line = tokens.line(position);
+        int column = tokens.column(position);
+        require(TokenType.IMPORT,
                 DiagnosticCode.E000,
                 "Expected 'import' keyword",
                 "Import statement must start with 'import'",
@@ -328,7 +508,7 @@ public class Parser {
                     null));
         }
 
-        expect(TokenType.SEMICOLON,
+        require(TokenType.SEMICOLON,
                 DiagnosticCode.E102,
                 "Expected ';' after import",
                 "Import statement must be terminated",
@@ -337,7 +517,7 @@ public class Parser {
                 "import System.IO;",
                 null);
 
-        return new ImportDeclarationNode(path, keyword.getLine(), keyword.getColumn());
+        return new ImportDeclarationNode(path, line, column);
     }
 
     /**
@@ -368,7 +548,7 @@ public class Parser {
                 "integer myVar = 10;",
                 null);
 
-        expect(TokenType.ASSIGNMENT,
+        require(TokenType.ASSIGNMENT,
                 DiagnosticCode.E000,
                 "Expected '=' in variable declaration",
                 "Variables must be initialized explicitly",
@@ -379,7 +559,7 @@ public class Parser {
 
         ExpressionNode initializer = parseExpression();
 
-        expect(TokenType.SEMICOLON,
+        require(TokenType.SEMICOLON,
                 DiagnosticCode.E102,
                 "Expected ';' after variable declaration",
                 "Declaration must be terminated",
@@ -393,87 +573,210 @@ public class Parser {
     }
 
     /**
-     * Parses any expression. Delegates to the lowest precedence operator.
-     * * @return an expression node
+     * Parses a constant declaration: {@code constant}, then a variable
+     * declaration.
+     * * @return a constant declaration node
      */
-    public ExpressionNode parseExpression() {
-        return parseComparision();
+    public ConstantDeclarationNode parseConstantDecl() {
+        Token constant = consume();
+        VariableDeclarationNode declaration = parseValDecl();
+
+        return new ConstantDeclarationNode(declaration.name, declaration.type, declaration.value,
+                constant.getLine(), constant.getColumn());
     }
 
     /**
-     * Parses comparison expressions.
+     * Parses any expression.
      * * @return an expression node
      */
-    public ExpressionNode parseComparision() {
-        ExpressionNode left = parseTerm();
-        while (isComparisionOperator(current().getType())) {
-            Token operator = consume();
-            ExpressionNode right = parseTerm();
-
-            left = new BinaryExpressionNode(left, operator, right, operator.getLine(), operator.getColumn());
-        }
-        return left;
+    public ExpressionNode parseExpression() {
+        return parseExpression(Precedence.LOWEST);
     }
 
     /**
-     * Parses term expressions (addition and subtraction).
+     * Parses an expression whose operators bind tighter than
+     * {@code minPower} (Pratt parsing, see {@link Precedence}).
+     * <p>
+     * Binary operators of the same level associate to the left, and array
+     * indexing applies to the operand right before it. An operand without
+     * operators costs a single call to {@link #parseOperand()}.
+     * </p>
+     * <p>
+     * The operators, parentheses, indexes and calls still waiting for an
+     * operand are kept on an explicit stack of {@link Pending} entries, not on
+     * the call stack, so expressions may be nested as deeply as memory allows.
+     * </p>
      * * @return an expression node
      */
-    public ExpressionNode parseTerm() {
-        ExpressionNode left = parseFactor();
-        while (isTermOperador(current().getType())) {
-            Token operator = consume();
-            ExpressionNode right = parseFactor();
+    private ExpressionNode parseExpression(int minPower) {
+        int base = pendingDepth;
+        int min = minPower;
+
+        try {
+            operand:
+            while (true) {
+                ExpressionNode left;
+                TokenType kind = currentType();
+
+                if (kind == TokenType.LPAREN) {
+                    advance();
+                    push(TokenType.LPAREN, min, null, null);
+                    min = Precedence.LOWEST;
+                    continue;
+                }
+
+                if (kind == TokenType.IDENTIFIER && peekType(1) == TokenType.LPAREN) {
+                    Token callee = consume();
+                    requireCallOpen();
+
+                    if (!check(TokenType.RPAREN)) {
+                        push(TokenType.IDENTIFIER, min, null, callee).arguments = new ArrayList<>();
+                        min = Precedence.LOWEST;
+                        continue;
+                    }
 
-            left = new BinaryExpressionNode(left, operator, right, operator.getLine(), operator.getColumn());
+                    requireCallClose();
+                    left = new CallExpressionNode(callee, new ArrayList<>(), callee.getLine(), callee.getColumn());
+                } else {
+                    left = parseOperand();
+                }
+
+                while (true) {
+                    int power = Precedence.infix(currentType());
+
+                    if (power > min) {
+                        if (currentType() == TokenType.LBRACKET) {
+                            Pending index = push(TokenType.LBRACKET, min, left, null);
+                            index.line = tokens.line(position);
+                            index.column = tokens.column(position);
+                            advance();
+                            min = Precedence.LOWEST;
+                        } else {
+                            push(currentType(), min, left, consume());
+                            min = power;
+                        }
+                        continue operand;
+                    }
+
+                    // `left` is complete: hand it to what waits for it
+                    if (pendingDepth == base) {
+                        return left;
+                    }
+
+                    Pending pending = this.pending.get(--pendingDepth);
+                    min = pending.resume;
+
+                    switch (pending.kind) {
+                        case LPAREN -> require(TokenType.RPAREN,
+                                DiagnosticCode.E000,
+                                "Expected ')' after expression",
+                                "Parentheses must be balanced",
+                                "Add ')'",
+                                ")",
+                                "(1 + 2)",
+                                null);
+                        case LBRACKET -> {
+                            require(TokenType.RBRACKET,
+                                    DiagnosticCode.E105,
+                                    "Missing closing bracket ']' in array index",
+                                    "Array index expressions must be enclosed in '[' and ']'",
+                                    "Add ']'",
+                                    "]",
+                                    "integer[] arr = integer[sizeVariable];",
+                                    null);
+
+                            left = new IndexExpressionNode(pending.left, left, pending.line, pending.column);
+                        }
+                        case IDENTIFIER -> {
+                            pending.arguments.add(left);
+
+                            if (match(TokenType.COMMA)) {
+                                pendingDepth++;
+                                min = Precedence.LOWEST;
+                                continue operand;
+                            }
+
+                            requireCallClose();
+                            left = new CallExpressionNode(pending.token, pending.arguments, pending.token.getLine(),
+                                    pending.token.getColumn());
+                        }
+                        default -> left = new BinaryExpressionNode(pending.left, pending.token, left,
+                                pending.token.getLine(), pending.token.getColumn());
+                    }
+
+                    pending.left = null;
+                    pending.arguments = null;
+                }
+            }
+        } finally {
+            pendingDepth = base;
         }
-        return left;
+    }
+
+    private Pending push(TokenType kind, int resume, ExpressionNode left, Token token) {
+        if (pendingDepth == pending.size()) {
+            pending.add(new Pending());
+        }
+
+        Pending entry = pending.get(pendingDepth++);
+        entry.kind = kind;
+        entry.resume = resume;
+        entry.left = left;
+        entry.token = token;
+        entry.arguments = null;
+        return entry;
     }
 
     /**
-     * Parses factor expressions (multiplication, division, modulo).
+     * Parses a primary expression: a literal, a variable, a call, a
+     * parenthesized expression or a 'new' expression.
      * * @return an expression node
      */
-    public ExpressionNode parseFactor() {
-        ExpressionNode left = parsePostfixExpression();
-        while (isFactorOperator(current().getType())) {
-            Token operator = consume();
-            ExpressionNode right = parsePostfixExpression();
-
-            left = new BinaryExpressionNode(left, operator, right, operator.getLine(), operator.getColumn());
-        }
-        return left;
+    public ExpressionNode parsePrimary() {
+        // No operator binds tighter than indexing
+        return parseExpression(Precedence.POSTFIX);
     }
 
     /**
-     * Parses primary expressions (literals, identifiers, parentheses, 'new'
-     * expressions).
+     * Parses an operand that nests no expression of its own, other than the
+     * size and initializer of a 'new' expression.
      * * @return an expression node
      */
-    public ExpressionNode parsePrimary() {
-        if (check(TokenType.DOUBLE_LITERAL) || check(TokenType.INTEGER_LITERAL)) {
+    private ExpressionNode parseOperand() {
+        // One read of the current type for the whole dispatch
+        TokenType kind = currentType();
+
+        if (kind == TokenType.INTEGER_LITERAL) {
+            long value = tokens.integerValue(position);
+            Token number = consume();
+            return new LiteralExpressionNode(number, value, number.getLine(), number.getColumn());
+        }
+        if (kind == TokenType.DOUBLE_LITERAL) {
+            double value = tokens.doubleValue(position);
             Token number = consume();
-            return new LiteralExpressionNode(number, number.getLine(), number.getColumn());
+            return new LiteralExpressionNode(number, value, number.getLine(), number.getColumn());
         }
-        if (check(TokenType.STRING_LITERAL)) {
+        if (kind == TokenType.STRING_LITERAL) {
             Token string = consume();
             return new LiteralExpressionNode(string, string.getLine(), string.getColumn());
         }
-        if (check(TokenType.CHARACTER_LITERAL)) {
+        if (kind == TokenType.CHARACTER_LITERAL) {
             Token c = consume();
             return new LiteralExpressionNode(c, c.getLine(), c.getColumn());
         }
-        if (check(TokenType.NULL)) {
+        if (kind == TokenType.NULL) {
             Token nullToken = consume();
             return new LiteralExpressionNode(nullToken, nullToken.getLine(), nullToken.getColumn());
         }
-        if (check(TokenType.TRUE) || check(TokenType.FALSE)) {
+        if (kind == TokenType.TRUE || kind == TokenType.FALSE) {
             Token bool = consume();
             return new LiteralExpressionNode(bool, bool.getLine(), bool.getColumn());
         }
 
-        if (check(TokenType.NEW)) {
-            Token keyword = consume();
+        if (kind == TokenType.NEW) {
+            int line = tokens.line(position);
+            int column = tokens.column(position);
+            advance();
             TypeReferenceNode type = parseTypeReference();
 
             // Check for '[' after type
@@ -491,7 +794,7 @@ public class Parser {
                         errorToken.getValue().length());
             }
 
-            consume(); // Consome o '['
+            advance(); // Consome o '['
 
             ExpressionNode size = parseExpression();
             if (size == null) {
@@ -520,12 +823,12 @@ public class Parser {
                         null,
                         rbracket.getValue().length());
             }
-            consume(); // ']'
+            advance(); // ']'
 
-            List<ExpressionNode> values = new ArrayList<>(current().value.length() * 2);
+            List<ExpressionNode> values = new ArrayList<>(tokens.length(position) * 2);
 
-            if (current().type == TokenType.LBRACE) {
-                consume(); // {
+            if (currentType() == TokenType.LBRACE) {
+                advance(); // {
 
                 if (!check(TokenType.RBRACE)) {
                     do {
@@ -533,7 +836,7 @@ public class Parser {
                     } while (match(TokenType.COMMA));
                 }
 
-                if (current().type != TokenType.RBRACE) {
+                if (currentType() != TokenType.RBRACE) {
                     parserException(
                             DiagnosticCode.E107,
                             "Array initializer block must end with '}'",
@@ -547,32 +850,14 @@ public class Parser {
                 }
             }
 
-            return new NewArrayExpressionNode(type, size, values, keyword.getLine(), keyword.getColumn());
+            return new NewArrayExpressionNode(type, size, values, line, column);
         }
 
-        if (check(TokenType.IDENTIFIER)) {
+        if (kind == TokenType.IDENTIFIER) {
             Token identifier = consume();
-            if (check(TokenType.LPAREN)) {
-                return parseCallExpression(identifier);
-            }
-
             return new VariableExpressionNode(identifier, identifier.getLine(), identifier.getColumn());
         }
 
-        if (check(TokenType.LPAREN)) {
-            consume();
-            ExpressionNode expr = parseExpression();
-            expect(TokenType.RPAREN,
-                    DiagnosticCode.E000,
-                    "Expected ')' after expression",
-                    "Parentheses must be balanced",
-                    "Add ')'",
-                    ")",
-                    "(1 + 2)",
-                    null);
-            return expr;
-        }
-
         parserException(
                 DiagnosticCode.E108,
                 "Expected expression",
@@ -592,13 +877,340 @@ public class Parser {
      */
     public ProgramNode parseProgram() {
         List<StatementNode> statements = new ArrayList<>();
-        while (!isAtEnd()) {
+        parseRemaining(statements);
+        return new ProgramNode(statements);
+    }
+
+    /**
+     * Parses the entire program, parsing top-level functions in parallel when
+     * the whole token stream is available and large enough.
+     * <p>
+     * A pre-scan matches braces to find the top-level function declarations
+     * (an {@code @Use} annotation followed by what
+     * {@link #looksLikeFunctionDeclaration()} accepts, up to the brace closing
+     * its body). Each of them is parsed on the pool by its own Parser, while
+     * the statements in between are parsed here, in order. Parsing has no state
+     * across top-level statements, so the results are assembled in source order
+     * into the same {@link ProgramNode} as {@link #parseProgram()}.
+     * </p>
+     * <p>
+     * A function that fails, or that does not end where the pre-scan expected,
+     * is parsed again here and so is the rest of the program; the error
+     * reported is therefore always the first one in source order, the same as
+     * the sequential parse.
+     * </p>
+     *
+     * @param pool The pool that parses the functions.
+     * @return the root ProgramNode containing all parsed statements
+     */
+    public ProgramNode parseProgram(ForkJoinPool pool) {
+        if (!(tokens instanceof TokenStream stream) || stream.size() < PARALLEL_THRESHOLD || position != 0) {
+            return parseProgram();
+        }
+
+        int[] functions = findTopLevelFunctions();
+        int count = functions.length / 2;
+
+        if (count < 2) {
+            return parseProgram();
+        }
+
+        // Index every line now: diagnostics built by the tasks then only read it
+        sourceManager.indexLinesUpTo(Integer.MAX_VALUE);
+
+        List<ForkJoinTask<StatementNode>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = functions[2 * i];
+            int end = functions[2 * i + 1];
+            tasks.add(pool.submit(() -> parseTopLevelStatement(start, end)));
+        }
+
+        List<StatementNode> statements = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int start = functions[2 * i];
+
+            while (position < start && !isAtEnd() && !isFull()) {
+                parseTopLevel(statements);
+            }
+
+            StatementNode function = position == start ? tasks.get(i).join() : null;
+
+            if (function == null) {
+                for (int j = i; j < count; j++) {
+                    tasks.get(j).cancel(false);
+                }
+                break;
+            }
+
+            statements.add(function);
+            position = functions[2 * i + 1];
+        }
+
+        // Rest of the program, or everything after a function that has to be
+        // parsed again to report its error
+        parseRemaining(statements);
+
+        return new ProgramNode(statements);
+    }
+
+    private void parseRemaining(List<StatementNode> statements) {
+        while (!isAtEnd() && !isFull()) {
+            parseTopLevel(statements);
+        }
+    }
+
+    /**
+     * Parses one top-level statement into {@code statements}. When recovering,
+     * an error is reported and the tokens up to the next top-level declaration
+     * are skipped instead.
+     */
+    private void parseTopLevel(List<StatementNode> statements) {
+        int start = position;
+        TokenType type = currentType();
+
+        try {
             StatementNode stmt = parseStatement();
             if (stmt != null) {
                 statements.add(stmt);
             }
+            return;
+        } catch (ParserException | BackendException e) {
+            if (diagnostics == null) {
+                throw e;
+            }
+            report(e);
+        } catch (Abandon e) {
+            // A block gave up: resynchronize here
         }
-        return new ProgramNode(statements);
+
+        functionDepth = 0;
+        controlDepth = 0;
+
+        if (position == start) {
+            advance();
+        }
+        synchronize(true);
+        if (type == TokenType.IF) {
+            skipDecisionTail(true);
+        }
+    }
+
+    /**
+     * After an error in the statement at {@code start} inside a block, reports
+     * it and skips the rest of that statement, restoring the depths it had left
+     * changed. {@code kind} is the type of the statement's first token.
+     */
+    private void recover(KException error, int start, int functions, int controls, TokenType kind) {
+        report(error);
+        functionDepth = functions;
+        controlDepth = controls;
+
+        if (isFull()) {
+            throw ABANDON;
+        }
+        if (position == start) {
+            advance();
+        }
+        synchronize(false);
+        if (kind == TokenType.IF) {
+            skipDecisionTail(false);
+        }
+    }
+
+    /**
+     * Skips the {@code otherwise} branches and the {@code afterall} left after
+     * {@link #synchronize} stopped at the end of a block of a failed decision,
+     * so that they are not reported again as statements of their own.
+     */
+    private void skipDecisionTail(boolean topLevel) {
+        while (tokens.type(position - 1) == TokenType.RBRACE && check(TokenType.OTHERWISE)) {
+            advance();
+            synchronize(topLevel);
+        }
+        if (tokens.type(position - 1) != TokenType.RBRACE || !match(TokenType.AFTERALL)) {
+            return;
+        }
+        if (check(TokenType.LBRACE)) {
+            synchronize(topLevel);
+        } else {
+            match(TokenType.SEMICOLON);
+        }
+    }
+
+    private void report(KException error) {
+        diagnostics.report(error);
+        recovered++;
+    }
+
+    private boolean startsStatementLine(TokenType type) {
+        return type == TokenType.RETURN
+                || (type == TokenType.WHILE || type == TokenType.IF || type == TokenType.CONSTANT || isType(type))
+                        && tokens.line(position) > tokens.line(position - 1);
+    }
+
+    private boolean isFull() {
+        return diagnostics != null && diagnostics.isFull();
+    }
+
+    /**
+     * Skips tokens after an error, up to and including the {@code ;} ending the
+     * statement or the {@code }} closing a block opened in it. Stops before the
+     * {@code }} of the enclosing block, before a {@code return} or a line
+     * starting with a statement keyword or a type (most often after a missing
+     * {@code ;}), and before the next function (its annotation, or inside a
+     * block its access modifier) or, at the top level, a {@code module} or
+     * {@code import}. Inside a block, reaching the next function means the
+     * block was never closed: the parse is unwound to the top level.
+     */
+    private void synchronize(boolean topLevel) {
+        int depth = 0;
+
+        while (!isAtEnd()) {
+            TokenType type = currentType();
+
+            if (type == TokenType.AT) {
+                if (topLevel) {
+                    return;
+                }
+                throw ABANDON;
+            }
+            if (!topLevel && isAccessModifier(type)) {
+                throw ABANDON;
+            }
+
+            if (type == TokenType.LBRACE) {
+                depth++;
+            } else if (type == TokenType.RBRACE) {
+                if (depth > 0 && --depth == 0) {
+                    advance();
+                    return;
+                }
+                if (depth == 0 && !topLevel) {
+                    return;
+                }
+            } else if (depth == 0) {
+                if (type == TokenType.SEMICOLON) {
+                    advance();
+                    return;
+                }
+                if (topLevel && (type == TokenType.MODULE || type == TokenType.IMPORT)) {
+                    return;
+                }
+                if (!topLevel && startsStatementLine(type)) {
+                    return;
+                }
+            }
+
+            advance();
+        }
+    }
+
+    /**
+     * Parses the top-level statement at {@code start} with a Parser of its own.
+     *
+     * @return The statement, or {@code null} if it fails or does not end at
+     *         {@code end}.
+     */
+    private StatementNode parseTopLevelStatement(int start, int end) {
+        Parser parser = new Parser(tokens, filePath, sourceManager);
+        parser.position = start;
+
+        try {
+            StatementNode stmt = parser.parseStatement();
+            return parser.position == end ? stmt : null;
+        } catch (RuntimeException | StackOverflowError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Pre-scan for {@link #parseProgram(ForkJoinPool)}.
+     *
+     * @return Pairs of token indexes: where each top-level function starts (its
+     *         {@code @}) and where it ends (after its closing brace).
+     */
+    private int[] findTopLevelFunctions() {
+        int[] functions = new int[64];
+        int count = 0;
+        int depth = 0;
+
+        for (position = 0; !isAtEnd(); position++) {
+            TokenType type = currentType();
+
+            if (type == TokenType.LBRACE) {
+                depth++;
+            } else if (type == TokenType.RBRACE) {
+                depth = Math.max(0, depth - 1);
+            } else if (depth == 0 && type == TokenType.AT && startsAnnotatedFunction()) {
+                int start = position;
+                int end = skipFunction();
+
+                if (end < 0) {
+                    break;
+                }
+
+                if (count + 2 > functions.length) {
+                    functions = Arrays.copyOf(functions, functions.length * 2);
+                }
+
+                functions[count++] = start;
+                functions[count++] = end;
+                position = end - 1;
+            }
+        }
+
+        position = 0;
+        return Arrays.copyOf(functions, count);
+    }
+
+    // At '@': is this '@Use("...")' followed by a function declaration?
+    private boolean startsAnnotatedFunction() {
+        if (peekType(1) != TokenType.IDENTIFIER || peekType(2) != TokenType.LPAREN
+                || peekType(3) != TokenType.STRING_LITERAL || !"Use".equals(tokens.value(position + 1))) {
+            return false;
+        }
+
+        int at = position;
+        position += 5; // past '@', 'Use', '(', the target and ')'
+        boolean function = tokens.type(position - 1) == TokenType.RPAREN && looksLikeFunctionDeclaration();
+        position = at;
+
+        return function;
+    }
+
+    /**
+     * From the start of an annotated function, finds the brace closing its body.
+     *
+     * @return The index after that brace, or {@code -1} if it is missing.
+     */
+    private int skipFunction() {
+        int i = position;
+
+        while (tokens.type(i) != TokenType.LBRACE) {
+            if (tokens.type(i) == TokenType.EOF) {
+                return -1;
+            }
+            i++;
+        }
+
+        int depth = 0;
+        do {
+            TokenType type = tokens.type(i);
+
+            if (type == TokenType.EOF) {
+                return -1;
+            }
+            if (type == TokenType.LBRACE) {
+                depth++;
+            } else if (type == TokenType.RBRACE) {
+                depth--;
+            }
+
+            i++;
+        } while (depth > 0);
+
+        return i;
     }
 
     /**
@@ -607,8 +1219,9 @@ public class Parser {
      */
     public StatementNode parseAssignmentStatement() {
         ExpressionNode target;
-        if (check(TokenType.IDENTIFIER) && peek(1).getType() == TokenType.LBRACKET) {
-            target = parsePostfixExpression();
+        if (check(TokenType.IDENTIFIER) && peekType(1) == TokenType.LBRACKET) {
+            // Only indexing binds tighter than binary operators
+            target = parseExpression(Precedence.POSTFIX - 1);
         } else {
             Token identifier = expect(TokenType.IDENTIFIER,
                     DiagnosticCode.E000,
@@ -621,7 +1234,7 @@ public class Parser {
             target = new VariableExpressionNode(identifier, identifier.getLine(), identifier.getColumn());
         }
 
-        expect(TokenType.ASSIGNMENT,
+        require(TokenType.ASSIGNMENT,
                 DiagnosticCode.E000,
                 "Expected '=' after variable",
                 "Assignment syntax requires '='",
@@ -632,7 +1245,7 @@ public class Parser {
 
         ExpressionNode value = parseExpression();
 
-        expect(TokenType.SEMICOLON,
+        require(TokenType.SEMICOLON,
                 DiagnosticCode.E102,
                 "Expected ';' after assignment",
                 "Statement must be terminated",
@@ -650,7 +1263,7 @@ public class Parser {
      */
     public StatementNode parseExpressionStatement() {
         ExpressionNode expr = parseExpression();
-        expect(TokenType.SEMICOLON,
+        require(TokenType.SEMICOLON,
                 DiagnosticCode.E102,
                 "Expected ';' after expression",
                 "Statement must be terminated",
@@ -668,14 +1281,7 @@ public class Parser {
      * @return a call expression node with the callee and arguments
      */
     public ExpressionNode parseCallExpression(Token callee) {
-        expect(TokenType.LPAREN,
-                DiagnosticCode.E000,
-                "Expected '(' after function name",
-                "Function call requires parentheses for arguments",
-                "Add '('",
-                "(",
-                "func(a, b)",
-                null);
+        requireCallOpen();
 
         List<ExpressionNode> args = new ArrayList<>();
         if (!check(TokenType.RPAREN)) {
@@ -684,7 +1290,24 @@ public class Parser {
             } while (match(TokenType.COMMA));
         }
 
-        expect(TokenType.RPAREN,
+        requireCallClose();
+
+        return new CallExpressionNode(callee, args, callee.getLine(), callee.getColumn());
+    }
+
+    private void requireCallOpen() {
+        require(TokenType.LPAREN,
+                DiagnosticCode.E000,
+                "Expected '(' after function name",
+                "Function call requires parentheses for arguments",
+                "Add '('",
+                "(",
+                "func(a, b)",
+                null);
+    }
+
+    private void requireCallClose() {
+        require(TokenType.RPAREN,
                 DiagnosticCode.E000,
                 "Expected ')' after arguments",
                 "Close the function call parentheses",
@@ -692,8 +1315,6 @@ public class Parser {
                 ")",
                 "func(a, b)",
                 null);
-
-        return new CallExpressionNode(callee, args, callee.getLine(), callee.getColumn());
     }
 
     /**
@@ -701,30 +1322,7 @@ public class Parser {
      * * @return a block statement node containing the list of statements
      */
     public BlockStatementNode parseBlockStatement() {
-        Token openBrace = expect(TokenType.LBRACE,
-                DiagnosticCode.E000,
-                "Expected '{' to start block",
-                "Block must start with '{'",
-                "Add '{'",
-                "{",
-                "{ ... }",
-                null);
-
-        List<StatementNode> statements = new ArrayList<>();
-        while (!check(TokenType.RBRACE) && !isAtEnd()) {
-            statements.add(parseStatement());
-        }
-
-        expect(TokenType.RBRACE,
-                DiagnosticCode.E000,
-                "Expected '}' to close block",
-                "Block must end with '}'",
-                "Add '}'",
-                "}",
-                "{ ... }",
-                null);
-
-        return new BlockStatementNode(statements, openBrace.getLine(), openBrace.getColumn());
+        return (BlockStatementNode) parseNested(TokenType.LBRACE);
     }
 
     /**
@@ -768,7 +1366,7 @@ public class Parser {
                 "void myFunction()",
                 null);
 
-        expect(TokenType.LPAREN,
+        require(TokenType.LPAREN,
                 DiagnosticCode.E000,
                 "Expected '(' after function name",
                 "Parameters must be enclosed in parentheses",
@@ -809,7 +1407,7 @@ public class Parser {
             } while (match(TokenType.COMMA));
         }
 
-        expect(TokenType.RPAREN,
+        require(TokenType.RPAREN,
                 DiagnosticCode.E000,
                 "Expected ')' after parameters",
                 "Close the parameter list",
@@ -831,7 +1429,9 @@ public class Parser {
      * * @return a block statement node representing the function body
      */
     private BlockStatementNode parseFunctionBody() {
-        Token openBrace = expect(TokenType.LBRACE,
+        int line = tokens.line(position);
+        int column = tokens.column(position);
+        require(TokenType.LBRACE,
                 DiagnosticCode.E000,
                 "Expected '{' to start function body",
                 "Function body must be a block",
@@ -842,52 +1442,64 @@ public class Parser {
 
         List<StatementNode> statementNodes = new ArrayList<>();
         boolean seenReturn = false;
+        int errors = recovered;
 
         while (!check(TokenType.RBRACE) && !isAtEnd()) {
-            if (check(TokenType.RETURN)) {
-                if (seenReturn) {
-                    Token current = current();
-                    String example = "return result; // Only one return allowed at the end";
-
-                    parserException(
-                            DiagnosticCode.E202,
-                            "Multiple return statements found",
-                            "Keep only one return statement at the end of the function scope",
-                            null,
-                            example,
-                            current.getLine(),
-                            current.getColumn(),
-                            "To prevent divergent return types, K allows only one return per function.",
-                            current.getValue().length());
+            int start = position;
+            int functions = functionDepth;
+            int controls = controlDepth;
+            TokenType type = currentType();
+
+            try {
+                if (type == TokenType.RETURN) {
+                    if (seenReturn) {
+                        Token current = current();
+                        String example = "return result; // Only one return allowed at the end";
+
+                        parserException(
+                                DiagnosticCode.E202,
+                                "Multiple return statements found",
+                                "Keep only one return statement at the end of the function scope",
+                                null,
+                                example,
+                                current.getLine(),
+                                current.getColumn(),
+                                "To prevent divergent return types, K allows only one return per function.",
+                                current.getValue().length());
+                    }
+
+                    StatementNode ret = parseReturnStatement();
+                    statementNodes.add(ret);
+                    seenReturn = true;
+
+                    if (!check(TokenType.RBRACE)) {
+                        Token current = current();
+                        String example = "...\n    return result; // Must be the last line\n}";
+
+                        parserException(
+                                DiagnosticCode.E203,
+                                "Return statement is not the last statement",
+                                "Move the return statement to the end of the function body",
+                                null,
+                                example,
+                                current.getLine(),
+                                current.getColumn(),
+                                "Code after the return statement is unreachable and invalid in this context.",
+                                current.getValue().length());
+                    }
+                    break;
                 }
 
-                StatementNode ret = parseReturnStatement();
-                statementNodes.add(ret);
-                seenReturn = true;
-
-                if (!check(TokenType.RBRACE)) {
-                    Token current = current();
-                    String example = "...\n    return result; // Must be the last line\n}";
-
-                    parserException(
-                            DiagnosticCode.E203,
-                            "Return statement is not the last statement",
-                            "Move the return statement to the end of the function body",
-                            null,
-                            example,
-                            current.getLine(),
-                            current.getColumn(),
-                            "Code after the return statement is unreachable and invalid in this context.",
-                            current.getValue().length());
+                statementNodes.add(parseStatement());
+            } catch (ParserException | BackendException e) {
+                if (diagnostics == null) {
+                    throw e;
                 }
-                break;
+                recover(e, start, functions, controls, type);
             }
-
-            StatementNode stmt = parseStatement();
-            statementNodes.add(stmt);
         }
 
-        expect(TokenType.RBRACE,
+        require(TokenType.RBRACE,
                 DiagnosticCode.E000,
                 "Expected '}' after function body",
                 "Function body must be closed",
@@ -896,7 +1508,8 @@ public class Parser {
                 "void func() { ... }",
                 null);
 
-        if (!seenReturn) {
+        // A return may have been lost in a statement skipped after an error
+        if (!seenReturn && recovered == errors) {
             Token current = current();
             String example = "...\n    return result; // Explicit return required\n}";
 
@@ -911,7 +1524,7 @@ public class Parser {
                     "Even 'void' functions must return explicitly.",
                     current.getValue().length());
         }
-        return new BlockStatementNode(statementNodes, openBrace.getLine(), openBrace.getColumn());
+        return new BlockStatementNode(statementNodes, line, column);
     }
 
     /**
@@ -919,7 +1532,9 @@ public class Parser {
      * * @return a return statement node
      */
     public StatementNode parseReturnStatement() {
-        Token keyword = expect(TokenType.RETURN,
+        int line = tokens.line(position);
+        int column = tokens.column(position);
+        require(TokenType.RETURN,
                 DiagnosticCode.E000,
                 "Expected 'return' keyword",
                 "Return statement starts with 'return'",
@@ -933,7 +1548,7 @@ public class Parser {
             value = parseExpression();
         }
 
-        expect(TokenType.SEMICOLON,
+        require(TokenType.SEMICOLON,
                 DiagnosticCode.E102,
                 "Expected ';' after return value",
                 "Return statement must be terminated",
@@ -942,7 +1557,7 @@ public class Parser {
                 "return x;",
                 null);
 
-        return new ReturnStatementNode(value, keyword.getLine(), keyword.getColumn());
+        return new ReturnStatementNode(value, line, column);
     }
 
     /**
@@ -978,9 +1593,9 @@ public class Parser {
         }
 
         // Function declaration check (Type -> Identifier -> '(')
-        if (isType(current().getType()) &&
-                peek(1).getType() == TokenType.IDENTIFIER &&
-                peek(2).getType() == TokenType.LPAREN) {
+        if (isType(currentType()) &&
+                peekType(1) == TokenType.IDENTIFIER &&
+                peekType(2) == TokenType.LPAREN) {
 
             Token current = current();
             String example = "public integer myFunction(...) { ... }";
@@ -999,7 +1614,7 @@ public class Parser {
 
         UseAnnotationNode pendingUse = null;
         if (check(TokenType.AT)) {
-            consume();
+            advance();
             Token name = expect(TokenType.IDENTIFIER,
                     DiagnosticCode.E204,
                     "Expected annotation name",
@@ -1009,7 +1624,7 @@ public class Parser {
                     "@Use",
                     null);
 
-            if (!name.value.equals("Use")) {
+            if (!name.getValue().equals("Use")) {
                 Token current = current();
                 parserException(
                         DiagnosticCode.E204,
@@ -1023,7 +1638,7 @@ public class Parser {
                         current.getValue().length());
             }
 
-            expect(TokenType.LPAREN,
+            require(TokenType.LPAREN,
                     DiagnosticCode.E000,
                     "Expected '(' after @Use",
                     "Annotation parameters must be in parentheses",
@@ -1055,7 +1670,7 @@ public class Parser {
                         target.getValue().length());
             }
 
-            expect(TokenType.RPAREN,
+            require(TokenType.RPAREN,
                     DiagnosticCode.E000,
                     "Expected ')' after @Use",
                     "Close annotation parentheses",
@@ -1086,17 +1701,9 @@ public class Parser {
             return parseFunctionDeclaration(pendingUse);
         }
 
-        // while
-        if (check(TokenType.WHILE)) {
-            return parseWhileStatement();
-        }
-        // if
-        if (check(TokenType.IF)) {
-            return parseDecisionStatement();
-        }
-        // Block {}
-        if (check(TokenType.LBRACE)) {
-            return parseBlockStatement();
+        // while, if and blocks {}
+        if (check(TokenType.WHILE) || check(TokenType.IF) || check(TokenType.LBRACE)) {
+            return parseNested(currentType());
         }
 
         if (check(TokenType.RETURN)) {
@@ -1136,12 +1743,15 @@ public class Parser {
         }
 
         // Declaration
-        if (isType(current().getType())) {
+        if (check(TokenType.CONSTANT)) {
+            return parseConstantDecl();
+        }
+        if (isType(currentType())) {
             return parseValDecl();
         }
 
         // Assignment (IDENTIFIER '=' ...)
-        if (check(TokenType.IDENTIFIER) && peek(1).getType() == TokenType.ASSIGNMENT) {
+        if (check(TokenType.IDENTIFIER) && peekType(1) == TokenType.ASSIGNMENT) {
             return parseAssignmentStatement();
         }
 
@@ -1151,33 +1761,79 @@ public class Parser {
 
     // Utility do Parser
 
-    public Parser(List<Token> tokens, Path path, SourceManager sourceManager) {
+    public Parser(TokenSource tokens, Path path, SourceManager sourceManager) {
         this.tokens = tokens;
         this.filePath = path;
         this.sourceManager = sourceManager;
         this.fileName = filePath.getFileName().toString();
     }
 
+    /**
+     * Creates a streaming parser that pulls tokens from the lexer as it goes,
+     * keeping only a bounded lookahead window in memory.
+     */
+    public Parser(Lexer lexer, Path path, SourceManager sourceManager) {
+        this(new TokenWindow(lexer, MAX_LOOKBEHIND, MAX_LOOKAHEAD), path, sourceManager);
+    }
+
+    /**
+     * Switches the parser to recovery mode: instead of throwing the first
+     * {@link ParserException}, it reports every error to {@code diagnostics}
+     * and resynchronizes at the next {@code ;}, {@code }} or top-level
+     * declaration, so that one parse finds all the syntax errors. The program
+     * returned is then incomplete whenever {@code diagnostics} has errors.
+     *
+     * @param diagnostics Where errors go, or {@code null} to throw the first one.
+     */
+    public void setDiagnosticSink(DiagnosticSink diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
     private boolean isAtEnd() {
-        return current().getType() == TokenType.EOF;
+        return tokens.type(position) == TokenType.EOF;
     }
 
+    /**
+     * Materializes the current token. Prefer {@link #currentType()} when only
+     * the type is needed.
+     */
     public Token current() {
-        return tokens.get(position);
+        return tokens.token(position);
+    }
+
+    public TokenType currentType() {
+        return tokens.type(position);
     }
 
     public Token consume() {
         if (isAtEnd()) {
-            return tokens.get(position);
+            return tokens.token(position);
         }
-        Token token = tokens.get(position);
+        Token token = tokens.token(position);
         position++;
         return token;
     }
 
+    /**
+     * Moves past the current token without materializing it.
+     */
+    private void advance() {
+        if (!isAtEnd()) {
+            position++;
+        }
+    }
+
     public Token peek(int offset) {
+        return tokens.token(peekIndex(offset));
+    }
+
+    public TokenType peekType(int offset) {
+        return tokens.type(peekIndex(offset));
+    }
+
+    private int peekIndex(int offset) {
         if (isAtEnd()) {
-            return tokens.get(position);
+            return position;
         }
 
         if (offset < 0) {
@@ -1186,18 +1842,25 @@ public class Parser {
             }
         }
 
-        int index = offset + position;
-        if (index > tokens.size() - 1) {
-            return tokens.get(tokens.size() - 1);
-        }
+        return tokens.clamp(offset + position);
+    }
 
-        return tokens.get(index);
+    /**
+     * Consumes the current token if it has the given type. Unlike
+     * {@link #match(TokenType...)}, allocates no array.
+     */
+    public boolean match(TokenType type) {
+        if (check(type)) {
+            advance();
+            return true;
+        }
+        return false;
     }
 
     public boolean match(TokenType... types) {
         for (TokenType tokenType : types) {
             if (check(tokenType)) {
-                consume();
+                advance();
                 return true;
             }
         }
@@ -1208,11 +1871,20 @@ public class Parser {
         if (isAtEnd()) {
             return false;
         }
-        return current().getType() == type;
+        return currentType() == type;
     }
 
     public Token expect(TokenType type, DiagnosticCode code, String message, String cause, String fix, String expected,
             String example, String note) {
+        require(type, code, message, cause, fix, expected, example, note);
+        return tokens.token(position - 1);
+    }
+
+    /**
+     * Same as {@link #expect}, for callers that do not need the consumed token.
+     */
+    private void require(TokenType type, DiagnosticCode code, String message, String cause, String fix,
+            String expected, String example, String note) {
         if (!check(type)) {
             Token blame = current();
 
@@ -1225,8 +1897,6 @@ public class Parser {
                     int errorLine = prev.getLine();
                     int errorCol = prev.getColumn() + prev.getValue().length();
 
-                    System.out.println(prev.getColumn());
-
                     throw new ParserException(
                             code,
                             new SourceLocation(filePath.toString(), errorLine, errorCol),
@@ -1243,27 +1913,27 @@ public class Parser {
 
             syntaxException(code, message, cause, fix, expected, example, note, blame);
         }
-        return consume();
+        position++;
     }
 
     public boolean looksLikeFunctionDeclaration() {
         int i = 0;
-        if (!isAccessModifier(peek(i).getType())) {
+        if (!isAccessModifier(peekType(i))) {
             return false;
         }
         i++;
         // type
-        if (!isType(peek(i).getType())) {
+        if (!isType(peekType(i))) {
             return false;
         }
         i++;
         // function name
-        if (peek(i).getType() != TokenType.IDENTIFIER) {
+        if (peekType(i) != TokenType.IDENTIFIER) {
             return false;
         }
         i++;
         // Must be '('
-        return peek(i).getType() == TokenType.LPAREN;
+        return peekType(i) == TokenType.LPAREN;
     }
 
     private void parserException(DiagnosticCode code, String cause, String fix, String expected, String example,
@@ -1301,18 +1971,6 @@ public class Parser {
         return Heddle.TYPES.contains(type);
     }
 
-    private boolean isComparisionOperator(TokenType type) {
-        return Heddle.COMPARISION_OPERATORS.contains(type);
-    }
-
-    private boolean isTermOperador(TokenType type) {
-        return Heddle.TERM_OPERATORS.contains(type);
-    }
-
-    private boolean isFactorOperator(TokenType type) {
-        return Heddle.FACTOR_OPERATORS.contains(type);
-    }
-
     private boolean isAccessModifier(TokenType type) {
         return Heddle.ACESS_MODIFIERS.contains(type);
     }
@@ -0,0 +1,60 @@
+package org.klang.core.parser;
+
+import java.util.Set;
+
+import org.klang.core.Heddle;
+import org.klang.core.lexer.TokenType;
+
+/**
+ * Binding powers of the infix and postfix operators, indexed by
+ * {@link TokenType}, which drive the Pratt expression parsing of
+ * {@link Parser} and {@link org.klang.core.parser.flat.FlatParser}.
+ * <p>
+ * An operator binds its left operand only when its power is greater than the
+ * minimum power of the expression being parsed, and parses its right operand
+ * with its own power as the minimum, so operators of the same level associate
+ * to the left. Adding a binary operator is one {@link #define} call; a token
+ * without an entry ends the expression.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class Precedence {
+
+    /** Minimum power of a whole expression: every operator binds. */
+    public static final int LOWEST = 0;
+
+    public static final int COMPARISON = 1;
+    public static final int TERM = 2;
+    public static final int FACTOR = 3;
+
+    /** Array indexing ({@code a[i]}), tighter than any binary operator. */
+    public static final int POSTFIX = 4;
+
+    private static final byte[] INFIX = new byte[TokenType.values().length];
+
+    static {
+        define(COMPARISON, Heddle.COMPARISION_OPERATORS);
+        define(TERM, Heddle.TERM_OPERATORS);
+        define(FACTOR, Heddle.FACTOR_OPERATORS);
+        define(POSTFIX, Set.of(TokenType.LBRACKET));
+    }
+
+    private Precedence() {
+    }
+
+    /**
+     * @return The binding power of {@code type} after an operand, or
+     *         {@link #LOWEST} when it is not an operator.
+     */
+    public static int infix(TokenType type) {
+        return INFIX[type.ordinal()];
+    }
+
+    private static void define(int power, Set<TokenType> operators) {
+        for (TokenType operator : operators) {
+            INFIX[operator.ordinal()] = (byte) power;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package org.klang.core.parser.ast;
 
-public class AssignmentStatementNode extends StatementNode {
+public final class AssignmentStatementNode extends StatementNode {
     public ExpressionNode name;
     public ExpressionNode value;
     
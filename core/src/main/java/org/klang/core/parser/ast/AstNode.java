@@ -1,6 +1,15 @@
 package org.klang.core.parser.ast;
 
-public class AstNode {
+/**
+ * Base of every node that has a position in the source.
+ * <p>
+ * The hierarchy is sealed: a node is either a {@link StatementNode} or an
+ * {@link ExpressionNode}, each with a closed set of final subclasses, so the
+ * phases dispatch on nodes with exhaustive pattern {@code switch}es and adding
+ * a node kind is a compile error everywhere it is not handled yet.
+ * </p>
+ */
+public abstract sealed class AstNode permits StatementNode, ExpressionNode {
     public final int line;    
     public final int column;
 
@@ -2,7 +2,7 @@ package org.klang.core.parser.ast;
 
 import org.klang.core.lexer.Token;
 
-public class BinaryExpressionNode extends ExpressionNode {
+public final class BinaryExpressionNode extends ExpressionNode {
     
     public ExpressionNode left;
     public Token operator;
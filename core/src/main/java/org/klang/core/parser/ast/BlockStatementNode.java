@@ -2,7 +2,7 @@ package org.klang.core.parser.ast;
 
 import java.util.List;
 
-public class BlockStatementNode extends StatementNode {
+public final class BlockStatementNode extends StatementNode {
     public final List<StatementNode> statements;
     
     public BlockStatementNode(List<StatementNode> statements, int line, int column){
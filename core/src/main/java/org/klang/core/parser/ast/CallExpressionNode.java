@@ -4,7 +4,7 @@ import java.util.List;
 
 import org.klang.core.lexer.Token;
 
-public class CallExpressionNode extends ExpressionNode {
+public final class CallExpressionNode extends ExpressionNode {
     public final Token callee;
     public final List<ExpressionNode> arguments;
     
@@ -2,10 +2,16 @@ package org.klang.core.parser.ast;
 
 import org.klang.core.lexer.Token;
 
-public class ConstantDeclarationNode extends StatementNode {
+public final class ConstantDeclarationNode extends StatementNode {
     public final Token name;
     public final TypeReferenceNode type;
-    public final ExpressionNode value;
+    public ExpressionNode value;
+
+    /**
+     * Index of this constant in its scope, set by
+     * {@link org.klang.core.semantics.ScopeResolver} ({@code -1} until resolved).
+     */
+    public int slot = -1;
 
     public ConstantDeclarationNode(
         Token name,
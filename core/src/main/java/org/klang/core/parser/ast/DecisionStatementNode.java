@@ -2,8 +2,8 @@ package org.klang.core.parser.ast;
 
 import java.util.List;
 
-public class DecisionStatementNode extends StatementNode {
-    public final ExpressionNode condition;
+public final class DecisionStatementNode extends StatementNode {
+    public ExpressionNode condition;
     public final BlockStatementNode ifBlock;
 
     public final List<OtherwiseBranchNode> otherwiseBranches;
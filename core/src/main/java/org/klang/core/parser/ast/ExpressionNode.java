@@ -1,6 +1,17 @@
 package org.klang.core.parser.ast;
 
-public abstract class ExpressionNode extends AstNode {
+import org.klang.core.semantics.TypeSymbol;
+
+public abstract sealed class ExpressionNode extends AstNode permits BinaryExpressionNode, IndexExpressionNode,
+        LiteralExpressionNode, VariableExpressionNode, CallExpressionNode, NewArrayExpressionNode {
+
+    /**
+     * Type of this expression, set by {@link org.klang.core.semantics.TypeChecker};
+     * {@code null} until it is checked, and in functions a
+     * {@link org.klang.core.semantics.CheckCache} let through unchecked.
+     */
+    public TypeSymbol resolvedType;
+
     public ExpressionNode(int line, int column) {
         super(line, column);
     }
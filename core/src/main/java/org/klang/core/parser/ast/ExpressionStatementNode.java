@@ -1,7 +1,7 @@
 package org.klang.core.parser.ast;
 
-public class ExpressionStatementNode extends StatementNode{
-    public final ExpressionNode expression;
+public final class ExpressionStatementNode extends StatementNode{
+    public ExpressionNode expression;
     
     public ExpressionStatementNode(ExpressionNode expression, int line, int column){
         super(line, column);
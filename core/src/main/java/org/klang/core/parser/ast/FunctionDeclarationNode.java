@@ -4,13 +4,20 @@ import java.util.List;
 
 import org.klang.core.lexer.Token;
 
-public class FunctionDeclarationNode extends StatementNode {
+public final class FunctionDeclarationNode extends StatementNode {
     public final UseAnnotationNode use;
     public final AccessModifier access;
     public final TypeReferenceNode returnType;
     public final Token name;
     public final List<ParameterNode> parameters;
     public final BlockStatementNode body;
+
+    /**
+     * Hash of what checking this function depends on, set by
+     * {@link org.klang.core.semantics.ScopeResolver} for a
+     * {@link org.klang.core.semantics.CheckCache}; {@code 0} until then.
+     */
+    public long fingerprint;
     
     public FunctionDeclarationNode(AccessModifier access, TypeReferenceNode returnType, Token name, List<ParameterNode> parameters, BlockStatementNode body, UseAnnotationNode use, int line, int column){
         super(line, column);
@@ -1,8 +1,8 @@
 package org.klang.core.parser.ast;
 
-public class IndexExpressionNode extends ExpressionNode {
+public final class IndexExpressionNode extends ExpressionNode {
     public final ExpressionNode target;
-    public final ExpressionNode index;
+    public ExpressionNode index;
     
     public IndexExpressionNode(ExpressionNode target, ExpressionNode index, int line, int column){
         super(line, column);
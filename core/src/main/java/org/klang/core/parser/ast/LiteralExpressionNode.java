@@ -2,12 +2,35 @@ package org.klang.core.parser.ast;
 
 import org.klang.core.lexer.Token;
 
-public class LiteralExpressionNode extends ExpressionNode {
+public final class LiteralExpressionNode extends ExpressionNode {
     public final Token value;
+
+    /** Value parsed by the lexer for an integer literal. */
+    public final long integerValue;
+    /** Value parsed by the lexer for a decimal literal (or the integer value, widened). */
+    public final double doubleValue;
     
     public LiteralExpressionNode(Token value, int line, int column){
         super(line, column);
 
         this.value = value;
+        this.integerValue = 0;
+        this.doubleValue = 0;
+    }
+
+    public LiteralExpressionNode(Token value, long integerValue, int line, int column){
+        super(line, column);
+
+        this.value = value;
+        this.integerValue = integerValue;
+        this.doubleValue = integerValue;
+    }
+
+    public LiteralExpressionNode(Token value, double doubleValue, int line, int column){
+        super(line, column);
+
+        this.value = value;
+        this.integerValue = 0;
+        this.doubleValue = doubleValue;
     }
 }
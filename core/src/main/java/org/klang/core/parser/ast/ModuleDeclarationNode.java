@@ -2,7 +2,7 @@ package org.klang.core.parser.ast;
 
 import org.klang.core.lexer.Token;
 
-public class ModuleDeclarationNode extends StatementNode {
+public final class ModuleDeclarationNode extends StatementNode {
     
     private final Token name;
 
@@ -10,4 +10,8 @@ public class ModuleDeclarationNode extends StatementNode {
         super(line, column);
         this.name = name;
     }   
+
+    public Token getName() {
+        return name;
+    }
 }
\ No newline at end of file
@@ -2,9 +2,9 @@ package org.klang.core.parser.ast;
 
 import java.util.List;
 
-public class NewArrayExpressionNode extends ExpressionNode {
+public final class NewArrayExpressionNode extends ExpressionNode {
     public final TypeReferenceNode type;
-    public final ExpressionNode size;
+    public ExpressionNode size;
     public final List<ExpressionNode> initializer;
 
     public NewArrayExpressionNode(TypeReferenceNode type, ExpressionNode size, List<ExpressionNode> initializer, int line, int column){
@@ -1,7 +1,7 @@
 package org.klang.core.parser.ast;
 
 public class OtherwiseBranchNode {
-    public final ExpressionNode condition;
+    public ExpressionNode condition;
     public final String reason;
     public final BlockStatementNode body;
 
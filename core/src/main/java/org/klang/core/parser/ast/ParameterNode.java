@@ -6,6 +6,12 @@ public class ParameterNode {
     public final TypeReferenceNode type;
     public final Token name;
 
+    /**
+     * Index of this parameter in the scope of its function, set by
+     * {@link org.klang.core.semantics.ScopeResolver} ({@code -1} until resolved).
+     */
+    public int slot = -1;
+
     public ParameterNode(TypeReferenceNode type, Token name){
         this.type = type;
         this.name = name;
@@ -1,7 +1,7 @@
 package org.klang.core.parser.ast;
 
-public class ReturnStatementNode extends StatementNode{
-    public final ExpressionNode value;
+public final class ReturnStatementNode extends StatementNode{
+    public ExpressionNode value;
     
     public ReturnStatementNode(ExpressionNode value, int line, int column){
         super(line, column);
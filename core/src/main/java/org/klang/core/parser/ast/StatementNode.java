@@ -1,6 +1,9 @@
 package org.klang.core.parser.ast;
 
-abstract public class StatementNode extends AstNode {
+abstract public sealed class StatementNode extends AstNode permits FunctionDeclarationNode, BlockStatementNode,
+        WhileStatementNode, DecisionStatementNode, ReturnStatementNode, VariableDeclarationNode,
+        ConstantDeclarationNode, AssignmentStatementNode, ExpressionStatementNode, ModuleDeclarationNode,
+        ImportDeclarationNode {
     public StatementNode(int line, int column){
         super(line, column);
     }        
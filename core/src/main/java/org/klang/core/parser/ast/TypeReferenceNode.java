@@ -1,11 +1,21 @@
 package org.klang.core.parser.ast;
 
 import org.klang.core.lexer.Token;
+import org.klang.core.semantics.TypeSymbol;
 
 public class TypeReferenceNode {
     public final Token baseType;
     public final int arrayDepth;
 
+    /**
+     * The type this reference names, set by the
+     * {@link org.klang.core.semantics.ScopeResolver} for every type reference of
+     * the program, including those of functions a
+     * {@link org.klang.core.semantics.CheckCache} skips; {@code null} until
+     * then, and for an unknown type.
+     */
+    public TypeSymbol resolvedType;
+
     public TypeReferenceNode(Token baseType, int arrayDepth){
         this.baseType = baseType;
         this.arrayDepth = arrayDepth;
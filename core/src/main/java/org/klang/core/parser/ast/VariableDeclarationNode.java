@@ -2,10 +2,16 @@ package org.klang.core.parser.ast;
 
 import org.klang.core.lexer.Token;
 
-public class VariableDeclarationNode extends StatementNode{
+public final class VariableDeclarationNode extends StatementNode{
     public final TypeReferenceNode type;
     public final Token name;
-    public final ExpressionNode value;
+    public ExpressionNode value;
+
+    /**
+     * Index of this variable in its scope, set by
+     * {@link org.klang.core.semantics.ScopeResolver} ({@code -1} until resolved).
+     */
+    public int slot = -1;
 
     public VariableDeclarationNode(TypeReferenceNode type, Token name, ExpressionNode value, int line, int column){
         super(line, column);
@@ -2,9 +2,18 @@ package org.klang.core.parser.ast;
 
 import org.klang.core.lexer.Token;
 
-public class VariableExpressionNode extends ExpressionNode {
+public final class VariableExpressionNode extends ExpressionNode {
     public final Token name;
 
+    /**
+     * Scope level of the declaration this name refers to (0 for globals), set by
+     * {@link org.klang.core.semantics.ScopeResolver}; {@code -1} until resolved or
+     * when nothing is declared with this name.
+     */
+    public int depth = -1;
+    /** Index of that declaration among the ones of its scope, or {@code -1}. */
+    public int slot = -1;
+
     public VariableExpressionNode(Token name, int line, int column){
         super(line, column);
         this.name = name;
@@ -1,7 +1,7 @@
 package org.klang.core.parser.ast;
 
-public class WhileStatementNode extends StatementNode{
-    public final ExpressionNode condition;
+public final class WhileStatementNode extends StatementNode{
+    public ExpressionNode condition;
     public final BlockStatementNode body;
     
     public WhileStatementNode(ExpressionNode condition, BlockStatementNode body, int line, int column){
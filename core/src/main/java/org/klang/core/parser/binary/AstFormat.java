@@ -0,0 +1,80 @@
+package org.klang.core.parser.binary;
+
+import org.klang.core.lexer.TokenType;
+
+/**
+ * Layout of the binary {@code .kast} serialization of a
+ * {@link org.klang.core.parser.ast.ProgramNode}, written by {@link AstWriter}
+ * and read back by {@link AstReader}.
+ * <p>
+ * A file is, in order:
+ * </p>
+ * <ol>
+ * <li>the {@link #MAGIC} bytes and the {@link #VERSION} of the format, as an
+ * unsigned short;</li>
+ * <li>the number of {@link TokenType}s, as an unsigned byte, so that tokens
+ * written by a compiler with other token types are never read;</li>
+ * <li>the <em>stamp</em>: a length byte followed by bytes chosen by the writer
+ * (usually a hash of the source), which the reader must be given back;</li>
+ * <li>the string table: a count, then each string as a length and its UTF-8
+ * bytes;</li>
+ * <li>the top-level statements: a count, then each node.</li>
+ * </ol>
+ * <p>
+ * Every count, length, index and column is a varint (7 bits per byte, least
+ * significant group first); a line is the zigzag varint of its difference from
+ * the line written before it, usually a single byte. A node is one of the tags
+ * below followed by its line, its column and its fields in declaration order; a
+ * token is its type ordinal plus one ({@code 0} for no token), the index of its
+ * value in the string table plus one ({@code 0} for a value implied by the
+ * type: none for keywords, the spelling for punctuation), its line and its
+ * column. Lists are a count followed by their elements. Literals end with
+ * their value: a zigzag varint for integers, the 8 bytes of the
+ * {@code double} for decimals.
+ * </p>
+ * <p>
+ * {@link #VERSION} must be bumped whenever the layout, the AST classes or what
+ * the parser produces for a given source change, since a {@code .kast} file
+ * stands in for parsing that source.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class AstFormat {
+
+    /** First bytes of every {@code .kast} file: {@code KAST}. */
+    public static final byte[] MAGIC = { 'K', 'A', 'S', 'T' };
+
+    /** Version of the layout and of the parser output. */
+    public static final int VERSION = 1;
+
+    /** Longest stamp a file can carry. */
+    public static final int MAX_STAMP_LENGTH = 255;
+
+    // Node tags
+
+    static final byte NULL = 0;
+    static final byte FUNCTION = 1;
+    static final byte BLOCK = 2;
+    static final byte WHILE = 3;
+    static final byte DECISION = 4;
+    static final byte RETURN = 5;
+    static final byte VARIABLE_DECLARATION = 6;
+    static final byte CONSTANT_DECLARATION = 7;
+    static final byte ASSIGNMENT = 8;
+    static final byte EXPRESSION_STATEMENT = 9;
+    static final byte MODULE = 10;
+    static final byte IMPORT = 11;
+    static final byte BINARY = 12;
+    static final byte INDEX = 13;
+    static final byte LITERAL = 14;
+    static final byte VARIABLE = 15;
+    static final byte CALL = 16;
+    static final byte NEW_ARRAY = 17;
+
+    static final int TOKEN_TYPES = TokenType.values().length;
+
+    private AstFormat() {
+    }
+}
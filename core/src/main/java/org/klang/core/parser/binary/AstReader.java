@@ -0,0 +1,552 @@
+package org.klang.core.parser.binary;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenFactory;
+import org.klang.core.lexer.TokenType;
+import org.klang.core.parser.ast.AccessModifier;
+import org.klang.core.parser.ast.AssignmentStatementNode;
+import org.klang.core.parser.ast.AstNode;
+import org.klang.core.parser.ast.BinaryExpressionNode;
+import org.klang.core.parser.ast.BlockStatementNode;
+import org.klang.core.parser.ast.CallExpressionNode;
+import org.klang.core.parser.ast.ConstantDeclarationNode;
+import org.klang.core.parser.ast.DecisionStatementNode;
+import org.klang.core.parser.ast.ExpressionNode;
+import org.klang.core.parser.ast.ExpressionStatementNode;
+import org.klang.core.parser.ast.FunctionDeclarationNode;
+import org.klang.core.parser.ast.ImportDeclarationNode;
+import org.klang.core.parser.ast.IndexExpressionNode;
+import org.klang.core.parser.ast.LiteralExpressionNode;
+import org.klang.core.parser.ast.ModuleDeclarationNode;
+import org.klang.core.parser.ast.NewArrayExpressionNode;
+import org.klang.core.parser.ast.OtherwiseBranchNode;
+import org.klang.core.parser.ast.ParameterNode;
+import org.klang.core.parser.ast.ProgramNode;
+import org.klang.core.parser.ast.ReturnStatementNode;
+import org.klang.core.parser.ast.StatementNode;
+import org.klang.core.parser.ast.TypeReferenceNode;
+import org.klang.core.parser.ast.UseAnnotationNode;
+import org.klang.core.parser.ast.VariableDeclarationNode;
+import org.klang.core.parser.ast.VariableExpressionNode;
+import org.klang.core.parser.ast.WhileStatementNode;
+
+/**
+ * Rebuilds a {@link ProgramNode} from its {@link AstFormat} serialization.
+ * <p>
+ * The reader decodes straight from the buffer it is given, so a file mapped
+ * with {@link java.nio.channels.FileChannel#map} is read in place instead of
+ * being copied to the heap first. The tree read back is made of the same
+ * classes, positions and token values as the one written.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class AstReader {
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final AccessModifier[] ACCESS_MODIFIERS = AccessModifier.values();
+
+    private final ByteBuffer buffer;
+    private String[] strings;
+    private int line;
+
+    // Nodes being read: their tag, position, next child, child count and
+    // where their values start
+    private byte[] tags = new byte[64];
+    private int[] lines = new int[64];
+    private int[] columns = new int[64];
+    private int[] stages = new int[64];
+    private int[] counts = new int[64];
+    private int[] bases = new int[64];
+    private int depth;
+
+    private Object[] values = new Object[256];
+    private int valueCount;
+
+    private AstReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @param buffer The {@code .kast} bytes, from its position to its limit.
+     *               The buffer itself is not moved.
+     * @param stamp  The stamp the file must have been written with.
+     * @return The program, or {@code null} when the file was written with another
+     *         stamp or by another version of the format.
+     * @throws IllegalArgumentException if the file is truncated or malformed.
+     */
+    public static ProgramNode read(ByteBuffer buffer, byte[] stamp) {
+        AstReader reader = new AstReader(buffer.slice());
+
+        try {
+            if (!reader.header(stamp)) {
+                return null;
+            }
+
+            return reader.program();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                | ClassCastException e) {
+            throw new IllegalArgumentException("Malformed .kast file", e);
+        }
+    }
+
+    private boolean header(byte[] stamp) {
+        if (buffer.remaining() < AstFormat.MAGIC.length + 4) {
+            return false;
+        }
+
+        for (byte b : AstFormat.MAGIC) {
+            if (buffer.get() != b) {
+                return false;
+            }
+        }
+
+        int version = (u8() << 8) | u8();
+
+        if (version != AstFormat.VERSION || u8() != AstFormat.TOKEN_TYPES) {
+            return false;
+        }
+
+        byte[] written = new byte[u8()];
+        buffer.get(written);
+
+        return Arrays.equals(written, stamp);
+    }
+
+    private ProgramNode program() {
+        int count = varint();
+
+        if (count < 0 || count > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        strings = new String[count];
+
+        for (int i = 0; i < strings.length; i++) {
+            int length = varint();
+            strings[i] = decode(length);
+        }
+
+        List<StatementNode> statements = nodes(StatementNode.class);
+
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("Malformed .kast file: " + buffer.remaining() + " trailing bytes");
+        }
+
+        return new ProgramNode(statements);
+    }
+
+    // Nodes
+
+    private <T extends AstNode> List<T> nodes(Class<T> type) {
+        int count = varint();
+        List<T> nodes = new ArrayList<>(capacity(count));
+
+        for (int i = 0; i < count; i++) {
+            nodes.add(type.cast(node()));
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Reads one node and everything under it. The nodes being read are kept
+     * on an explicit stack of frames rather than on the call stack, so trees
+     * may be nested as deeply as memory allows. What a frame has read so far
+     * (its children and the tokens between them) waits on a stack of values
+     * until the node is built.
+     */
+    private AstNode node() {
+        int bottom = depth;
+        open();
+
+        while (depth > bottom) {
+            step(depth - 1);
+        }
+
+        return (AstNode) values[--valueCount];
+    }
+
+    /**
+     * Reads a node's tag and position. A null node or a leaf is pushed as a
+     * value straight away; any other node opens a frame, stepped next.
+     */
+    private void open() {
+        byte tag = buffer.get();
+
+        if (tag == AstFormat.NULL) {
+            value(null);
+            return;
+        }
+
+        int line = line();
+        int column = varint();
+
+        switch (tag) {
+            case AstFormat.LITERAL -> value(literal(line, column));
+            case AstFormat.VARIABLE -> value(new VariableExpressionNode(token(), line, column));
+            case AstFormat.MODULE -> value(new ModuleDeclarationNode(token(), line, column));
+            case AstFormat.IMPORT -> {
+                int count = varint();
+                List<Token> path = new ArrayList<>(capacity(count));
+                for (int i = 0; i < count; i++) {
+                    path.add(token());
+                }
+                value(new ImportDeclarationNode(path, line, column));
+            }
+            case AstFormat.BINARY, AstFormat.CALL, AstFormat.BLOCK, AstFormat.EXPRESSION_STATEMENT,
+                    AstFormat.VARIABLE_DECLARATION, AstFormat.ASSIGNMENT, AstFormat.INDEX, AstFormat.RETURN,
+                    AstFormat.WHILE, AstFormat.DECISION, AstFormat.FUNCTION, AstFormat.CONSTANT_DECLARATION,
+                    AstFormat.NEW_ARRAY -> frame(tag, line, column);
+            default -> throw new IllegalArgumentException("Malformed .kast file: unknown node tag " + tag);
+        }
+    }
+
+    private LiteralExpressionNode literal(int line, int column) {
+        Token value = token();
+        if (value == null) {
+            throw new IllegalArgumentException("Malformed .kast file: literal without a token");
+        }
+        if (value.type == TokenType.INTEGER_LITERAL) {
+            long integer = varlong();
+            return new LiteralExpressionNode(value, (integer >>> 1) ^ -(integer & 1), line, column);
+        }
+        if (value.type == TokenType.DOUBLE_LITERAL) {
+            return new LiteralExpressionNode(value, Double.longBitsToDouble(buffer.getLong()), line, column);
+        }
+        return new LiteralExpressionNode(value, line, column);
+    }
+
+    /**
+     * Reads what the node in {@code frame} has before its next child and opens
+     * that child, or builds the node from its values once all are read.
+     */
+    private void step(int frame) {
+        int stage = stages[frame]++;
+        int base = bases[frame];
+
+        switch (tags[frame]) {
+            case AstFormat.BINARY -> {
+                if (stage == 0) {
+                    open();
+                } else if (stage == 1) {
+                    value(token());
+                    open();
+                } else {
+                    close(new BinaryExpressionNode((ExpressionNode) values[base], (Token) values[base + 1],
+                            (ExpressionNode) values[base + 2], lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.CALL -> {
+                if (stage == 0) {
+                    value(token());
+                    counts[frame] = varint();
+                }
+                if (stage < counts[frame]) {
+                    open();
+                } else {
+                    close(new CallExpressionNode((Token) values[base], list(base + 1, ExpressionNode.class),
+                            lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.BLOCK -> {
+                if (stage == 0) {
+                    counts[frame] = varint();
+                }
+                if (stage < counts[frame]) {
+                    open();
+                } else {
+                    close(new BlockStatementNode(list(base, StatementNode.class), lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.EXPRESSION_STATEMENT -> {
+                if (stage == 0) {
+                    open();
+                } else {
+                    close(new ExpressionStatementNode((ExpressionNode) values[base], lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.VARIABLE_DECLARATION -> {
+                if (stage == 0) {
+                    value(type());
+                    value(token());
+                    open();
+                } else {
+                    close(new VariableDeclarationNode((TypeReferenceNode) values[base], (Token) values[base + 1],
+                            (ExpressionNode) values[base + 2], lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.ASSIGNMENT -> {
+                if (stage < 2) {
+                    open();
+                } else {
+                    close(new AssignmentStatementNode((ExpressionNode) values[base],
+                            (ExpressionNode) values[base + 1], lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.INDEX -> {
+                if (stage < 2) {
+                    open();
+                } else {
+                    close(new IndexExpressionNode((ExpressionNode) values[base], (ExpressionNode) values[base + 1],
+                            lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.RETURN -> {
+                if (stage == 0) {
+                    open();
+                } else {
+                    close(new ReturnStatementNode((ExpressionNode) values[base], lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.WHILE -> {
+                if (stage < 2) {
+                    open();
+                } else {
+                    close(new WhileStatementNode((ExpressionNode) values[base], (BlockStatementNode) values[base + 1],
+                            lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.DECISION -> decision(frame, stage, base);
+            case AstFormat.FUNCTION -> {
+                if (stage == 0) {
+                    value(u8() == 0 ? null : new UseAnnotationNode(token()));
+                    value(ACCESS_MODIFIERS[varint()]);
+                    value(type());
+                    value(token());
+                    int count = varint();
+                    List<ParameterNode> parameters = new ArrayList<>(capacity(count));
+                    for (int i = 0; i < count; i++) {
+                        TypeReferenceNode type = type();
+                        parameters.add(new ParameterNode(type, token()));
+                    }
+                    value(parameters);
+                    open();
+                } else {
+                    @SuppressWarnings("unchecked")
+                    List<ParameterNode> parameters = (List<ParameterNode>) values[base + 4];
+                    close(new FunctionDeclarationNode((AccessModifier) values[base + 1],
+                            (TypeReferenceNode) values[base + 2], (Token) values[base + 3], parameters,
+                            (BlockStatementNode) values[base + 5], (UseAnnotationNode) values[base],
+                            lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.CONSTANT_DECLARATION -> {
+                if (stage == 0) {
+                    value(type());
+                    value(token());
+                    open();
+                } else {
+                    close(new ConstantDeclarationNode((Token) values[base + 1], (TypeReferenceNode) values[base],
+                            (ExpressionNode) values[base + 2], lines[frame], columns[frame]));
+                }
+            }
+            case AstFormat.NEW_ARRAY -> {
+                if (stage == 0) {
+                    value(type());
+                    open();
+                    return;
+                }
+                if (stage == 1) {
+                    // -1: no initializer
+                    counts[frame] = u8() == 0 ? -1 : varint();
+                }
+                if (stage <= counts[frame]) {
+                    open();
+                } else {
+                    close(new NewArrayExpressionNode((TypeReferenceNode) values[base],
+                            (ExpressionNode) values[base + 1],
+                            counts[frame] < 0 ? null : list(base + 2, ExpressionNode.class),
+                            lines[frame], columns[frame]));
+                }
+            }
+            default -> throw new IllegalStateException("Unknown frame tag " + tags[frame]);
+        }
+    }
+
+    // The condition and if block, then each branch's condition, reason and
+    // body, then the afterall block
+    private void decision(int frame, int stage, int base) {
+        if (stage < 2) {
+            open();
+            return;
+        }
+        if (stage == 2) {
+            counts[frame] = varint();
+        }
+
+        int count = counts[frame];
+        int branch = (stage - 2) >> 1;
+
+        if (branch < count) {
+            if ((stage & 1) != 0) {
+                value(string());
+            }
+            open();
+            return;
+        }
+        if (branch == count && (stage & 1) == 0) {
+            open();
+            return;
+        }
+
+        List<OtherwiseBranchNode> branches = new ArrayList<>(count);
+        for (int i = 0, at = base + 2; i < count; i++, at += 3) {
+            branches.add(new OtherwiseBranchNode((ExpressionNode) values[at], (String) values[at + 1],
+                    (BlockStatementNode) values[at + 2]));
+        }
+
+        close(new DecisionStatementNode((ExpressionNode) values[base], (BlockStatementNode) values[base + 1],
+                branches, (BlockStatementNode) values[base + 2 + 3 * count], lines[frame], columns[frame]));
+    }
+
+    private void frame(byte tag, int line, int column) {
+        if (depth == tags.length) {
+            int length = depth * 2;
+            tags = Arrays.copyOf(tags, length);
+            lines = Arrays.copyOf(lines, length);
+            columns = Arrays.copyOf(columns, length);
+            stages = Arrays.copyOf(stages, length);
+            counts = Arrays.copyOf(counts, length);
+            bases = Arrays.copyOf(bases, length);
+        }
+
+        tags[depth] = tag;
+        lines[depth] = line;
+        columns[depth] = column;
+        stages[depth] = 0;
+        counts[depth] = 0;
+        bases[depth++] = valueCount;
+    }
+
+    // Replaces the values of the top frame with the node built from them
+    private void close(AstNode node) {
+        valueCount = bases[--depth];
+        value(node);
+    }
+
+    private void value(Object value) {
+        if (valueCount == values.length) {
+            values = Arrays.copyOf(values, valueCount * 2);
+        }
+
+        values[valueCount++] = value;
+    }
+
+    private <T extends AstNode> List<T> list(int from, Class<T> type) {
+        List<T> nodes = new ArrayList<>(valueCount - from);
+
+        for (int i = from; i < valueCount; i++) {
+            nodes.add(type.cast(values[i]));
+        }
+
+        return nodes;
+    }
+
+    // A corrupt count must not allocate more than the file could hold
+    private int capacity(int count) {
+        return Math.max(0, Math.min(count, buffer.remaining()));
+    }
+
+    private TypeReferenceNode type() {
+        if (u8() == 0) {
+            return null;
+        }
+
+        Token baseType = token();
+        return new TypeReferenceNode(baseType, varint());
+    }
+
+    private Token token() {
+        int type = varint();
+
+        if (type == 0) {
+            return null;
+        }
+
+        TokenType tokenType = TOKEN_TYPES[type - 1];
+        String value = string();
+        int line = line();
+        int column = varint();
+
+        if (value == null) {
+            value = TokenFactory.spelling(tokenType);
+        }
+
+        return value == null
+                ? new Token(tokenType, line, column)
+                : new Token(tokenType, value, line, column);
+    }
+
+    // Lines are written as the zigzag difference from the previous one
+    private int line() {
+        int delta = varint();
+        line += (delta >>> 1) ^ -(delta & 1);
+        return line;
+    }
+
+    private String string() {
+        int index = varint();
+        return index == 0 ? null : strings[index - 1];
+    }
+
+    // Bytes
+
+    private int varint() {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed .kast file: varint longer than 5 bytes");
+    }
+
+    private long varlong() {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            long b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed .kast file: varint longer than 10 bytes");
+    }
+
+    private int u8() {
+        return buffer.get() & 0xFF;
+    }
+
+    private String decode(int length) {
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset() + buffer.position();
+            buffer.position(buffer.position() + length);
+            return new String(buffer.array(), offset, length, StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,458 @@
+package org.klang.core.parser.binary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenFactory;
+import org.klang.core.lexer.TokenType;
+import org.klang.core.parser.ast.AssignmentStatementNode;
+import org.klang.core.parser.ast.AstNode;
+import org.klang.core.parser.ast.BinaryExpressionNode;
+import org.klang.core.parser.ast.BlockStatementNode;
+import org.klang.core.parser.ast.CallExpressionNode;
+import org.klang.core.parser.ast.ConstantDeclarationNode;
+import org.klang.core.parser.ast.DecisionStatementNode;
+import org.klang.core.parser.ast.ExpressionStatementNode;
+import org.klang.core.parser.ast.FunctionDeclarationNode;
+import org.klang.core.parser.ast.ImportDeclarationNode;
+import org.klang.core.parser.ast.IndexExpressionNode;
+import org.klang.core.parser.ast.LiteralExpressionNode;
+import org.klang.core.parser.ast.ModuleDeclarationNode;
+import org.klang.core.parser.ast.NewArrayExpressionNode;
+import org.klang.core.parser.ast.OtherwiseBranchNode;
+import org.klang.core.parser.ast.ParameterNode;
+import org.klang.core.parser.ast.ProgramNode;
+import org.klang.core.parser.ast.ReturnStatementNode;
+import org.klang.core.parser.ast.TypeReferenceNode;
+import org.klang.core.parser.ast.UseAnnotationNode;
+import org.klang.core.parser.ast.VariableDeclarationNode;
+import org.klang.core.parser.ast.VariableExpressionNode;
+import org.klang.core.parser.ast.WhileStatementNode;
+
+/**
+ * Serializes a {@link ProgramNode} in the {@link AstFormat} layout.
+ * <p>
+ * Every string (identifiers, literals, {@code because} reasons) is written
+ * once to the string table and referenced by index from the nodes.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class AstWriter {
+
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    private byte[] body = new byte[4096];
+    private int size;
+    private int line;
+
+    // Nodes being written, and the child each will write next
+    private AstNode[] stack = new AstNode[64];
+    private int[] stages = new int[64];
+    private int depth;
+
+    private AstWriter() {
+    }
+
+    /**
+     * @param program The program to serialize.
+     * @param stamp   Bytes identifying what the program was parsed from (at most
+     *                {@link AstFormat#MAX_STAMP_LENGTH}); {@link AstReader}
+     *                only reads the file back when given the same stamp.
+     * @return The {@code .kast} bytes.
+     */
+    public static byte[] write(ProgramNode program, byte[] stamp) {
+        if (stamp.length > AstFormat.MAX_STAMP_LENGTH) {
+            throw new IllegalArgumentException("Stamp of " + stamp.length + " bytes is longer than "
+                    + AstFormat.MAX_STAMP_LENGTH);
+        }
+
+        AstWriter writer = new AstWriter();
+        writer.nodes(program.statements);
+
+        return writer.assemble(stamp);
+    }
+
+    private byte[] assemble(byte[] stamp) {
+        byte[] nodes = Arrays.copyOf(body, size);
+        body = new byte[Math.max(64, nodes.length / 4)];
+        size = 0;
+
+        for (byte b : AstFormat.MAGIC) {
+            put(b);
+        }
+        put(AstFormat.VERSION >>> 8);
+        put(AstFormat.VERSION);
+        put(AstFormat.TOKEN_TYPES);
+        put(stamp.length);
+        bytes(stamp);
+
+        varint(strings.size());
+        for (String string : strings) {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            bytes(utf8);
+        }
+
+        bytes(nodes);
+        return Arrays.copyOf(body, size);
+    }
+
+    // Nodes
+
+    private void nodes(List<? extends AstNode> nodes) {
+        varint(nodes.size());
+
+        for (AstNode node : nodes) {
+            node(node);
+        }
+    }
+
+    /**
+     * Writes {@code root} and everything under it. The nodes being written are
+     * kept on an explicit stack rather than on the call stack, so trees may be
+     * nested as deeply as memory allows.
+     */
+    private void node(AstNode root) {
+        int bottom = depth;
+        visit(root);
+
+        while (depth > bottom) {
+            int top = depth - 1;
+
+            if (!step(stack[top], stages[top]++)) {
+                stack[--depth] = null;
+            }
+        }
+    }
+
+    // A null child is written in place; any other is pushed, to be stepped next
+    private void visit(AstNode node) {
+        if (node == null) {
+            put(AstFormat.NULL);
+            return;
+        }
+
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+            stages = Arrays.copyOf(stages, depth * 2);
+        }
+
+        stack[depth] = node;
+        stages[depth++] = 0;
+    }
+
+    /**
+     * Writes the part of {@code node} that comes before its child number
+     * {@code stage} and visits that child.
+     *
+     * @return {@code false} once the node has no child left to write.
+     */
+    private boolean step(AstNode node, int stage) {
+        return switch (node) {
+            case LiteralExpressionNode literal -> {
+                header(AstFormat.LITERAL, node);
+                token(literal.value);
+                if (literal.value.type == TokenType.INTEGER_LITERAL) {
+                    varlong((literal.integerValue << 1) ^ (literal.integerValue >> 63));
+                } else if (literal.value.type == TokenType.DOUBLE_LITERAL) {
+                    fixed64(Double.doubleToRawLongBits(literal.doubleValue));
+                }
+                yield false;
+            }
+            case VariableExpressionNode variable -> {
+                header(AstFormat.VARIABLE, node);
+                token(variable.name);
+                yield false;
+            }
+            case BinaryExpressionNode binary -> {
+                if (stage == 0) {
+                    header(AstFormat.BINARY, node);
+                    visit(binary.left);
+                } else if (stage == 1) {
+                    token(binary.operator);
+                    visit(binary.right);
+                }
+                yield stage < 2;
+            }
+            case CallExpressionNode call -> {
+                if (stage == 0) {
+                    header(AstFormat.CALL, node);
+                    token(call.callee);
+                    varint(call.arguments.size());
+                }
+                yield element(call.arguments, stage);
+            }
+            case BlockStatementNode block -> {
+                if (stage == 0) {
+                    header(AstFormat.BLOCK, node);
+                    varint(block.statements.size());
+                }
+                yield element(block.statements, stage);
+            }
+            case ExpressionStatementNode statement -> {
+                if (stage == 0) {
+                    header(AstFormat.EXPRESSION_STATEMENT, node);
+                    visit(statement.expression);
+                }
+                yield stage < 1;
+            }
+            case VariableDeclarationNode declaration -> {
+                if (stage == 0) {
+                    header(AstFormat.VARIABLE_DECLARATION, node);
+                    type(declaration.type);
+                    token(declaration.name);
+                    visit(declaration.value);
+                }
+                yield stage < 1;
+            }
+            case AssignmentStatementNode assignment -> {
+                if (stage == 0) {
+                    header(AstFormat.ASSIGNMENT, node);
+                    visit(assignment.name);
+                } else if (stage == 1) {
+                    visit(assignment.value);
+                }
+                yield stage < 2;
+            }
+            case IndexExpressionNode index -> {
+                if (stage == 0) {
+                    header(AstFormat.INDEX, node);
+                    visit(index.target);
+                } else if (stage == 1) {
+                    visit(index.index);
+                }
+                yield stage < 2;
+            }
+            case ReturnStatementNode ret -> {
+                if (stage == 0) {
+                    header(AstFormat.RETURN, node);
+                    visit(ret.value);
+                }
+                yield stage < 1;
+            }
+            case WhileStatementNode loop -> {
+                if (stage == 0) {
+                    header(AstFormat.WHILE, node);
+                    visit(loop.condition);
+                } else if (stage == 1) {
+                    visit(loop.body);
+                }
+                yield stage < 2;
+            }
+            case DecisionStatementNode decision -> decision(decision, stage);
+            case FunctionDeclarationNode function -> {
+                if (stage == 0) {
+                    header(AstFormat.FUNCTION, node);
+                    use(function.use);
+                    varint(function.access.ordinal());
+                    type(function.returnType);
+                    token(function.name);
+                    varint(function.parameters.size());
+                    for (ParameterNode parameter : function.parameters) {
+                        type(parameter.type);
+                        token(parameter.name);
+                    }
+                    visit(function.body);
+                }
+                yield stage < 1;
+            }
+            case ConstantDeclarationNode constant -> {
+                if (stage == 0) {
+                    header(AstFormat.CONSTANT_DECLARATION, node);
+                    type(constant.type);
+                    token(constant.name);
+                    visit(constant.value);
+                }
+                yield stage < 1;
+            }
+            case NewArrayExpressionNode array -> {
+                if (stage == 0) {
+                    header(AstFormat.NEW_ARRAY, node);
+                    type(array.type);
+                    visit(array.size);
+                    yield true;
+                }
+                if (array.initializer == null) {
+                    put(0);
+                    yield false;
+                }
+                if (stage == 1) {
+                    put(1);
+                    varint(array.initializer.size());
+                }
+                yield element(array.initializer, stage - 1);
+            }
+            case ModuleDeclarationNode module -> {
+                header(AstFormat.MODULE, node);
+                token(module.getName());
+                yield false;
+            }
+            case ImportDeclarationNode declaration -> {
+                header(AstFormat.IMPORT, node);
+                varint(declaration.path.size());
+                for (Token segment : declaration.path) {
+                    token(segment);
+                }
+                yield false;
+            }
+        };
+    }
+
+    // The condition and if block, then each branch's condition, reason and
+    // body, then the afterall block
+    private boolean decision(DecisionStatementNode decision, int stage) {
+        int count = decision.otherwiseBranches.size();
+
+        if (stage == 0) {
+            header(AstFormat.DECISION, decision);
+            visit(decision.condition);
+            return true;
+        }
+        if (stage == 1) {
+            visit(decision.ifBlock);
+            return true;
+        }
+        if (stage == 2) {
+            varint(count);
+        }
+
+        int branch = (stage - 2) >> 1;
+
+        if (branch < count) {
+            OtherwiseBranchNode otherwise = decision.otherwiseBranches.get(branch);
+
+            if ((stage & 1) == 0) {
+                visit(otherwise.condition);
+            } else {
+                string(otherwise.reason);
+                visit(otherwise.body);
+            }
+            return true;
+        }
+        if (branch == count && (stage & 1) == 0) {
+            visit(decision.afterallBlock);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean element(List<? extends AstNode> nodes, int index) {
+        if (index < nodes.size()) {
+            visit(nodes.get(index));
+            return true;
+        }
+        return false;
+    }
+
+    private void header(byte tag, AstNode node) {
+        put(tag);
+        position(node.line, node.column);
+    }
+
+    private void use(UseAnnotationNode use) {
+        if (use == null) {
+            put(0);
+        } else {
+            put(1);
+            token(use.target);
+        }
+    }
+
+    private void type(TypeReferenceNode type) {
+        if (type == null) {
+            put(0);
+        } else {
+            put(1);
+            token(type.baseType);
+            varint(type.arrayDepth);
+        }
+    }
+
+    private void token(Token token) {
+        if (token == null) {
+            varint(0);
+            return;
+        }
+
+        varint(token.type.ordinal() + 1);
+        // Keywords have no value (reported as ""), punctuation its spelling
+        String value = token.getValue();
+        string(value.isEmpty() || value.equals(TokenFactory.spelling(token.type)) ? null : value);
+        position(token.line, token.column);
+    }
+
+    private void position(int line, int column) {
+        int delta = line - this.line;
+        varint((delta << 1) ^ (delta >> 31));
+        varint(column);
+        this.line = line;
+    }
+
+    private void string(String string) {
+        if (string == null) {
+            varint(0);
+            return;
+        }
+
+        Integer index = stringIndexes.get(string);
+
+        if (index == null) {
+            index = strings.size();
+            stringIndexes.put(string, index);
+            strings.add(string);
+        }
+
+        varint(index + 1);
+    }
+
+    // Bytes
+
+    private void varint(int value) {
+        while ((value & ~0x7F) != 0) {
+            put((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        put(value);
+    }
+
+    private void varlong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            put((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        put((int) value);
+    }
+
+    private void fixed64(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            put((int) (value >>> shift));
+        }
+    }
+
+    private void bytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, body, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private void put(int b) {
+        ensure(1);
+        body[size++] = (byte) b;
+    }
+
+    private void ensure(int count) {
+        if (size + count > body.length) {
+            body = Arrays.copyOf(body, Math.max(size + count, body.length * 2));
+        }
+    }
+}
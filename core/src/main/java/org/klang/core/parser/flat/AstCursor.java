@@ -0,0 +1,168 @@
+package org.klang.core.parser.flat;
+
+import java.util.Arrays;
+
+import org.klang.core.lexer.TokenType;
+import org.klang.core.parser.ast.AccessModifier;
+
+/**
+ * Walks a {@link FlatAst} without allocating per node.
+ * <p>
+ * The cursor sits on one node at a time and moves to its first child, next
+ * sibling or parent; the typed accessors read the current node and fail with
+ * {@link IllegalStateException} when it is of the wrong {@link NodeKind}. The
+ * path back to the root is kept in a small int stack.
+ * </p>
+ *
+ * <pre>{@code
+ * AstCursor cursor = ast.cursor();
+ * if (cursor.toFirstChild()) {
+ *     do {
+ *         if (cursor.kind() == NodeKind.FUNCTION) {
+ *             System.out.println(cursor.name());
+ *         }
+ *     } while (cursor.toNextSibling());
+ * }
+ * }</pre>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class AstCursor {
+
+    private final FlatAst ast;
+
+    private int node;
+    private int[] parents = new int[16];
+    private int depth;
+
+    AstCursor(FlatAst ast) {
+        this.ast = ast;
+        this.node = ast.root();
+    }
+
+    /**
+     * @return The index of the current node.
+     */
+    public int node() {
+        return node;
+    }
+
+    /**
+     * @return How many parents the current node has.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Moves to the first child of the current node.
+     *
+     * @return {@code false} (without moving) when there is none.
+     */
+    public boolean toFirstChild() {
+        int child = ast.firstChild(node);
+
+        if (child == FlatAst.NONE) {
+            return false;
+        }
+
+        if (depth == parents.length) {
+            parents = Arrays.copyOf(parents, depth * 2);
+        }
+
+        parents[depth++] = node;
+        node = child;
+        return true;
+    }
+
+    /**
+     * Moves to the next sibling of the current node.
+     *
+     * @return {@code false} (without moving) when there is none.
+     */
+    public boolean toNextSibling() {
+        if (depth == 0) {
+            return false;
+        }
+
+        int sibling = ast.nextSibling(node);
+
+        if (sibling == FlatAst.NONE) {
+            return false;
+        }
+
+        node = sibling;
+        return true;
+    }
+
+    /**
+     * Moves to the parent of the current node.
+     *
+     * @return {@code false} (without moving) at the root.
+     */
+    public boolean toParent() {
+        if (depth == 0) {
+            return false;
+        }
+
+        node = parents[--depth];
+        return true;
+    }
+
+    public NodeKind kind() {
+        return ast.kind(node);
+    }
+
+    public int line() {
+        return ast.line(node);
+    }
+
+    public int column() {
+        return ast.column(node);
+    }
+
+    public int childCount() {
+        return ast.childCount(node);
+    }
+
+    /** @see FlatAst#name(int) */
+    public String name() {
+        return ast.name(node);
+    }
+
+    /** @see FlatAst#operator(int) */
+    public TokenType operator() {
+        return ast.operator(node);
+    }
+
+    /** @see FlatAst#literalType(int) */
+    public TokenType literalType() {
+        return ast.literalType(node);
+    }
+
+    /** @see FlatAst#integerValue(int) */
+    public long integerValue() {
+        return ast.integerValue(node);
+    }
+
+    /** @see FlatAst#doubleValue(int) */
+    public double doubleValue() {
+        return ast.doubleValue(node);
+    }
+
+    /** @see FlatAst#arrayDepth(int) */
+    public int arrayDepth() {
+        return ast.arrayDepth(node);
+    }
+
+    /** @see FlatAst#access(int) */
+    public AccessModifier access() {
+        return ast.access(node);
+    }
+
+    /** @see FlatAst#reason(int) */
+    public String reason() {
+        return ast.reason(node);
+    }
+}
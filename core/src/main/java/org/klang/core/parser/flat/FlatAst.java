@@ -0,0 +1,311 @@
+package org.klang.core.parser.flat;
+
+import java.util.Arrays;
+
+import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenStream;
+import org.klang.core.lexer.TokenType;
+import org.klang.core.parser.ast.AccessModifier;
+
+/**
+ * Compact, array-backed Abstract Syntax Tree produced by {@link FlatParser}.
+ * <p>
+ * Like the {@link TokenStream} it points into, the tree keeps its data in
+ * parallel primitive arrays instead of one object per node: the
+ * {@link NodeKind}, the index of the node's position token, its first child,
+ * its next sibling and one kind-specific {@code extra} value. A node is just an
+ * {@code int} index, names and literal values are read from the tokens, and a
+ * program of any size is a handful of arrays.
+ * </p>
+ * <p>
+ * Nodes are stored in postorder: children come before their parent and the
+ * {@link #root()} is the last node. A plain loop from {@code 0} to
+ * {@link #size()} therefore visits every node bottom-up, as a linear scan over
+ * the arrays. Structured walks go through an {@link AstCursor}.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class FlatAst {
+
+    /** Marks a missing node or token. */
+    public static final int NONE = -1;
+
+    private static final NodeKind[] KINDS = NodeKind.values();
+    private static final AccessModifier[] ACCESS_MODIFIERS = AccessModifier.values();
+
+    private final TokenStream tokens;
+
+    private byte[] kinds;
+    private int[] positions;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] extras;
+
+    private int size;
+    private int root = NONE;
+
+    FlatAst(TokenStream tokens, int expectedNodes) {
+        this.tokens = tokens;
+
+        int capacity = Math.max(16, expectedNodes);
+
+        this.kinds = new byte[capacity];
+        this.positions = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.nextSiblings = new int[capacity];
+        this.extras = new int[capacity];
+    }
+
+    /**
+     * Appends a node whose children (already appended) start at
+     * {@code firstChild}.
+     *
+     * @return The index of the new node.
+     */
+    int add(NodeKind kind, int token, int extra, int firstChild) {
+        if (size == kinds.length) {
+            grow();
+        }
+
+        kinds[size] = (byte) kind.ordinal();
+        positions[size] = token;
+        firstChildren[size] = firstChild;
+        nextSiblings[size] = NONE;
+        extras[size] = extra;
+
+        return size++;
+    }
+
+    void setNextSibling(int node, int sibling) {
+        nextSiblings[node] = sibling;
+    }
+
+    void setRoot(int node) {
+        this.root = node;
+    }
+
+    private void grow() {
+        int capacity = kinds.length + (kinds.length >> 1) + 1;
+
+        kinds = Arrays.copyOf(kinds, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        extras = Arrays.copyOf(extras, capacity);
+    }
+
+    /**
+     * Releases the unused tail of the backing arrays.
+     */
+    void trimToSize() {
+        if (size == kinds.length) {
+            return;
+        }
+
+        kinds = Arrays.copyOf(kinds, size);
+        positions = Arrays.copyOf(positions, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        extras = Arrays.copyOf(extras, size);
+    }
+
+    /**
+     * @return The tokens the tree points into.
+     */
+    public TokenStream tokens() {
+        return tokens;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The {@link NodeKind#PROGRAM} node.
+     */
+    public int root() {
+        return root;
+    }
+
+    /**
+     * @return A cursor positioned at the root.
+     */
+    public AstCursor cursor() {
+        return new AstCursor(this);
+    }
+
+    public NodeKind kind(int node) {
+        return KINDS[kinds[checkNode(node)]];
+    }
+
+    /**
+     * @return The index of the position token of the node, or {@link #NONE}
+     *         for the program.
+     */
+    public int token(int node) {
+        return positions[checkNode(node)];
+    }
+
+    public int firstChild(int node) {
+        return firstChildren[checkNode(node)];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[checkNode(node)];
+    }
+
+    /**
+     * @return The kind-specific value described on each {@link NodeKind}.
+     */
+    public int extra(int node) {
+        return extras[checkNode(node)];
+    }
+
+    public int childCount(int node) {
+        int count = 0;
+
+        for (int child = firstChild(node); child != NONE; child = nextSiblings[child]) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The child at {@code index}, or {@link #NONE}.
+     */
+    public int child(int node, int index) {
+        int child = firstChild(node);
+
+        for (int i = 0; i < index && child != NONE; i++) {
+            child = nextSiblings[child];
+        }
+
+        return child;
+    }
+
+    /**
+     * @return The line the object AST reports for the node.
+     */
+    public int line(int node) {
+        return tokens.line(positionToken(node));
+    }
+
+    /**
+     * @return The column the object AST reports for the node.
+     */
+    public int column(int node) {
+        return tokens.column(positionToken(node));
+    }
+
+    /**
+     * @return The index of the token naming the node (functions, parameters,
+     *         variables, calls, declarations and modules).
+     */
+    public int nameToken(int node) {
+        return switch (kind(node)) {
+            case FUNCTION, MODULE -> positions[node] + 1;
+            case VARIABLE_DECLARATION, CONSTANT_DECLARATION -> extras[node];
+            case PARAMETER, VARIABLE, CALL, ASSIGNMENT -> positions[node];
+            default -> throw wrongKind(node, "a name");
+        };
+    }
+
+    public String name(int node) {
+        return tokens.value(nameToken(node));
+    }
+
+    /**
+     * @return The operator of a {@link NodeKind#BINARY} node.
+     */
+    public TokenType operator(int node) {
+        expect(node, NodeKind.BINARY);
+        return tokens.type(positions[node]);
+    }
+
+    /**
+     * @return The type of the literal token of a {@link NodeKind#LITERAL} node.
+     */
+    public TokenType literalType(int node) {
+        expect(node, NodeKind.LITERAL);
+        return tokens.type(positions[node]);
+    }
+
+    /**
+     * @return The value parsed by the lexer for an integer literal.
+     */
+    public long integerValue(int node) {
+        expect(node, NodeKind.LITERAL);
+        return tokens.integerValue(positions[node]);
+    }
+
+    /**
+     * @return The value parsed by the lexer for a decimal literal.
+     */
+    public double doubleValue(int node) {
+        expect(node, NodeKind.LITERAL);
+        return tokens.doubleValue(positions[node]);
+    }
+
+    /**
+     * @return The array depth of a {@link NodeKind#TYPE} node.
+     */
+    public int arrayDepth(int node) {
+        expect(node, NodeKind.TYPE);
+        return extras[node];
+    }
+
+    /**
+     * @return The access modifier of a {@link NodeKind#FUNCTION} node.
+     */
+    public AccessModifier access(int node) {
+        expect(node, NodeKind.FUNCTION);
+        return ACCESS_MODIFIERS[extras[node]];
+    }
+
+    /**
+     * @return The {@code because} reason (with its quotes) of a
+     *         {@link NodeKind#OTHERWISE} node, or {@code null}.
+     */
+    public String reason(int node) {
+        expect(node, NodeKind.OTHERWISE);
+        return extras[node] == NONE ? null : tokens.value(extras[node]);
+    }
+
+    /**
+     * Materializes the position token of the node, for diagnostics.
+     */
+    public Token positionTokenOf(int node) {
+        return tokens.token(positionToken(node));
+    }
+
+    private int positionToken(int node) {
+        int token = token(node);
+
+        if (token == NONE) {
+            throw wrongKind(node, "a position");
+        }
+
+        return token;
+    }
+
+    private void expect(int node, NodeKind kind) {
+        if (kind(node) != kind) {
+            throw wrongKind(node, "a " + kind + " value");
+        }
+    }
+
+    private IllegalStateException wrongKind(int node, String what) {
+        return new IllegalStateException("Node " + node + " (" + kind(node) + ") has no " + what);
+    }
+
+    private int checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Node " + node + " out of bounds for length " + size);
+        }
+
+        return node;
+    }
+}
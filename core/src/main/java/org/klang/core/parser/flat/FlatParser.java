@@ -0,0 +1,611 @@
+package org.klang.core.parser.flat;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.klang.core.Heddle;
+import org.klang.core.lexer.TokenStream;
+import org.klang.core.lexer.TokenType;
+import org.klang.core.parser.Parser;
+import org.klang.core.parser.Precedence;
+import org.klang.core.parser.ast.AccessModifier;
+import org.klang.core.errors.SourceManager;
+
+/**
+ * Parses a {@link TokenStream} straight into a {@link FlatAst}, without
+ * creating node objects.
+ * <p>
+ * It follows the grammar of {@link Parser} decision by decision and produces
+ * the same tree, encoded as arrays. It only recognizes valid programs: at the
+ * first thing the {@link Parser} would reject, the whole input is handed to
+ * the {@link Parser}, which reports the error. Diagnostics are therefore
+ * exactly those of the regular parser.
+ * </p>
+ * <p>
+ * Every parse method pushes the node it builds on a pending stack; a parent
+ * takes the nodes pushed since it started as its children, which keeps the
+ * tree in postorder.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class FlatParser {
+
+    private final TokenStream tokens;
+    private final Path filePath;
+    private final SourceManager sourceManager;
+    private final FlatAst ast;
+
+    private int[] pending = new int[64];
+    private int pendingSize;
+
+    private int position = 0;
+    private int functionDepth = 0;
+    private int controlDepth = 0;
+
+    // Thrown at the first token the Parser would reject; no stack trace needed
+    private static final class Rejected extends RuntimeException {
+        Rejected() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final Rejected REJECTED = new Rejected();
+
+    public FlatParser(TokenStream tokens, Path path, SourceManager sourceManager) {
+        this.tokens = tokens;
+        this.filePath = path;
+        this.sourceManager = sourceManager;
+        this.ast = new FlatAst(tokens, tokens.size());
+    }
+
+    /**
+     * Parses the entire program.
+     *
+     * @return The flat tree, rooted at a {@link NodeKind#PROGRAM} node.
+     * @throws org.klang.core.errors.KException the diagnostic of the
+     *                                          {@link Parser} for invalid
+     *                                          programs.
+     */
+    public FlatAst parseProgram() {
+        try {
+            int mark = pendingSize;
+
+            while (!isAtEnd()) {
+                parseStatement();
+            }
+
+            ast.setRoot(node(NodeKind.PROGRAM, FlatAst.NONE, 0, mark));
+            ast.trimToSize();
+            return ast;
+        } catch (Rejected e) {
+            new Parser(tokens, filePath, sourceManager).parseProgram();
+
+            throw new IllegalStateException(
+                    "Flat parser rejected a valid program at token " + position + " of " + filePath);
+        }
+    }
+
+    // Statements
+
+    private void parseStatement() {
+        if (check(TokenType.AFTERALL)) {
+            throw REJECTED;
+        }
+
+        if (check(TokenType.MODULE)) {
+            parseModuleDeclaration();
+            return;
+        }
+        if (check(TokenType.IMPORT)) {
+            parseImportDeclaration();
+            return;
+        }
+
+        // Function declaration without access modifier
+        if (isType(currentType()) && peekType(1) == TokenType.IDENTIFIER && peekType(2) == TokenType.LPAREN) {
+            throw REJECTED;
+        }
+
+        int use = FlatAst.NONE;
+        if (check(TokenType.AT)) {
+            advance();
+            int name = expect(TokenType.IDENTIFIER);
+
+            if (!tokens.value(name).equals("Use")) {
+                throw REJECTED;
+            }
+
+            expect(TokenType.LPAREN);
+            use = expect(TokenType.STRING_LITERAL);
+
+            String target = tokens.value(use);
+            if (!target.substring(1, target.length() - 1).equals("java")) {
+                throw REJECTED;
+            }
+
+            expect(TokenType.RPAREN);
+        }
+
+        if (looksLikeFunctionDeclaration()) {
+            if (use == FlatAst.NONE) {
+                throw REJECTED;
+            }
+
+            parseFunctionDeclaration(use);
+            return;
+        }
+
+        if (check(TokenType.WHILE)) {
+            parseWhileStatement();
+            return;
+        }
+        if (check(TokenType.IF)) {
+            parseDecisionStatement();
+            return;
+        }
+        if (check(TokenType.LBRACE)) {
+            parseBlockStatement();
+            return;
+        }
+
+        if (check(TokenType.RETURN)) {
+            if (functionDepth == 0 || controlDepth > 0) {
+                throw REJECTED;
+            }
+
+            parseReturnStatement();
+            return;
+        }
+
+        if (check(TokenType.CONSTANT)) {
+            parseConstantDecl();
+            return;
+        }
+        if (isType(currentType())) {
+            parseValDecl();
+            return;
+        }
+
+        if (check(TokenType.IDENTIFIER) && peekType(1) == TokenType.ASSIGNMENT) {
+            parseAssignmentStatement();
+            return;
+        }
+
+        parseExpressionStatement();
+    }
+
+    private void parseModuleDeclaration() {
+        int mark = pendingSize;
+        int keyword = expect(TokenType.MODULE);
+        expect(TokenType.IDENTIFIER);
+        expect(TokenType.SEMICOLON);
+
+        node(NodeKind.MODULE, keyword, 0, mark);
+    }
+
+    private void parseImportDeclaration() {
+        int mark = pendingSize;
+        int keyword = expect(TokenType.IMPORT);
+        expect(TokenType.IDENTIFIER);
+
+        int segments = 1;
+        while (match(TokenType.DOT)) {
+            expect(TokenType.IDENTIFIER);
+            segments++;
+        }
+
+        expect(TokenType.SEMICOLON);
+
+        node(NodeKind.IMPORT, keyword, segments, mark);
+    }
+
+    private void parseFunctionDeclaration(int use) {
+        int mark = pendingSize;
+        node(NodeKind.USE, use, 0, pendingSize);
+
+        AccessModifier access = AccessModifier.INTERNAL;
+        if (match(TokenType.PUBLIC)) {
+            access = AccessModifier.PUBLIC;
+        } else if (match(TokenType.PROTECTED)) {
+            access = AccessModifier.PROTECTED;
+        } else if (match(TokenType.INTERNAL)) {
+            access = AccessModifier.INTERNAL;
+        }
+
+        int returnType = position;
+        if (!isType(currentType())) {
+            throw REJECTED;
+        }
+        advance();
+        node(NodeKind.TYPE, returnType, 0, pendingSize);
+
+        expect(TokenType.IDENTIFIER);
+        expect(TokenType.LPAREN);
+
+        if (!check(TokenType.RPAREN)) {
+            do {
+                int parameter = pendingSize;
+                int type = position;
+                if (!isType(currentType())) {
+                    throw REJECTED;
+                }
+                advance();
+                node(NodeKind.TYPE, type, 0, pendingSize);
+
+                int name = expect(TokenType.IDENTIFIER);
+                node(NodeKind.PARAMETER, name, 0, parameter);
+            } while (match(TokenType.COMMA));
+        }
+
+        expect(TokenType.RPAREN);
+
+        functionDepth++;
+        parseFunctionBody();
+        functionDepth--;
+
+        node(NodeKind.FUNCTION, returnType, access.ordinal(), mark);
+    }
+
+    private void parseFunctionBody() {
+        int mark = pendingSize;
+        int openBrace = expect(TokenType.LBRACE);
+        boolean seenReturn = false;
+
+        while (!check(TokenType.RBRACE) && !isAtEnd()) {
+            if (check(TokenType.RETURN)) {
+                parseReturnStatement();
+                seenReturn = true;
+
+                if (!check(TokenType.RBRACE)) {
+                    throw REJECTED;
+                }
+                break;
+            }
+
+            parseStatement();
+        }
+
+        expect(TokenType.RBRACE);
+
+        if (!seenReturn) {
+            throw REJECTED;
+        }
+
+        node(NodeKind.BLOCK, openBrace, 0, mark);
+    }
+
+    private void parseReturnStatement() {
+        int mark = pendingSize;
+        int keyword = expect(TokenType.RETURN);
+
+        if (!check(TokenType.SEMICOLON)) {
+            parseExpression();
+        }
+
+        expect(TokenType.SEMICOLON);
+
+        node(NodeKind.RETURN, keyword, 0, mark);
+    }
+
+    private void parseBlockStatement() {
+        int mark = pendingSize;
+        int openBrace = expect(TokenType.LBRACE);
+
+        while (!check(TokenType.RBRACE) && !isAtEnd()) {
+            parseStatement();
+        }
+
+        expect(TokenType.RBRACE);
+
+        node(NodeKind.BLOCK, openBrace, 0, mark);
+    }
+
+    private void parseWhileStatement() {
+        int mark = pendingSize;
+        int keyword = expect(TokenType.WHILE);
+
+        controlDepth++;
+
+        expect(TokenType.LPAREN);
+        parseExpression();
+        expect(TokenType.RPAREN);
+        parseBlockStatement();
+
+        controlDepth--;
+
+        node(NodeKind.WHILE, keyword, 0, mark);
+    }
+
+    private void parseDecisionStatement() {
+        int mark = pendingSize;
+        int ifToken = expect(TokenType.IF);
+
+        controlDepth++;
+
+        expect(TokenType.LPAREN);
+        parseExpression();
+        expect(TokenType.RPAREN);
+        parseBlockStatement();
+
+        while (check(TokenType.OTHERWISE)) {
+            int branch = pendingSize;
+            int keyword = position;
+            advance();
+
+            expect(TokenType.LPAREN);
+            parseExpression();
+            expect(TokenType.RPAREN);
+
+            int reason = FlatAst.NONE;
+            if (match(TokenType.BECAUSE)) {
+                reason = expect(TokenType.STRING_LITERAL);
+            }
+
+            parseBlockStatement();
+
+            node(NodeKind.OTHERWISE, keyword, reason, branch);
+        }
+
+        expect(TokenType.AFTERALL);
+
+        if (check(TokenType.LBRACE)) {
+            parseBlockStatement();
+        } else {
+            expect(TokenType.SEMICOLON);
+            node(NodeKind.BLOCK, ifToken, 0, pendingSize);
+        }
+
+        controlDepth--;
+
+        node(NodeKind.DECISION, ifToken, 0, mark);
+    }
+
+    private void parseValDecl() {
+        int mark = pendingSize;
+        int type = parseTypeReference();
+        int name = expect(TokenType.IDENTIFIER);
+
+        expect(TokenType.ASSIGNMENT);
+        parseExpression();
+        expect(TokenType.SEMICOLON);
+
+        node(NodeKind.VARIABLE_DECLARATION, type, name, mark);
+    }
+
+    private void parseConstantDecl() {
+        int mark = pendingSize;
+        int constant = expect(TokenType.CONSTANT);
+        parseTypeReference();
+        int name = expect(TokenType.IDENTIFIER);
+
+        expect(TokenType.ASSIGNMENT);
+        parseExpression();
+        expect(TokenType.SEMICOLON);
+
+        node(NodeKind.CONSTANT_DECLARATION, constant, name, mark);
+    }
+
+    private void parseAssignmentStatement() {
+        int mark = pendingSize;
+        int target = expect(TokenType.IDENTIFIER);
+        node(NodeKind.VARIABLE, target, 0, pendingSize);
+
+        expect(TokenType.ASSIGNMENT);
+        parseExpression();
+        expect(TokenType.SEMICOLON);
+
+        node(NodeKind.ASSIGNMENT, target, 0, mark);
+    }
+
+    private void parseExpressionStatement() {
+        int mark = pendingSize;
+        parseExpression();
+        expect(TokenType.SEMICOLON);
+
+        node(NodeKind.EXPRESSION_STATEMENT, ast.token(pending[mark]), 0, mark);
+    }
+
+    /**
+     * @return The index of the base type token.
+     */
+    private int parseTypeReference() {
+        int base = position;
+        if (!isType(currentType())) {
+            throw REJECTED;
+        }
+        advance();
+
+        int depth = 0;
+        while (check(TokenType.LBRACKET) && peekType(1) == TokenType.RBRACKET) {
+            advance();
+            advance();
+            depth++;
+        }
+
+        node(NodeKind.TYPE, base, depth, pendingSize);
+        return base;
+    }
+
+    // Expressions
+
+    private void parseExpression() {
+        parseExpression(Precedence.LOWEST);
+    }
+
+    private void parseExpression(int minPower) {
+        int mark = pendingSize;
+        parsePrimary();
+
+        int power;
+        while ((power = Precedence.infix(currentType())) > minPower) {
+            int operator = position;
+            advance();
+
+            if (tokens.type(operator) == TokenType.LBRACKET) {
+                parseExpression();
+                expect(TokenType.RBRACKET);
+
+                node(NodeKind.INDEX, operator, 0, mark);
+                continue;
+            }
+
+            parseExpression(power);
+            node(NodeKind.BINARY, operator, 0, mark);
+        }
+    }
+
+    private void parsePrimary() {
+        int mark = pendingSize;
+
+        switch (isAtEnd() ? TokenType.EOF : currentType()) {
+            case INTEGER_LITERAL, DOUBLE_LITERAL, STRING_LITERAL, CHARACTER_LITERAL, NULL, TRUE, FALSE -> {
+                node(NodeKind.LITERAL, position, 0, mark);
+                advance();
+            }
+            case NEW -> {
+                int keyword = position;
+                advance();
+                parseTypeReference();
+
+                expect(TokenType.LBRACKET);
+                parseExpression();
+                expect(TokenType.RBRACKET);
+
+                // The closing '}' is left to the caller, like the Parser does
+                int initializer = 0;
+                if (currentType() == TokenType.LBRACE) {
+                    advance();
+                    initializer = 1;
+
+                    if (!check(TokenType.RBRACE)) {
+                        do {
+                            parseExpression();
+                        } while (match(TokenType.COMMA));
+                    }
+
+                    if (currentType() != TokenType.RBRACE) {
+                        throw REJECTED;
+                    }
+                }
+
+                node(NodeKind.NEW_ARRAY, keyword, initializer, mark);
+            }
+            case IDENTIFIER -> {
+                int identifier = position;
+                advance();
+
+                if (!check(TokenType.LPAREN)) {
+                    node(NodeKind.VARIABLE, identifier, 0, mark);
+                    return;
+                }
+
+                expect(TokenType.LPAREN);
+                if (!check(TokenType.RPAREN)) {
+                    do {
+                        parseExpression();
+                    } while (match(TokenType.COMMA));
+                }
+                expect(TokenType.RPAREN);
+
+                node(NodeKind.CALL, identifier, 0, mark);
+            }
+            case LPAREN -> {
+                advance();
+                parseExpression();
+                expect(TokenType.RPAREN);
+            }
+            default -> throw REJECTED;
+        }
+    }
+
+    // Tree building
+
+    /**
+     * Adds a node whose children are the nodes pending since {@code mark}, and
+     * leaves it pending in their place.
+     */
+    private int node(NodeKind kind, int token, int extra, int mark) {
+        int firstChild = FlatAst.NONE;
+
+        if (mark < pendingSize) {
+            firstChild = pending[mark];
+
+            for (int i = mark + 1; i < pendingSize; i++) {
+                ast.setNextSibling(pending[i - 1], pending[i]);
+            }
+        }
+
+        int node = ast.add(kind, token, extra, firstChild);
+
+        pendingSize = mark;
+        if (pendingSize == pending.length) {
+            pending = Arrays.copyOf(pending, pendingSize * 2);
+        }
+        pending[pendingSize++] = node;
+
+        return node;
+    }
+
+    // Token helpers, with the same semantics as the Parser's
+
+    private boolean isAtEnd() {
+        return tokens.type(position) == TokenType.EOF;
+    }
+
+    private TokenType currentType() {
+        return tokens.type(position);
+    }
+
+    private void advance() {
+        if (!isAtEnd()) {
+            position++;
+        }
+    }
+
+    private TokenType peekType(int offset) {
+        if (isAtEnd()) {
+            return currentType();
+        }
+
+        return tokens.type(tokens.clamp(position + offset));
+    }
+
+    private boolean check(TokenType type) {
+        return !isAtEnd() && currentType() == type;
+    }
+
+    private boolean match(TokenType type) {
+        if (check(type)) {
+            advance();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Consumes a token of the given type, or rejects the program.
+     *
+     * @return The index of the consumed token.
+     */
+    private int expect(TokenType type) {
+        if (!check(type)) {
+            throw REJECTED;
+        }
+
+        return position++;
+    }
+
+    private boolean looksLikeFunctionDeclaration() {
+        return Heddle.ACESS_MODIFIERS.contains(peekType(0))
+                && isType(peekType(1))
+                && peekType(2) == TokenType.IDENTIFIER
+                && peekType(3) == TokenType.LPAREN;
+    }
+
+    private static boolean isType(TokenType type) {
+        return Heddle.TYPES.contains(type);
+    }
+}
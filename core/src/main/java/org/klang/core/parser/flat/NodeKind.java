@@ -0,0 +1,110 @@
+package org.klang.core.parser.flat;
+
+/**
+ * Kinds of the nodes of a {@link FlatAst}, one per class of the object AST in
+ * {@code org.klang.core.parser.ast}.
+ * <p>
+ * Each constant documents the <em>position token</em> of the node (the token
+ * whose line and column the object AST would report) and the layout of its
+ * children, in source order.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public enum NodeKind {
+
+    /** No position token. Children: the top-level statements. */
+    PROGRAM,
+
+    /** Token: {@code module}; the name is the next token. No children. */
+    MODULE,
+
+    /**
+     * Token: {@code import}. No children; the {@code extra} value is the number
+     * of path segments, which are every other token after the keyword.
+     */
+    IMPORT,
+
+    /** Token: the target string of {@code @Use(...)}. No children. */
+    USE,
+
+    /**
+     * Token: the return type; the name is the next token. The {@code extra}
+     * value is the {@code AccessModifier} ordinal. Children: {@link #USE},
+     * {@link #TYPE} (return type), {@link #PARAMETER}s, {@link #BLOCK} (body).
+     */
+    FUNCTION,
+
+    /** Token: the parameter name. Children: {@link #TYPE}. */
+    PARAMETER,
+
+    /**
+     * Token: the base type. The {@code extra} value is the array depth. No
+     * children.
+     */
+    TYPE,
+
+    /** Token: <code>{</code>. Children: the statements. */
+    BLOCK,
+
+    /** Token: {@code while}. Children: condition, {@link #BLOCK}. */
+    WHILE,
+
+    /**
+     * Token: {@code if}. Children: condition, {@link #BLOCK} (if block),
+     * {@link #OTHERWISE}s, {@link #BLOCK} (afterall block, empty and positioned
+     * at the {@code if} token for {@code afterall;}).
+     */
+    DECISION,
+
+    /**
+     * Token: {@code otherwise}. The {@code extra} value is the index of the
+     * {@code because} string token, or {@link FlatAst#NONE}. Children:
+     * condition, {@link #BLOCK}.
+     */
+    OTHERWISE,
+
+    /** Token: {@code return}. Children: the value, if any. */
+    RETURN,
+
+    /**
+     * Token: the base type. The {@code extra} value is the index of the name
+     * token. Children: {@link #TYPE}, initializer.
+     */
+    VARIABLE_DECLARATION,
+
+    /**
+     * Token: {@code constant}. The {@code extra} value is the index of the name
+     * token. Children: {@link #TYPE}, initializer.
+     */
+    CONSTANT_DECLARATION,
+
+    /** Token: the target name. Children: {@link #VARIABLE} (target), value. */
+    ASSIGNMENT,
+
+    /** Token: the position token of the expression. Children: the expression. */
+    EXPRESSION_STATEMENT,
+
+    /** Token: the operator. Children: left, right. */
+    BINARY,
+
+    /** Token: {@code [}. Children: target, index. */
+    INDEX,
+
+    /** Token: the literal. No children. */
+    LITERAL,
+
+    /** Token: the name. No children. */
+    VARIABLE,
+
+    /** Token: the callee name. Children: the arguments. */
+    CALL,
+
+    /**
+     * Token: {@code new}. The {@code extra} value is {@code 1} when an
+     * initializer list follows the size. Children: {@link #TYPE}, size, the
+     * initializer values.
+     */
+    NEW_ARRAY
+}
@@ -2,13 +2,32 @@ package org.klang.core.semantics;
 
 import org.klang.core.Heddle;
 
+/**
+ * An array type. Like {@link PrimitiveTypeSymbol}s, symbols are interned: there
+ * is one per element {@link Type}, obtained with {@link #of}.
+ */
 public final class ArrayTypeSymbol implements TypeSymbol {
+    private static final ArrayTypeSymbol[] ARRAYS = new ArrayTypeSymbol[Type.values().length];
+
+    static {
+        for (Type type : Type.values()) {
+            ARRAYS[type.ordinal()] = new ArrayTypeSymbol(type);
+        }
+    }
+
     public final Type elementType;
 
-    public ArrayTypeSymbol(Type elementType) {
+    private ArrayTypeSymbol(Type elementType) {
         this.elementType = elementType;
     }
 
+    /**
+     * @return The shared symbol of the arrays of this type.
+     */
+    public static ArrayTypeSymbol of(Type elementType) {
+        return ARRAYS[elementType.ordinal()];
+    }
+
     @Override
     public boolean isAssignableFrom(TypeSymbol other) {
         if (other instanceof ArrayTypeSymbol arr) {
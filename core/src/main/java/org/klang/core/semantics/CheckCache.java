@@ -0,0 +1,217 @@
+package org.klang.core.semantics;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Top-level functions that type checked without errors, so that checking an
+ * edited program only checks the functions whose inputs changed.
+ * <p>
+ * Each function is keyed by its
+ * {@link org.klang.core.parser.ast.FunctionDeclarationNode#fingerprint}: a hash
+ * of its tokens, of the signatures of the functions it calls and of the types
+ * of the globals it reads. A function whose key was seen before is not checked
+ * again. Its type references are resolved all the same (what the transpiler
+ * reads), but its expressions are left without a
+ * {@link org.klang.core.parser.ast.ExpressionNode#resolvedType}.
+ * </p>
+ * <p>
+ * After a program checks successfully, the functions it no longer contains are
+ * dropped; a check that fails leaves the cache as it was. Between
+ * {@link TypeChecker#check} calls the cache can be saved with
+ * {@link #write(byte[])} and loaded back with {@link #read(ByteBuffer, byte[])};
+ * the stamp should identify the checker, at least by its {@link #RULES}, since
+ * another version of the checker may not accept what this one did.
+ * </p>
+ * <p>
+ * A cache belongs to one source file and is checked against by one
+ * {@link TypeChecker} at a time, whose parallel tasks may look functions up and
+ * store them concurrently.
+ * </p>
+ *
+ * <pre>{@code
+ * CheckCache cache = new CheckCache();
+ * new TypeChecker(sourceManager, path, cache).check(program);
+ * // ... edit, parse ...
+ * new TypeChecker(editedSourceManager, path, cache).check(edited);
+ * System.out.println(cache.hits() + " functions reused, " + cache.misses() + " checked");
+ * }</pre>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class CheckCache {
+
+    /** Version of the {@link #write(byte[])} layout; other versions are not read. */
+    public static final int VERSION = 1;
+
+    /**
+     * Version of the type rules the cached functions passed. It must be bumped
+     * whenever {@link TypeChecker} may accept or reject a function it did not
+     * before, or what the fingerprint of a function covers changes, since a hit
+     * stands in for checking that function.
+     */
+    public static final int RULES = 1;
+
+    private static final byte[] MAGIC = { 'K', 'C', 'H', 'K' };
+    private static final int ENTRY_BYTES = 8;
+
+    private Set<Long> entries = ConcurrentHashMap.newKeySet();
+    private Set<Long> next = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Starts a check: the functions found from now on are the ones kept by
+     * {@link #commit()}.
+     */
+    void begin() {
+        next.clear();
+    }
+
+    /**
+     * @return Whether the function with this key checked before (a hit), or
+     *         has to be checked (counted as a miss).
+     */
+    boolean lookup(long key) {
+        if (!entries.contains(key) && !next.contains(key)) {
+            misses.incrementAndGet();
+            return false;
+        }
+
+        hits.incrementAndGet();
+        next.add(key);
+        return true;
+    }
+
+    /**
+     * Records a function checked without errors after a miss.
+     */
+    void store(long key) {
+        next.add(key);
+    }
+
+    /**
+     * Ends a successful check, dropping the functions it did not contain.
+     */
+    void commit() {
+        Set<Long> previous = entries;
+        entries = next;
+        next = previous;
+        next.clear();
+    }
+
+    /**
+     * @return How many functions were reused instead of checked.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return How many functions were looked up and had to be checked.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The share of looked up functions that were reused, or {@code 0}
+     *         before any lookup.
+     */
+    public double hitRate() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return How many functions are cached.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops every cached function and resets the counters.
+     */
+    public void clear() {
+        entries.clear();
+        next.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * @param stamp Bytes identifying the checker (at most 255); {@link #read}
+     *              only reads the cache back when given the same stamp.
+     * @return The cached functions, without the counters.
+     */
+    public byte[] write(byte[] stamp) {
+        if (stamp.length > 255) {
+            throw new IllegalArgumentException("Stamp of " + stamp.length + " bytes is longer than 255");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(MAGIC.length + 3 + stamp.length + 4 + entries.size() * ENTRY_BYTES);
+        out.put(MAGIC).putShort((short) VERSION).put((byte) stamp.length).put(stamp);
+        out.putInt(entries.size());
+
+        for (long key : entries) {
+            out.putLong(key);
+        }
+
+        return out.array();
+    }
+
+    /**
+     * @return The cache written by {@link #write(byte[])} with this stamp.
+     * @throws IllegalArgumentException if the bytes are not such a cache: of
+     *                                  another layout version, stamp, or
+     *                                  truncated.
+     */
+    public static CheckCache read(ByteBuffer bytes, byte[] stamp) {
+        ByteBuffer in = bytes.duplicate();
+
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("Not a check cache");
+            }
+
+            int version = in.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Check cache version " + version + ", expected " + VERSION);
+            }
+
+            byte[] written = new byte[in.get() & 0xFF];
+            in.get(written);
+            if (!Arrays.equals(written, stamp)) {
+                throw new IllegalArgumentException("Check cache of another checker");
+            }
+
+            int size = in.getInt();
+            if (size < 0 || size > in.remaining() / ENTRY_BYTES) {
+                throw new IllegalArgumentException("Truncated check cache");
+            }
+
+            CheckCache cache = new CheckCache();
+            for (int i = 0; i < size; i++) {
+                cache.entries.add(in.getLong());
+            }
+            return cache;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated check cache", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CheckCache[size=%d, hits=%d, misses=%d]", size(), hits(), misses());
+    }
+}
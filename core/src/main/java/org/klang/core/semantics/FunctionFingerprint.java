@@ -0,0 +1,123 @@
+package org.klang.core.semantics;
+
+import org.klang.core.lexer.Token;
+import org.klang.core.lexer.TokenFactory;
+import org.klang.core.lexer.TokenType;
+import org.klang.core.parser.ast.FunctionDeclarationNode;
+import org.klang.core.parser.ast.ParameterNode;
+import org.klang.core.parser.ast.TypeReferenceNode;
+
+/**
+ * Hash of everything the check of a top-level function depends on, fed by the
+ * {@link ScopeResolver} while it walks the function: its {@link CheckCache}
+ * key.
+ * <p>
+ * That is its own tokens, from its {@code @Use} annotation to the end of its
+ * body, in the shape of its tree (each node is tagged with its kind and each
+ * list with its size). It also covers the {@link #signature signature} of
+ * every function it calls and the {@link #declaration declared type} of every
+ * global it reads. Both are syntax too, since a type reference always resolves
+ * to the same symbol. Positions are left out, since only functions that check
+ * without errors are cached: a function moved to another line keeps its key.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+final class FunctionFingerprint {
+
+    static final int NULL = 0, FUNCTION = 1, BLOCK = 2, WHILE = 3, DECISION = 4, RETURN = 5,
+            VARIABLE_DECLARATION = 6, CONSTANT_DECLARATION = 7, ASSIGNMENT = 8, EXPRESSION_STATEMENT = 9,
+            MODULE = 10, IMPORT = 11, BINARY = 12, INDEX = 13, LITERAL = 14, VARIABLE = 15, CALL = 16,
+            NEW_ARRAY = 17;
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    // Token types whose value is their fixed spelling, so hashing the type is enough
+    private static final boolean[] SPELLED = new boolean[TokenType.values().length];
+
+    static {
+        for (TokenType type : TokenType.values()) {
+            SPELLED[type.ordinal()] = TokenFactory.spelling(type) != null;
+        }
+    }
+
+    private long hash = OFFSET;
+
+    /**
+     * @return The hash of what was added since the last call, starting over.
+     */
+    long finish() {
+        long result = hash ^ (hash >>> 29);
+        hash = OFFSET;
+        return result;
+    }
+
+    void add(int value) {
+        hash = (hash ^ value) * PRIME;
+    }
+
+    void add(long value) {
+        add((int) value);
+        add((int) (value >>> 32));
+    }
+
+    void add(Token token) {
+        if (token == null) {
+            add(NULL);
+            return;
+        }
+
+        add(token.type.ordinal() + 1);
+        if (!SPELLED[token.type.ordinal()]) {
+            add(token.getValue());
+        }
+    }
+
+    void add(String string) {
+        if (string == null) {
+            add(NULL);
+            return;
+        }
+
+        add(string.length() + 1);
+        for (int i = 0; i < string.length(); i++) {
+            add(string.charAt(i));
+        }
+    }
+
+    void add(TypeReferenceNode type) {
+        if (type == null) {
+            add(NULL);
+            return;
+        }
+
+        add(type.baseType);
+        add(type.arrayDepth);
+    }
+
+    /**
+     * @return What a call to this function depends on: its return and
+     *         parameter types.
+     */
+    static long signature(FunctionDeclarationNode function) {
+        FunctionFingerprint signature = new FunctionFingerprint();
+        signature.add(function.returnType);
+        signature.add(function.parameters.size());
+        for (ParameterNode parameter : function.parameters) {
+            signature.add(parameter.type);
+        }
+        return signature.finish();
+    }
+
+    /**
+     * @return What reading a variable declared this way depends on.
+     */
+    static long declaration(TypeReferenceNode type, boolean constant) {
+        FunctionFingerprint declaration = new FunctionFingerprint();
+        declaration.add(type);
+        declaration.add(constant ? 1 : 0);
+        return declaration.finish();
+    }
+}
@@ -5,13 +5,14 @@ import java.util.List;
 import java.util.Map;
 
 public class FunctionTable {
-    private final Map<String, FunctionSymbol> functions = new HashMap<>(20);
+    private Map<String, FunctionSymbol> functions = new HashMap<>(20);
+    private boolean frozen;
 
     public FunctionTable(){
         // Define 'void' e 'any' (UNKNOWN)
-        TypeSymbol returnVoid = new PrimitiveTypeSymbol(Type.VOID, false);
+        TypeSymbol returnVoid = PrimitiveTypeSymbol.of(Type.VOID, false);
         // UNKNOWN aqui funciona como um "Object" ou "Any", aceitando qualquer coisa
-        List<TypeSymbol> argsAny = List.of(new PrimitiveTypeSymbol(Type.UNKNOWN, false));
+        List<TypeSymbol> argsAny = List.of(PrimitiveTypeSymbol.of(Type.UNKNOWN, false));
 
         // Registra funções nativas
         internalDeclare(new FunctionSymbol("println", returnVoid, argsAny));
@@ -31,6 +32,9 @@ public class FunctionTable {
      * @return true se declarou, false se já existia (colisão).
      */
     public boolean declare(FunctionSymbol fn){
+        if (frozen){
+            throw new IllegalStateException("Cannot declare '" + fn.name + "' in a frozen function table");
+        }
         if (functions.containsKey(fn.name)){
             return false;
         }
@@ -49,4 +53,19 @@ public class FunctionTable {
     public boolean contains(String name) {
         return functions.containsKey(name);
     }
+
+    /**
+     * Makes the table immutable once every signature is collected, so that
+     * function bodies can be checked concurrently against it.
+     */
+    public void freeze() {
+        if (!frozen) {
+            functions = Map.copyOf(functions);
+            frozen = true;
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
 }
\ No newline at end of file
@@ -2,15 +2,37 @@ package org.klang.core.semantics;
 
 import org.klang.core.Heddle;
 
+/**
+ * A primitive type. Symbols are immutable and interned: there is one per
+ * {@link Type} and literal flag, obtained with {@link #of}, shared by every
+ * node and compilation that has that type.
+ */
 public final class PrimitiveTypeSymbol implements TypeSymbol {
+    private static final PrimitiveTypeSymbol[] VALUES = new PrimitiveTypeSymbol[Type.values().length];
+    private static final PrimitiveTypeSymbol[] LITERALS = new PrimitiveTypeSymbol[Type.values().length];
+
+    static {
+        for (Type type : Type.values()) {
+            VALUES[type.ordinal()] = new PrimitiveTypeSymbol(type, false);
+            LITERALS[type.ordinal()] = new PrimitiveTypeSymbol(type, true);
+        }
+    }
+
     public final Type type;
-    public boolean isLiteral;
+    public final boolean isLiteral;
 
-    public PrimitiveTypeSymbol(Type type, boolean isLiteral) {
+    private PrimitiveTypeSymbol(Type type, boolean isLiteral) {
         this.type = type;
         this.isLiteral = isLiteral;
     }
 
+    /**
+     * @return The shared symbol of this type.
+     */
+    public static PrimitiveTypeSymbol of(Type type, boolean isLiteral) {
+        return (isLiteral ? LITERALS : VALUES)[type.ordinal()];
+    }
+
     @Override
     public boolean isAssignableFrom(TypeSymbol other) {
         if (other instanceof PrimitiveTypeSymbol p) {
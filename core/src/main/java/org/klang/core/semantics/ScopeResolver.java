@@ -0,0 +1,375 @@
+package org.klang.core.semantics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.klang.core.lexer.Token;
+import org.klang.core.parser.ast.*;
+
+/**
+ * Binds every variable reference of a program to its declaration once, before
+ * the {@link TypeChecker} runs.
+ * <p>
+ * Each declaration gets the slot it will take in its scope, and each
+ * {@link VariableExpressionNode} the level and slot of the declaration it
+ * names ({@link VariableExpressionNode#depth}, {@link VariableExpressionNode#slot}),
+ * so the checker reads variables from arrays instead of looking names up in
+ * every scope around them. Scopes are counted exactly as the checker opens
+ * its {@link TypeContext}s: one for the parameters of a function, one per
+ * block, and one more around the body of a loop or of a branch. Declarations
+ * are bound in the order the checker makes them, a variable being visible
+ * from the statement after its own; declaring a name twice in one scope
+ * reuses its first slot, since the checker keeps the first type. Type
+ * references of known types are bound to their symbols on the way
+ * ({@link TypeReferenceNode#resolvedType}).
+ * </p>
+ * <p>
+ * When asked to, it also leaves on each top-level function its
+ * {@link FunctionDeclarationNode#fingerprint} for the {@link CheckCache}, hashed
+ * from what it walks through anyway.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+public final class ScopeResolver {
+
+    // A declaration; shadowed is the one of the same name it hides, type the
+    // FunctionFingerprint of its declared type
+    private record Binding(int level, int slot, long type, Binding shadowed) {
+    }
+
+    // The declarations of a name in the open scopes, innermost first
+    private static final class Name {
+        Binding innermost;
+    }
+
+    // Statements resolved one after the other in the scope of a level; when
+    // they are done, the scopes from closes on end (none if it is -1)
+    private static final class Frame {
+        List<StatementNode> statements;
+        int next;
+        int level;
+        int closes;
+    }
+
+    private final Map<String, Name> names = new HashMap<>();
+    // Names declared in the open scopes, once per scope, innermost last
+    private final List<Name> declared = new ArrayList<>();
+    // Index in declared of the first name of each open scope
+    private int[] firstName = new int[16];
+
+    private final List<Frame> frames = new ArrayList<>();
+    private int depth = 0;
+    private final List<ExpressionNode> expressions = new ArrayList<>();
+
+    // Fingerprint of the top-level function being resolved, if any
+    private final FunctionFingerprint fingerprint = new FunctionFingerprint();
+    private final Map<String, Long> signatures = new HashMap<>();
+    private boolean fingerprinting;
+    private FunctionDeclarationNode function;
+
+    /**
+     * Resolves every declaration and variable reference of the program.
+     */
+    public void resolve(ProgramNode program) {
+        resolve(program, false);
+    }
+
+    /**
+     * Resolves every declaration and variable reference of the program and,
+     * if {@code fingerprints} is set, fingerprints its top-level functions.
+     */
+    public void resolve(ProgramNode program, boolean fingerprints) {
+        fingerprinting = fingerprints;
+        if (fingerprints) {
+            // The first declaration of a name is the one calls resolve to
+            for (StatementNode node : program.statements) {
+                if (node instanceof FunctionDeclarationNode f) {
+                    signatures.putIfAbsent(f.name.getValue(), FunctionFingerprint.signature(f));
+                }
+            }
+        }
+
+        open(0);
+        enter(program.statements, 0, 0);
+
+        try {
+            while (depth > 0) {
+                Frame frame = frames.get(depth - 1);
+
+                if (frame.next < frame.statements.size()) {
+                    resolve(frame.statements.get(frame.next++), frame.level);
+                    continue;
+                }
+
+                if (frame.closes >= 0) {
+                    close(frame.closes);
+                }
+                // Only the body of a top-level function closes the scope of level 1
+                if (frame.closes == 1 && function != null) {
+                    function.fingerprint = fingerprint.finish();
+                    function = null;
+                }
+                frame.statements = null;
+                depth--;
+            }
+        } finally {
+            for (int i = 0; i < depth; i++) {
+                frames.get(i).statements = null;
+            }
+            depth = 0;
+            expressions.clear();
+            names.clear();
+            declared.clear();
+            signatures.clear();
+            function = null;
+            fingerprint.finish();
+        }
+    }
+
+    // Tags each node and sizes each list for the fingerprint, in the order
+    // they are resolved
+    private void resolve(StatementNode node, int level) {
+        switch (node) {
+            case ConstantDeclarationNode c -> {
+                mark(FunctionFingerprint.CONSTANT_DECLARATION);
+                type(c.type);
+                mark(c.name);
+                resolve(c.value);
+                c.slot = declare(c.name.getValue(), level, declaration(c.type, true, level));
+            }
+            case VariableDeclarationNode v -> {
+                mark(FunctionFingerprint.VARIABLE_DECLARATION);
+                type(v.type);
+                mark(v.name);
+                resolve(v.value);
+                v.slot = declare(v.name.getValue(), level, declaration(v.type, false, level));
+            }
+            case AssignmentStatementNode a -> {
+                mark(FunctionFingerprint.ASSIGNMENT);
+                resolve(a.name);
+                resolve(a.value);
+            }
+            case BlockStatementNode b -> {
+                mark(FunctionFingerprint.BLOCK);
+                mark(b.statements.size());
+                open(level + 1);
+                enter(b.statements, level + 1, level + 1);
+            }
+            case ExpressionStatementNode e -> {
+                mark(FunctionFingerprint.EXPRESSION_STATEMENT);
+                resolve(e.expression);
+            }
+            case FunctionDeclarationNode f -> {
+                if (level == 0 && fingerprinting) {
+                    function = f;
+                    fingerprint.finish();
+                }
+                mark(FunctionFingerprint.FUNCTION);
+                mark(f.use == null ? null : f.use.target);
+                mark(f.access.ordinal());
+                type(f.returnType);
+                mark(f.name);
+                mark(f.parameters.size());
+
+                open(level + 1);
+                for (ParameterNode p : f.parameters) {
+                    type(p.type);
+                    mark(p.name);
+                    p.slot = declare(p.name.getValue(), level + 1, 0);
+                }
+                mark(f.body.statements.size());
+                open(level + 2);
+                enter(f.body.statements, level + 2, level + 1);
+            }
+            case ReturnStatementNode r -> {
+                mark(FunctionFingerprint.RETURN);
+                resolve(r.value);
+            }
+            case DecisionStatementNode d -> {
+                mark(FunctionFingerprint.DECISION);
+                mark(d.otherwiseBranches.size());
+                for (OtherwiseBranchNode o : d.otherwiseBranches) {
+                    mark(o.reason);
+                }
+                mark(d.afterallBlock == null ? 0 : 1);
+
+                // Conditions see the same names whenever they are checked:
+                // the branches before them only declare in scopes of their own
+                resolve(d.condition);
+                for (OtherwiseBranchNode o : d.otherwiseBranches) {
+                    resolve(o.condition);
+                }
+
+                // Each block opens its own scope inside the one of the branch
+                List<StatementNode> blocks = new ArrayList<>(d.otherwiseBranches.size() + 2);
+                blocks.add(d.ifBlock);
+                for (OtherwiseBranchNode o : d.otherwiseBranches) {
+                    blocks.add(o.body);
+                }
+                if (d.afterallBlock != null) {
+                    blocks.add(d.afterallBlock);
+                }
+                enter(blocks, level + 1, -1);
+            }
+            case WhileStatementNode w -> {
+                mark(FunctionFingerprint.WHILE);
+                resolve(w.condition);
+                mark(w.body.statements.size());
+                open(level + 2);
+                enter(w.body.statements, level + 2, level + 2);
+            }
+            case ModuleDeclarationNode m -> {
+                mark(FunctionFingerprint.MODULE);
+                mark(m.getName());
+            }
+            case ImportDeclarationNode i -> {
+                mark(FunctionFingerprint.IMPORT);
+                mark(i.path.size());
+                for (Token segment : i.path) {
+                    mark(segment);
+                }
+            }
+        }
+    }
+
+    private void resolve(ExpressionNode node) {
+        expressions.add(node);
+
+        while (!expressions.isEmpty()) {
+            switch (expressions.remove(expressions.size() - 1)) {
+                case null -> mark(FunctionFingerprint.NULL);
+                case VariableExpressionNode v -> {
+                    Name name = names.get(v.name.getValue());
+                    Binding binding = name == null ? null : name.innermost;
+                    v.depth = binding == null ? -1 : binding.level();
+                    v.slot = binding == null ? -1 : binding.slot();
+
+                    mark(FunctionFingerprint.VARIABLE);
+                    mark(v.name);
+                    // A global: what the function reads is its declared type
+                    if (function != null && v.depth == 0) {
+                        fingerprint.add(binding.type());
+                    }
+                }
+                case BinaryExpressionNode b -> {
+                    mark(FunctionFingerprint.BINARY);
+                    mark(b.operator);
+                    expressions.add(b.right);
+                    expressions.add(b.left);
+                }
+                case IndexExpressionNode i -> {
+                    mark(FunctionFingerprint.INDEX);
+                    expressions.add(i.index);
+                    expressions.add(i.target);
+                }
+                case CallExpressionNode c -> {
+                    mark(FunctionFingerprint.CALL);
+                    mark(c.callee);
+                    if (function != null) {
+                        fingerprint.add(signatures.getOrDefault(c.callee.getValue(), 0L));
+                    }
+                    mark(c.arguments.size());
+                    // Arguments are pushed last first, so they are read in order
+                    for (int i = c.arguments.size() - 1; i >= 0; i--) {
+                        expressions.add(c.arguments.get(i));
+                    }
+                }
+                case NewArrayExpressionNode n -> {
+                    mark(FunctionFingerprint.NEW_ARRAY);
+                    type(n.type);
+                    mark(n.initializer == null ? -1 : n.initializer.size());
+                    expressions.add(n.size);
+                    if (n.initializer != null) {
+                        for (int i = n.initializer.size() - 1; i >= 0; i--) {
+                            expressions.add(n.initializer.get(i));
+                        }
+                    }
+                }
+                case LiteralExpressionNode l -> {
+                    mark(FunctionFingerprint.LITERAL);
+                    mark(l.value);
+                }
+            }
+        }
+    }
+
+    private void enter(List<StatementNode> statements, int level, int closes) {
+        if (depth == frames.size()) {
+            frames.add(new Frame());
+        }
+
+        Frame frame = frames.get(depth++);
+        frame.statements = statements;
+        frame.next = 0;
+        frame.level = level;
+        frame.closes = closes;
+    }
+
+    private void open(int level) {
+        if (level >= firstName.length) {
+            firstName = Arrays.copyOf(firstName, Math.max(level + 1, firstName.length * 2));
+        }
+        firstName[level] = declared.size();
+    }
+
+    // Also ends the scopes inside this one, whose names come after its own
+    private void close(int level) {
+        for (int i = declared.size() - 1; i >= firstName[level]; i--) {
+            Name name = declared.remove(i);
+            name.innermost = name.innermost.shadowed();
+        }
+    }
+
+    // The scope of this level is the innermost open one, so its slots are its
+    // names at the end of declared
+    private int declare(String name, int level, long type) {
+        Name declarations = names.computeIfAbsent(name, n -> new Name());
+        Binding binding = declarations.innermost;
+
+        if (binding != null && binding.level() == level) {
+            return binding.slot();
+        }
+
+        int slot = declared.size() - firstName[level];
+        declarations.innermost = new Binding(level, slot, type, binding);
+        declared.add(declarations);
+        return slot;
+    }
+
+    private void type(TypeReferenceNode type) {
+        if (type != null && type.resolvedType == null) {
+            type.resolvedType = TypeChecker.symbolOf(type);
+        }
+        if (function != null) {
+            fingerprint.add(type);
+        }
+    }
+
+    // Only globals are read by the fingerprint
+    private long declaration(TypeReferenceNode type, boolean constant, int level) {
+        return level == 0 && fingerprinting ? FunctionFingerprint.declaration(type, constant) : 0;
+    }
+
+    private void mark(int value) {
+        if (function != null) {
+            fingerprint.add(value);
+        }
+    }
+
+    private void mark(Token token) {
+        if (function != null) {
+            fingerprint.add(token);
+        }
+    }
+
+    private void mark(String string) {
+        if (function != null) {
+            fingerprint.add(string);
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package org.klang.core.semantics;
 
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.klang.core.diagnostics.DiagnosticCode;
 import org.klang.core.errors.SemanticException;
@@ -23,8 +29,14 @@ import org.klang.core.parser.ast.*;
  * <ol>
  * <li><strong>Collection:</strong> Scans function signatures to populate the
  * Symbol Table.</li>
+ * <li><strong>Resolution:</strong> Binds each variable to its declaration
+ * ({@link ScopeResolver}).</li>
  * <li><strong>Verification:</strong> Traverses function bodies and statements
- * to check types.</li>
+ * to check types. Function bodies only read the (then frozen) function table
+ * and the globals declared before them, so
+ * {@link #check(ProgramNode, ForkJoinPool)} checks them in parallel, and a
+ * {@link CheckCache} lets through the ones that checked before with the same
+ * inputs.</li>
  * </ol>
  * * @author Lucas Paulino Da Silva (~K')
  * 
@@ -32,15 +44,76 @@ import org.klang.core.parser.ast.*;
  */
 public class TypeChecker {
 
+    /**
+     * Number of top-level functions from which
+     * {@link #check(ProgramNode, ForkJoinPool)} checks function bodies in
+     * parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = 64;
+
+    // Functions checked by one task of a parallel check, in source order
+    private static final int FUNCTIONS_PER_TASK = 16;
+
     private final SourceManager sourceManager;
     private final String filePath;
 
     private TypeSymbol currentReturnType = null;
-    private final FunctionTable functions = new FunctionTable();
+    private final FunctionTable functions;
+
+    // The first error of a task of a parallel check, at this statement index
+    private record Failure(int index, RuntimeException error) {
+    }
+
+    // Work left by checkStatement: a statement, the condition of an otherwise
+    // branch (checked after the branch before it) or, with neither, the end of
+    // a function body
+    private record Pending(StatementNode statement, OtherwiseBranchNode branch, TypeContext ctx) {
+    }
+
+    private static final Pending END_OF_FUNCTION = new Pending(null, null, null);
+
+    // A binary, index or call expression whose operands checkExpression is
+    // checking
+    private static final class Operands {
+        ExpressionNode node;
+        int checked;
+        TypeSymbol first;
+        FunctionSymbol function;
+    }
+
+    private final List<Operands> operands = new ArrayList<>();
+    private int operandDepth = 0;
+
+    private final ScopeResolver resolver = new ScopeResolver();
+
+    private final CheckCache cache;
+
+    // The scope checked (at scopeLevel) and the ones around it, by level
+    private TypeContext[] scopes = new TypeContext[16];
+    private int scopeLevel = -1;
 
     public TypeChecker(SourceManager sourceManager, Path filePath) {
+        this(sourceManager, filePath, null);
+    }
+
+    /**
+     * @param cache Functions checked by previous runs, skipped when unchanged;
+     *              {@code null} to check every function.
+     */
+    public TypeChecker(SourceManager sourceManager, Path filePath, CheckCache cache) {
         this.sourceManager = sourceManager;
         this.filePath = filePath.toString();
+        this.functions = new FunctionTable();
+        this.cache = cache;
+    }
+
+    // Checks function bodies for a parallel check: its own scopes and return
+    // type, the frozen function table of the parent
+    private TypeChecker(TypeChecker parent) {
+        this.sourceManager = parent.sourceManager;
+        this.filePath = parent.filePath;
+        this.functions = parent.functions;
+        this.cache = parent.cache;
     }
 
     /**
@@ -50,17 +123,154 @@ public class TypeChecker {
      * @throws SemanticException if any rule is violated.
      */
     public void check(ProgramNode program) {
-        // Pass 1: Collect signatures
+        collectAndResolve(program);
+
+        // Pass 2: Check bodies
+        TypeContext global = new TypeContext(null);
+        for (StatementNode stmt : program.statements) {
+            if (stmt instanceof FunctionDeclarationNode f) {
+                checkFunction(f, global);
+            } else {
+                checkStatement(stmt, global);
+            }
+        }
+
+        if (cache != null) {
+            cache.commit();
+        }
+    }
+
+    /**
+     * Executes the type checking process on the AST, checking the bodies of
+     * the top-level functions in parallel when there are enough of them.
+     * <p>
+     * The other top-level statements (the global declarations) are checked
+     * here, in order. Each function is checked against a
+     * {@link TypeContext#snapshot() snapshot} of the globals declared before it,
+     * by a task that owns its scopes and return type and shares only the
+     * frozen function table. When several statements are wrong, the error
+     * thrown is the one of the first in source order, so the result is the same
+     * as {@link #check(ProgramNode)}'s whatever the scheduling.
+     * </p>
+     *
+     * @param program The root node of the AST.
+     * @param pool    The pool that checks the functions.
+     * @throws SemanticException if any rule is violated.
+     */
+    public void check(ProgramNode program, ForkJoinPool pool) {
+        int count = 0;
+        for (StatementNode node : program.statements) {
+            if (node instanceof FunctionDeclarationNode) {
+                count++;
+            }
+        }
+
+        if (count < PARALLEL_THRESHOLD) {
+            check(program);
+            return;
+        }
+
+        collectAndResolve(program);
+        // Index every line now: diagnostics built by the tasks then only read it
+        sourceManager.indexLinesUpTo(Integer.MAX_VALUE);
+
+        TypeContext global = new TypeContext(null);
+        List<ForkJoinTask<Failure>> tasks = new ArrayList<>(count / FUNCTIONS_PER_TASK + 1);
+        List<Integer> indexes = new ArrayList<>(FUNCTIONS_PER_TASK);
+        List<TypeContext> scopes = new ArrayList<>(FUNCTIONS_PER_TASK);
+        Failure failure = null;
+
+        for (int i = 0; i < program.statements.size(); i++) {
+            StatementNode stmt = program.statements.get(i);
+
+            if (stmt instanceof FunctionDeclarationNode) {
+                indexes.add(i);
+                scopes.add(global.snapshot());
+            } else {
+                try {
+                    checkStatement(stmt, global);
+                } catch (RuntimeException e) {
+                    failure = new Failure(i, e);
+                    break;
+                }
+            }
+
+            if (indexes.size() == FUNCTIONS_PER_TASK) {
+                tasks.add(pool.submit(checkFunctions(program, indexes, scopes)));
+                indexes = new ArrayList<>(FUNCTIONS_PER_TASK);
+                scopes = new ArrayList<>(FUNCTIONS_PER_TASK);
+            }
+        }
+
+        if (!indexes.isEmpty()) {
+            tasks.add(pool.submit(checkFunctions(program, indexes, scopes)));
+        }
+
+        // Tasks are in source order, and each stops at its first error
+        for (int i = 0; i < tasks.size(); i++) {
+            Failure first = tasks.get(i).join();
+
+            if (first != null && (failure == null || first.index() < failure.index())) {
+                for (int j = i + 1; j < tasks.size(); j++) {
+                    tasks.get(j).cancel(false);
+                }
+                throw first.error();
+            }
+        }
+
+        if (failure != null) {
+            throw failure.error();
+        }
+
+        if (cache != null) {
+            cache.commit();
+        }
+    }
+
+    private Callable<Failure> checkFunctions(ProgramNode program, List<Integer> indexes,
+            List<TypeContext> scopes) {
+        return () -> {
+            TypeChecker checker = new TypeChecker(this);
+
+            for (int i = 0; i < indexes.size(); i++) {
+                try {
+                    checker.checkFunction((FunctionDeclarationNode) program.statements.get(indexes.get(i)),
+                            scopes.get(i));
+                } catch (RuntimeException e) {
+                    return new Failure(indexes.get(i), e);
+                }
+            }
+            return null;
+        };
+    }
+
+    // Pass 1: Collect signatures, then bind variables to their declarations
+    private void collectAndResolve(ProgramNode program) {
         for (StatementNode node : program.statements) {
             if (node instanceof FunctionDeclarationNode f) {
                 collectFunction(f);
             }
         }
+        functions.freeze();
 
-        // Pass 2: Check bodies
-        TypeContext global = new TypeContext(null);
-        for (StatementNode stmt : program.statements) {
-            checkStatement(stmt, global);
+        resolver.resolve(program, cache != null);
+
+        if (cache != null) {
+            cache.begin();
+        }
+    }
+
+    // Checks a top-level function unless the cache has seen it check with the
+    // same inputs (its type references are already resolved by the resolver)
+    private void checkFunction(FunctionDeclarationNode f, TypeContext global) {
+        if (cache != null && cache.lookup(f.fingerprint)) {
+            return;
+        }
+
+        checkStatement(f, global);
+
+        if (cache != null) {
+            cache.store(f.fingerprint);
         }
     }
 
@@ -93,6 +303,11 @@ public class TypeChecker {
      * Checks if function exists, arg count matches, and types are assignable.
      */
     public TypeSymbol checkCallExpression(CallExpressionNode node, TypeContext ctx) {
+        return checkExpression(node, ctx, ExpressionContext.ARGUMENT);
+    }
+
+    // Checks the callee and the argument count, before the arguments
+    private FunctionSymbol resolveCall(CallExpressionNode node) {
         String funcName = node.callee.getValue();
 
         if (!functions.contains(funcName)) {
@@ -107,109 +322,129 @@ public class TypeChecker {
                     "Expected " + fn.parameters.size() + ", got " + node.arguments.size(), null, node);
         }
 
-        for (int i = 0; i < node.arguments.size(); i++) {
-            TypeSymbol arg = checkExpression(node.arguments.get(i), ctx, ExpressionContext.ARGUMENT);
-            TypeSymbol param = fn.parameters.get(i);
+        return fn;
+    }
 
-            if (!isAssignable(arg, param)) {
-                semanticError(DiagnosticCode.E207, "Type mismatch in argument " + (i + 1),
-                        "Expected " + param + ", got " + arg, null, node.arguments.get(i));
-            }
-        }
+    private void checkArgument(CallExpressionNode node, FunctionSymbol fn, int i, TypeSymbol arg) {
+        TypeSymbol param = fn.parameters.get(i);
 
-        return fn.returnType;
+        if (!isAssignable(arg, param)) {
+            semanticError(DiagnosticCode.E207, "Type mismatch in argument " + (i + 1),
+                    "Expected " + param + ", got " + arg, null, node.arguments.get(i));
+        }
     }
 
     /**
      * Validates a statement. Dispatches to specific handlers based on node type.
+     * <p>
+     * The statements of blocks, loops, decisions and function bodies are
+     * pushed on an explicit stack rather than checked by recursive calls, so
+     * nesting is bounded by memory instead of the call stack. They are still
+     * checked in source order, each in the same scope as before.
+     * </p>
      */
     public void checkStatement(StatementNode node, TypeContext ctx) {
-        if (node instanceof ConstantDeclarationNode c) {
-            TypeSymbol declared = resolveTypeSymbol(c.type);
-            TypeSymbol value = checkExpression(c.value, ctx, ExpressionContext.ASSIGNMENT);
-            if (!isAssignable(value, declared))
-                semanticError(DiagnosticCode.E207, "Type mismatch",
-                        "Cannot assign " + value + " to constant " + declared, null, node);
-            if (!isCompileTimeConstant(c.value))
-                semanticError(DiagnosticCode.E213, "Constant must be evaluable at compile-time", "Use literals", null,
-                        node);
-            ctx.declare(c.name.getValue(), new ConstantSymbol(declared));
-            return;
-        }
-        if (node instanceof VariableDeclarationNode v) {
-            TypeSymbol declared = resolveTypeSymbol(v.type);
-            TypeSymbol value = checkExpression(v.value, ctx, ExpressionContext.ASSIGNMENT);
-            if (!isAssignable(value, declared)) {
+        Deque<Pending> work = new ArrayDeque<>();
+        work.push(new Pending(node, null, ctx));
 
-                semanticError(DiagnosticCode.E207, "Type mismatch", "Cannot assign " + value + " to " + declared, null,
-                        node);
+        while (!work.isEmpty()) {
+            Pending next = work.pop();
+
+            if (next.branch() != null) {
+                TypeSymbol oc = checkExpression(next.branch().condition, next.ctx(), ExpressionContext.CONDITION);
+                if (!isBoolean(oc)) {
+                    semanticError(DiagnosticCode.E211, "Otherwise condition must be boolean", null, null,
+                            next.branch());
+                }
+            } else if (next.statement() == null) {
+                currentReturnType = null;
+            } else {
+                checkStatement(next.statement(), next.ctx(), work);
             }
-            ctx.declare(v.name.getValue(), declared);
-            return;
-        }
-        if (node instanceof AssignmentStatementNode a) {
-            TypeSymbol target = resolveTarget(a.name, ctx);
-            if (target instanceof ConstantSymbol)
-                semanticError(DiagnosticCode.E209, "Cannot assign to constant", "Remove assignment", null, node);
-            TypeSymbol value = checkExpression(a.value, ctx, ExpressionContext.ASSIGNMENT);
-            if (!isAssignable(value, target))
-                semanticError(DiagnosticCode.E207, "Type mismatch", "Expected " + target + ", got " + value, null,
-                        node);
-            return;
-        }
-        if (node instanceof BlockStatementNode b) {
-            TypeContext local = new TypeContext(ctx);
-            for (StatementNode stmt : b.statements)
-                checkStatement(stmt, local);
-            return;
-        }
-        if (node instanceof ExpressionStatementNode e) {
-            checkExpression(e.expression, ctx, ExpressionContext.GENERAL);
-            return;
-        }
-        if (node instanceof FunctionDeclarationNode f) {
-            checkFunctionDeclaration(f, ctx);
-            return;
-        }
-        if (node instanceof ReturnStatementNode r) {
-            checkReturn(r, ctx);
-            return;
         }
-        if (node instanceof DecisionStatementNode d) {
-            checkDecision(d, ctx);
-            return;
-        }
-        if (node instanceof WhileStatementNode w) {
-            TypeSymbol c = checkExpression(w.condition, ctx, ExpressionContext.CONDITION);
-            if (!isBoolean(c))
-                semanticError(DiagnosticCode.E211, "Condition must be boolean", null, null, w);
-            checkStatement(w.body, new TypeContext(ctx));
-            return;
-        }
-        if (node instanceof ModuleDeclarationNode || node instanceof ImportDeclarationNode)
-            return;
-
-        throw new RuntimeException("Unchecked statement: " + node.getClass().getSimpleName());
     }
 
-    public void checkDecision(DecisionStatementNode d, TypeContext ctx) {
-        TypeSymbol c = checkExpression(d.condition, ctx, ExpressionContext.CONDITION);
-        if (!isBoolean(c))
-            semanticError(DiagnosticCode.E211, "If condition must be boolean", null, null, d);
-        checkStatement(d.ifBlock, new TypeContext(ctx));
-
-        for (OtherwiseBranchNode o : d.otherwiseBranches) {
-            TypeSymbol oc = checkExpression(o.condition, ctx, ExpressionContext.CONDITION);
-            if (!isBoolean(oc)) {
-                semanticError(DiagnosticCode.E211, "Otherwise condition must be boolean", null, null, o);
+    private void checkStatement(StatementNode node, TypeContext ctx, Deque<Pending> work) {
+        switch (node) {
+            case ConstantDeclarationNode c -> {
+                TypeSymbol declared = resolveTypeSymbol(c.type);
+                TypeSymbol value = checkExpression(c.value, ctx, ExpressionContext.ASSIGNMENT);
+                if (!isAssignable(value, declared))
+                    semanticError(DiagnosticCode.E207, "Type mismatch",
+                            "Cannot assign " + value + " to constant " + declared, null, node);
+                if (!isCompileTimeConstant(c.value))
+                    semanticError(DiagnosticCode.E213, "Constant must be evaluable at compile-time", "Use literals",
+                            null, node);
+                ctx.declare(c.slot, c.name.getValue(), new ConstantSymbol(declared));
+            }
+            case VariableDeclarationNode v -> {
+                TypeSymbol declared = resolveTypeSymbol(v.type);
+                TypeSymbol value = checkExpression(v.value, ctx, ExpressionContext.ASSIGNMENT);
+                if (!isAssignable(value, declared)) {
+
+                    semanticError(DiagnosticCode.E207, "Type mismatch", "Cannot assign " + value + " to " + declared,
+                            null, node);
+                }
+                ctx.declare(v.slot, v.name.getValue(), declared);
+            }
+            case AssignmentStatementNode a -> {
+                TypeSymbol target = resolveTarget(a.name, ctx);
+                if (target instanceof ConstantSymbol)
+                    semanticError(DiagnosticCode.E209, "Cannot assign to constant", "Remove assignment", null, node);
+                TypeSymbol value = checkExpression(a.value, ctx, ExpressionContext.ASSIGNMENT);
+                if (!isAssignable(value, target))
+                    semanticError(DiagnosticCode.E207, "Type mismatch", "Expected " + target + ", got " + value, null,
+                            node);
+            }
+            case BlockStatementNode b -> {
+                TypeContext local = new TypeContext(ctx);
+                for (int i = b.statements.size() - 1; i >= 0; i--)
+                    work.push(new Pending(b.statements.get(i), null, local));
+            }
+            case ExpressionStatementNode e -> checkExpression(e.expression, ctx, ExpressionContext.GENERAL);
+            case FunctionDeclarationNode f -> {
+                TypeContext local = enterFunction(f, ctx);
+                work.push(END_OF_FUNCTION);
+                work.push(new Pending(f.body, null, local));
+            }
+            case ReturnStatementNode r -> checkReturn(r, ctx);
+            case DecisionStatementNode d -> {
+                TypeSymbol c = checkExpression(d.condition, ctx, ExpressionContext.CONDITION);
+                if (!isBoolean(c))
+                    semanticError(DiagnosticCode.E211, "If condition must be boolean", null, null, d);
+
+                if (d.afterallBlock != null)
+                    work.push(new Pending(d.afterallBlock, null, new TypeContext(ctx)));
+                for (int i = d.otherwiseBranches.size() - 1; i >= 0; i--) {
+                    OtherwiseBranchNode o = d.otherwiseBranches.get(i);
+                    work.push(new Pending(o.body, null, new TypeContext(ctx)));
+                    work.push(new Pending(null, o, ctx));
+                }
+                work.push(new Pending(d.ifBlock, null, new TypeContext(ctx)));
+            }
+            case WhileStatementNode w -> {
+                TypeSymbol c = checkExpression(w.condition, ctx, ExpressionContext.CONDITION);
+                if (!isBoolean(c))
+                    semanticError(DiagnosticCode.E211, "Condition must be boolean", null, null, w);
+                work.push(new Pending(w.body, null, new TypeContext(ctx)));
+            }
+            case ModuleDeclarationNode m -> {
+            }
+            case ImportDeclarationNode i -> {
             }
-            checkStatement(o.body, new TypeContext(ctx));
         }
-        if (d.afterallBlock != null)
-            checkStatement(d.afterallBlock, new TypeContext(ctx));
+    }
+
+    public void checkDecision(DecisionStatementNode d, TypeContext ctx) {
+        checkStatement(d, ctx);
     }
 
     public void checkFunctionDeclaration(FunctionDeclarationNode node, TypeContext ctx) {
+        checkStatement(node, ctx);
+    }
+
+    // Checks the signature of a function and returns the scope of its body
+    private TypeContext enterFunction(FunctionDeclarationNode node, TypeContext ctx) {
         if (node.name.getValue().equals("main")) {
             if (!node.parameters.isEmpty())
                 semanticError(DiagnosticCode.E210, "Main cannot have parameters", null, null, node);
@@ -220,9 +455,8 @@ public class TypeChecker {
         currentReturnType = resolveTypeSymbol(node.returnType);
         TypeContext local = new TypeContext(ctx);
         for (ParameterNode param : node.parameters)
-            local.declare(param.name.getValue(), resolveTypeSymbol(param.type));
-        checkStatement(node.body, local);
-        currentReturnType = null;
+            local.declare(param.slot, param.name.getValue(), resolveTypeSymbol(param.type));
+        return local;
     }
 
     public void checkReturn(ReturnStatementNode node, TypeContext ctx) {
@@ -254,72 +488,204 @@ public class TypeChecker {
 
     /**
      * Evaluates the type of an expression based on the context.
+     * <p>
+     * The binary, index and call expressions whose operands are being checked
+     * wait on an explicit stack of {@link Operands}, so expressions may be
+     * nested as deeply as memory allows. Operands are checked left to right,
+     * and each expression right after its last operand. Every expression
+     * checked keeps its type in {@link ExpressionNode#resolvedType}.
+     * </p>
      * 
      * @param context Used to determine if Magic Numbers are allowed.
      */
     public TypeSymbol checkExpression(ExpressionNode node, TypeContext ctx, ExpressionContext context) {
-        if (node instanceof LiteralExpressionNode l) {
-            if (l.value.getType() == TokenType.INTEGER_LITERAL) {
-                String v = l.value.getValue();
-                boolean isAllowed = context == ExpressionContext.ASSIGNMENT || context == ExpressionContext.GENERAL
-                        || v.equals("0") || v.equals("1");
-                if (!isAllowed)
-                    semanticError(DiagnosticCode.E212, "Magic Number '" + v + "' violation",
-                            "Assign this to a named variable", null,
-                            node);
-                return new PrimitiveTypeSymbol(Type.INTEGER, true);
-            }
-            if (l.value.getType() == TokenType.DOUBLE_LITERAL) {
-                if (context != ExpressionContext.ASSIGNMENT && context != ExpressionContext.RETURN)
-                    semanticError(DiagnosticCode.E212, "Decimal literal context error", "Assign to variable", null,
-                            node);
-                return new PrimitiveTypeSymbol(Type.DOUBLE, true);
-            }
-            return resolveLiteral(l.value);
-        }
-        if (node instanceof VariableExpressionNode v) {
-            TypeSymbol s = ctx.resolve(v.name.getValue());
-            if (s == null) {
-                semanticError(DiagnosticCode.E217, "The variable '" + v.name.getValue() + "' does not exist",
-                        "Remove it or create it",
-                        null, v);
+        int base = operandDepth;
+
+        try {
+            descend:
+            while (true) {
+                TypeSymbol type = null;
+
+                switch (node) {
+                    case null -> type = PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
+                    case LiteralExpressionNode l -> type = checkLiteral(l, context);
+                    case VariableExpressionNode v -> type = checkVariable(v, ctx);
+                    case BinaryExpressionNode b -> {
+                        push(b, null);
+                        node = b.left;
+                        context = ExpressionContext.GENERAL;
+                        continue descend;
+                    }
+                    case IndexExpressionNode i -> {
+                        push(i, null);
+                        node = i.target;
+                        context = ExpressionContext.INDEX;
+                        continue descend;
+                    }
+                    case CallExpressionNode c -> {
+                        FunctionSymbol fn = resolveCall(c);
+                        if (!c.arguments.isEmpty()) {
+                            push(c, fn);
+                            node = c.arguments.get(0);
+                            context = ExpressionContext.ARGUMENT;
+                            continue descend;
+                        }
+                        type = fn.returnType;
+                    }
+                    // ... (Array validation logic identical to previous code, omitted for brevity)
+                    // ...
+                    // Assuming full logic from previous turn is placed here
+                    case NewArrayExpressionNode n -> type = resolveTypeSymbol(n.type);
+                }
+
+                if (node != null)
+                    node.resolvedType = type;
+
+                // Hand the type to the expressions waiting for it
+                while (operandDepth > base) {
+                    Operands top = operands.get(operandDepth - 1);
+
+                    switch (top.node) {
+                        case BinaryExpressionNode b -> {
+                            if (top.checked++ == 0) {
+                                top.first = type;
+                                node = b.right;
+                                context = ExpressionContext.GENERAL;
+                                continue descend;
+                            }
+                            type = binaryType(b, top.first, type);
+                        }
+                        case IndexExpressionNode i -> {
+                            if (top.checked++ == 0) {
+                                top.first = type;
+                                node = i.index;
+                                context = ExpressionContext.INDEX;
+                                continue descend;
+                            }
+                            type = indexType(i, top.first, type);
+                        }
+                        case CallExpressionNode c -> {
+                            checkArgument(c, top.function, top.checked, type);
+                            if (++top.checked < c.arguments.size()) {
+                                node = c.arguments.get(top.checked);
+                                context = ExpressionContext.ARGUMENT;
+                                continue descend;
+                            }
+                            type = top.function.returnType;
+                        }
+                        default -> throw new IllegalStateException("No operands to check in " + top.node);
+                    }
+
+                    top.node.resolvedType = type;
+                    operandDepth--;
+                    top.node = null;
+                    top.first = null;
+                    top.function = null;
+                }
+
+                return type;
             }
-            return s;
+        } finally {
+            operandDepth = base;
         }
-        if (node instanceof BinaryExpressionNode b)
-            return checkBinary(b, ctx);
-        if (node instanceof CallExpressionNode c)
-            return checkCallExpression(c, ctx);
-        if (node instanceof IndexExpressionNode i) {
-            TypeSymbol t = checkExpression(i.target, ctx, ExpressionContext.INDEX);
-            TypeSymbol idx = checkExpression(i.index, ctx, ExpressionContext.INDEX);
-            if (!(t instanceof ArrayTypeSymbol a)) {
-                semanticError(DiagnosticCode.E215, "Not an array", null, null, i.target);
-                return null;
+    }
+
+    private void push(ExpressionNode node, FunctionSymbol function) {
+        if (operandDepth == operands.size()) {
+            operands.add(new Operands());
+        }
+
+        Operands entry = operands.get(operandDepth++);
+        entry.node = node;
+        entry.checked = 0;
+        entry.first = null;
+        entry.function = function;
+    }
+
+    public TypeSymbol checkLiteral(LiteralExpressionNode node, ExpressionContext context) {
+        if (node.value.getType() == TokenType.INTEGER_LITERAL) {
+            long v = node.integerValue;
+            boolean isAllowed = context == ExpressionContext.ASSIGNMENT || context == ExpressionContext.GENERAL
+                    || v == 0 || v == 1;
+            if (!isAllowed)
+                semanticError(DiagnosticCode.E212, "Magic Number '" + v + "' violation",
+                        "Assign this to a named variable", null,
+                        node);
+            return PrimitiveTypeSymbol.of(Type.INTEGER, true);
+        }
+        if (node.value.getType() == TokenType.DOUBLE_LITERAL) {
+            if (context != ExpressionContext.ASSIGNMENT && context != ExpressionContext.RETURN)
+                semanticError(DiagnosticCode.E212, "Decimal literal context error", "Assign to variable", null,
+                        node);
+            return PrimitiveTypeSymbol.of(Type.DOUBLE, true);
+        }
+        return resolveLiteral(node.value);
+    }
+
+    public TypeSymbol checkVariable(VariableExpressionNode node, TypeContext ctx) {
+        TypeSymbol s = lookup(node, ctx);
+        if (s == null) {
+            semanticError(DiagnosticCode.E217, "The variable '" + node.name.getValue() + "' does not exist",
+                    "Remove it or create it",
+                    null, node);
+        }
+        // Reading a constant gives a value of its type; only assignments to
+        // it see the ConstantSymbol
+        return s instanceof ConstantSymbol c ? c.type : s;
+    }
+
+    // By the coordinates of the resolver, or by name in a tree it has not seen
+    private TypeSymbol lookup(VariableExpressionNode node, TypeContext ctx) {
+        if (node.slot < 0 || node.depth > ctx.level) {
+            return ctx.resolve(node.name.getValue());
+        }
+        return scope(ctx, node.depth).get(node.slot);
+    }
+
+    /**
+     * @return The scope of this level around {@code ctx}. The scopes of the
+     *         last context seen are kept by level, so walking the parents is
+     *         only needed when the checker moves to another scope, and then
+     *         only up to the first scope both share.
+     */
+    private TypeContext scope(TypeContext ctx, int level) {
+        if (ctx.level > scopeLevel || scopes[ctx.level] != ctx) {
+            if (ctx.level >= scopes.length) {
+                scopes = Arrays.copyOf(scopes, Math.max(ctx.level + 1, scopes.length * 2));
             }
-            if (!(idx instanceof PrimitiveTypeSymbol p && p.type == Type.INTEGER))
-                semanticError(DiagnosticCode.E207, "Index must be integer", null, null, i.index);
-            return new PrimitiveTypeSymbol(a.elementType, false);
+
+            for (TypeContext s = ctx; s != null && (s.level > scopeLevel || scopes[s.level] != s); s = s.parent) {
+                scopes[s.level] = s;
+            }
+            scopeLevel = ctx.level;
         }
-        if (node instanceof NewArrayExpressionNode n) {
-            // ... (Array validation logic identical to previous code, omitted for brevity)
-            // ...
-            // Assuming full logic from previous turn is placed here
-            TypeSymbol base = resolveTypeSymbol(n.type);
-            return base;
+        return scopes[level];
+    }
+
+    public TypeSymbol checkIndex(IndexExpressionNode node, TypeContext ctx) {
+        return checkExpression(node, ctx, ExpressionContext.INDEX);
+    }
+
+    private TypeSymbol indexType(IndexExpressionNode node, TypeSymbol t, TypeSymbol idx) {
+        if (!(t instanceof ArrayTypeSymbol a)) {
+            semanticError(DiagnosticCode.E215, "Not an array", null, null, node.target);
+            return null;
         }
-        return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+        if (!(idx instanceof PrimitiveTypeSymbol p && p.type == Type.INTEGER))
+            semanticError(DiagnosticCode.E207, "Index must be integer", null, null, node.index);
+        return PrimitiveTypeSymbol.of(a.elementType, false);
     }
 
     public TypeSymbol checkBinary(BinaryExpressionNode node, TypeContext ctx) {
-        TypeSymbol left = checkExpression(node.left, ctx, ExpressionContext.GENERAL);
-        TypeSymbol right = checkExpression(node.right, ctx, ExpressionContext.GENERAL);
+        return checkExpression(node, ctx, ExpressionContext.GENERAL);
+    }
 
+    private TypeSymbol binaryType(BinaryExpressionNode node, TypeSymbol left, TypeSymbol right) {
         // If one of the sides is already unknown (previous error), we return UNKNOWN to
         // avoid cascade
         if ((left instanceof PrimitiveTypeSymbol p && p.type == Type.UNKNOWN) ||
                 (right instanceof PrimitiveTypeSymbol p2 && p2.type == Type.UNKNOWN)) {
-            return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+            return PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
         }
 
         switch (node.operator.getType()) {
@@ -332,18 +698,18 @@ public class TypeChecker {
                             "Invalid operation '+' between " + left + " and " + right,
                             "Operands must be numbers or strings",
                             null, node);
-                    return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+                    return PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
                 }
 
                 if (isStringConcat) {
-                    return new PrimitiveTypeSymbol(Type.STRING, true);
+                    return PrimitiveTypeSymbol.of(Type.STRING, true);
                 }
 
                 if (left.isDouble() || right.isDouble()) {
-                    return new PrimitiveTypeSymbol(Type.DOUBLE, true);
+                    return PrimitiveTypeSymbol.of(Type.DOUBLE, true);
                 }
 
-                return new PrimitiveTypeSymbol(Type.INTEGER, true);
+                return PrimitiveTypeSymbol.of(Type.INTEGER, true);
             }
 
             case MINUS:
@@ -355,13 +721,13 @@ public class TypeChecker {
                             "Operator '" + node.operator.getType() + "' requires numeric operands",
                             "Got " + left + " and " + right,
                             null, node);
-                    return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+                    return PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
                 }
 
                 if (left.isDouble() || right.isDouble()) {
-                    return new PrimitiveTypeSymbol(Type.DOUBLE, true);
+                    return PrimitiveTypeSymbol.of(Type.DOUBLE, true);
                 }
-                return new PrimitiveTypeSymbol(Type.INTEGER, true);
+                return PrimitiveTypeSymbol.of(Type.INTEGER, true);
             }
 
             case DOUBLEEQUAL:
@@ -371,9 +737,9 @@ public class TypeChecker {
                             "Cannot compare incompatible types " + left + " and " + right,
                             "Ensure types are comparable",
                             null, node);
-                    return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+                    return PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
                 }
-                return new PrimitiveTypeSymbol(Type.BOOLEAN, true);
+                return PrimitiveTypeSymbol.of(Type.BOOLEAN, true);
             }
 
             case GT:
@@ -385,9 +751,9 @@ public class TypeChecker {
                             "Comparison operator requires numeric operands",
                             "Got " + left + " and " + right,
                             null, node);
-                    return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+                    return PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
                 }
-                return new PrimitiveTypeSymbol(Type.BOOLEAN, true);
+                return PrimitiveTypeSymbol.of(Type.BOOLEAN, true);
             }
 
             case AND:
@@ -397,31 +763,49 @@ public class TypeChecker {
                             "Logical operator requires boolean operands",
                             "Got " + left + " and " + right,
                             null, node);
-                    return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+                    return PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
                 }
-                return new PrimitiveTypeSymbol(Type.BOOLEAN, true);
+                return PrimitiveTypeSymbol.of(Type.BOOLEAN, true);
             }
 
             default: {
                 semanticError(DiagnosticCode.E214, "Invalid operator", null, null, node);
-                return new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+                return PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
             }
         }
     }
 
     public TypeSymbol resolveLiteral(Token token) {
         return switch (token.getType()) {
-            case INTEGER_LITERAL -> new PrimitiveTypeSymbol(Type.INTEGER, true);
-            case DOUBLE_LITERAL -> new PrimitiveTypeSymbol(Type.DOUBLE, true);
-            case TRUE, FALSE -> new PrimitiveTypeSymbol(Type.BOOLEAN, true);
-            case STRING_LITERAL -> new PrimitiveTypeSymbol(Type.STRING, true);
-            case CHARACTER_LITERAL -> new PrimitiveTypeSymbol(Type.CHARACTER, true);
-            case NULL -> new PrimitiveTypeSymbol(Type.NULL, false);
-            default -> new PrimitiveTypeSymbol(Type.UNKNOWN, false);
+            case INTEGER_LITERAL -> PrimitiveTypeSymbol.of(Type.INTEGER, true);
+            case DOUBLE_LITERAL -> PrimitiveTypeSymbol.of(Type.DOUBLE, true);
+            case TRUE, FALSE -> PrimitiveTypeSymbol.of(Type.BOOLEAN, true);
+            case STRING_LITERAL -> PrimitiveTypeSymbol.of(Type.STRING, true);
+            case CHARACTER_LITERAL -> PrimitiveTypeSymbol.of(Type.CHARACTER, true);
+            case NULL -> PrimitiveTypeSymbol.of(Type.NULL, false);
+            default -> PrimitiveTypeSymbol.of(Type.UNKNOWN, false);
         };
     }
 
+    /**
+     * Resolves a type reference to its interned symbol and records it on the
+     * node, where later phases read it; a reference resolved before is not
+     * resolved again.
+     */
     public TypeSymbol resolveTypeSymbol(TypeReferenceNode node) {
+        if (node.resolvedType != null)
+            return node.resolvedType;
+        node.resolvedType = symbolOf(node);
+        if (node.resolvedType == null)
+            semanticError(DiagnosticCode.E201, "Unknown type", null, null, node);
+        return node.resolvedType;
+    }
+
+    /**
+     * @return The interned symbol of a type reference, or {@code null} if its
+     *         base type is unknown.
+     */
+    static TypeSymbol symbolOf(TypeReferenceNode node) {
         Type base = switch (node.getBaseType().getType()) {
             case INTEGER_TYPE -> Type.INTEGER;
             case DOUBLE_TYPE -> Type.DOUBLE;
@@ -432,8 +816,8 @@ public class TypeChecker {
             default -> Type.UNKNOWN;
         };
         if (base == Type.UNKNOWN)
-            semanticError(DiagnosticCode.E201, "Unknown type", null, null, node);
-        return node.isArray() ? new ArrayTypeSymbol(base) : new PrimitiveTypeSymbol(base, true);
+            return null;
+        return node.isArray() ? ArrayTypeSymbol.of(base) : PrimitiveTypeSymbol.of(base, true);
     }
 
     public boolean isAssignable(TypeSymbol from, TypeSymbol to) {
@@ -451,16 +835,32 @@ public class TypeChecker {
     }
 
     private boolean isCompileTimeConstant(ExpressionNode node) {
-        return node instanceof LiteralExpressionNode || (node instanceof BinaryExpressionNode b
-                && isCompileTimeConstant(b.left) && isCompileTimeConstant(b.right));
+        // Literals combined by binary operators, however deep
+        Deque<ExpressionNode> pending = new ArrayDeque<>();
+        ExpressionNode next = node;
+
+        while (true) {
+            if (next instanceof BinaryExpressionNode b) {
+                pending.push(b.right);
+                next = b.left;
+                continue;
+            }
+            if (!(next instanceof LiteralExpressionNode)) {
+                return false;
+            }
+            if (pending.isEmpty()) {
+                return true;
+            }
+            next = pending.pop();
+        }
     }
 
     private TypeSymbol resolveTarget(ExpressionNode node, TypeContext ctx) {
         if (node instanceof VariableExpressionNode v)
-            return ctx.resolve(v.name.getValue());
+            return v.resolvedType = lookup(v, ctx);
         if (node instanceof IndexExpressionNode i) {
             checkExpression(i, ctx, ExpressionContext.ASSIGNMENT);
-            return new PrimitiveTypeSymbol(Type.UNKNOWN, true);
+            return PrimitiveTypeSymbol.of(Type.UNKNOWN, true);
         }
         semanticError(DiagnosticCode.E209, "Invalid assignment target", null, null, node);
         return null;
@@ -1,15 +1,50 @@
 package org.klang.core.semantics;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * A scope of the {@link TypeChecker}.
+ * <p>
+ * Names are kept in declaration order, each at the slot the
+ * {@link ScopeResolver} gave it, so a resolved variable is found by index
+ * instead of by hashing its name in every scope around it. The lookups by
+ * name remain for trees the resolver has not seen.
+ * </p>
+ */
 public class TypeContext {
 
-    private final TypeContext parent;
-    private final Map<String, TypeSymbol> symbols = new HashMap<>();
+    private static final String[] NO_NAMES = {};
+    private static final TypeSymbol[] NO_TYPES = {};
+
+    final TypeContext parent;
+    /** Number of scopes around this one: {@code 0} for the global scope. */
+    final int level;
+
+    private String[] names = NO_NAMES;
+    private TypeSymbol[] types = NO_TYPES;
+    private int size;
 
     public TypeContext(TypeContext parent) {
         this.parent = parent;
+        this.level = parent == null ? 0 : parent.level + 1;
+    }
+
+    private TypeContext(TypeContext scope, int size) {
+        this.parent = scope.parent;
+        this.level = scope.level;
+        this.names = scope.names;
+        this.types = scope.types;
+        this.size = size;
+    }
+
+    /**
+     * @return A view of the names declared here so far, to be read (never
+     *         declared into) by another thread. Declaring more names here only
+     *         writes past the end of the view, or into new arrays, so this
+     *         scope can keep growing meanwhile.
+     */
+    TypeContext snapshot() {
+        return new TypeContext(this, size);
     }
 
     /**
@@ -17,10 +52,26 @@ public class TypeContext {
      * tratar o erro).
      */
     public boolean declare(String name, TypeSymbol type) {
-        if (symbols.containsKey(name)) {
+        if (indexOf(name) >= 0) {
             return false;
         }
-        symbols.put(name, type);
+        add(name, type);
+        return true;
+    }
+
+    /**
+     * Declares a name at the slot the resolver gave it. A slot this scope
+     * already has is a redeclaration and, as in {@link #declare(String, TypeSymbol)},
+     * keeps the first type.
+     */
+    boolean declare(int slot, String name, TypeSymbol type) {
+        if (slot < 0 || slot > size) {
+            return declare(name, type);
+        }
+        if (slot < size) {
+            return false;
+        }
+        add(name, type);
         return true;
     }
 
@@ -28,12 +79,38 @@ public class TypeContext {
      * Busca uma variável. Retorna NULL se não achar (não lança exceção).
      */
     public TypeSymbol resolve(String name) {
-        if (symbols.containsKey(name)) {
-            return symbols.get(name);
-        }
-        if (parent != null) {
-            return parent.resolve(name);
+        for (TypeContext scope = this; scope != null; scope = scope.parent) {
+            int slot = scope.indexOf(name);
+            if (slot >= 0) {
+                return scope.types[slot];
+            }
         }
         return null;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return The type declared at this slot of the scope, or {@code null}.
+     */
+    TypeSymbol get(int slot) {
+        return slot < size ? types[slot] : null;
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void add(String name, TypeSymbol type) {
+        if (size == names.length) {
+            int capacity = Math.max(4, size * 2);
+            names = Arrays.copyOf(names, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        names[size] = name;
+        types[size++] = type;
+    }
+}
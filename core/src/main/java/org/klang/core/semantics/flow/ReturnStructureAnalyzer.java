@@ -2,12 +2,18 @@ package org.klang.core.semantics.flow;
 
 import java.util.List;
 
+import org.klang.core.parser.ast.AssignmentStatementNode;
 import org.klang.core.parser.ast.BlockStatementNode;
+import org.klang.core.parser.ast.ConstantDeclarationNode;
 import org.klang.core.parser.ast.DecisionStatementNode;
+import org.klang.core.parser.ast.ExpressionStatementNode;
 import org.klang.core.parser.ast.FunctionDeclarationNode;
+import org.klang.core.parser.ast.ImportDeclarationNode;
+import org.klang.core.parser.ast.ModuleDeclarationNode;
 import org.klang.core.parser.ast.OtherwiseBranchNode;
 import org.klang.core.parser.ast.ReturnStatementNode;
 import org.klang.core.parser.ast.StatementNode;
+import org.klang.core.parser.ast.VariableDeclarationNode;
 import org.klang.core.parser.ast.WhileStatementNode;
 
 public final class ReturnStructureAnalyzer {
@@ -40,28 +46,39 @@ public final class ReturnStructureAnalyzer {
     }
 
     private void scan(StatementNode stmt) {
-        if (stmt instanceof ReturnStatementNode) {
-            error(stmt, "return is only allowed as the final statement of a function");
-        }
-
-        if (stmt instanceof BlockStatementNode block) {
-            for (StatementNode s : block.statements) {
-                scan(s);
+        switch (stmt) {
+            case null -> {
             }
-        }
-
-        if (stmt instanceof DecisionStatementNode d) {
-            scan(d.ifBlock);
-
-            for (OtherwiseBranchNode o : d.otherwiseBranches) {
-                scan(o.body);
+            case ReturnStatementNode r -> error(r, "return is only allowed as the final statement of a function");
+            case BlockStatementNode block -> {
+                for (StatementNode s : block.statements) {
+                    scan(s);
+                }
             }
+            case DecisionStatementNode d -> {
+                scan(d.ifBlock);
 
-            scan(d.afterallBlock);
-        }
+                for (OtherwiseBranchNode o : d.otherwiseBranches) {
+                    scan(o.body);
+                }
 
-        if (stmt instanceof WhileStatementNode w) {
-            scan(w.body);
+                scan(d.afterallBlock);
+            }
+            case WhileStatementNode w -> scan(w.body);
+            case FunctionDeclarationNode f -> {
+            }
+            case VariableDeclarationNode v -> {
+            }
+            case ConstantDeclarationNode c -> {
+            }
+            case AssignmentStatementNode a -> {
+            }
+            case ExpressionStatementNode e -> {
+            }
+            case ModuleDeclarationNode m -> {
+            }
+            case ImportDeclarationNode i -> {
+            }
         }
     }
 
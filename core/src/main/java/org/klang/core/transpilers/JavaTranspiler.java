@@ -2,7 +2,10 @@ package org.klang.core.transpilers;
 
 
 import java.nio.file.Path;
-import java.util.stream.Collectors;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 
 import org.klang.core.errors.SourceManager;
 import org.klang.core.lexer.Token;
@@ -16,8 +19,10 @@ import org.klang.core.parser.ast.DecisionStatementNode;
 import org.klang.core.parser.ast.ExpressionNode;
 import org.klang.core.parser.ast.ExpressionStatementNode;
 import org.klang.core.parser.ast.FunctionDeclarationNode;
+import org.klang.core.parser.ast.ImportDeclarationNode;
 import org.klang.core.parser.ast.IndexExpressionNode;
 import org.klang.core.parser.ast.LiteralExpressionNode;
+import org.klang.core.parser.ast.ModuleDeclarationNode;
 import org.klang.core.parser.ast.NewArrayExpressionNode;
 import org.klang.core.parser.ast.OtherwiseBranchNode;
 import org.klang.core.parser.ast.ParameterNode;
@@ -28,36 +33,49 @@ import org.klang.core.parser.ast.TypeReferenceNode;
 import org.klang.core.parser.ast.VariableDeclarationNode;
 import org.klang.core.parser.ast.VariableExpressionNode;
 import org.klang.core.parser.ast.WhileStatementNode;
-import org.klang.core.semantics.TypeChecker;
 import org.klang.core.semantics.TypeSymbol;
 import org.klang.core.semantics.ArrayTypeSymbol;
 import org.klang.core.semantics.PrimitiveTypeSymbol;
 import org.klang.core.semantics.Type;
 
+/**
+ * Emits the Java class of a checked program.
+ * <p>
+ * Blocks are not transpiled by recursive calls: their statements, and the
+ * braces and {@code else} headers around them, wait on a stack of pending
+ * steps. Expressions are likewise flattened into a stack of nodes and text,
+ * so a deeply nested program does not exhaust the call stack.
+ * </p>
+ * <p>
+ * The program must have been checked by a
+ * {@link org.klang.core.semantics.TypeChecker}: declared types are read from
+ * the symbols it left on the AST instead of being resolved again.
+ * </p>
+ */
 public class JavaTranspiler {
     private final SourceManager sm;
     private final Path path;
     private final JavaEmitter out = new JavaEmitter();
     private final JavaContext context = new JavaContext();
-    private final TypeChecker t;;
     private final String fileName;
+    private final Deque<Runnable> pending = new ArrayDeque<>();
 
     public JavaTranspiler(String fileName, SourceManager sm, Path path){
         this.fileName = fileName;
         this.sm = sm;
         this.path = path;
-
-        this.t = new TypeChecker(sm, path);
     }
 
     public String transpile(ProgramNode program){
         emitHeader();
 
-        for (StatementNode stmt : program.statements) {
-            transpileStatement(stmt);
+        pending.push(out::closeBlock);
+        pushStatements(program.statements);
+
+        while (!pending.isEmpty()) {
+            pending.pop().run();
         }
 
-        out.closeBlock();
         return out.result();
     }
 
@@ -67,55 +85,38 @@ public class JavaTranspiler {
     }
 
     private void transpileStatement(AstNode stmt){
-        if (stmt instanceof FunctionDeclarationNode f) {
-            out.newLine();
-            transpileFunction(f);
-            return;
-        }
-
-        if (stmt instanceof ConstantDeclarationNode c){
-            transpileConstantDecl(c);
-            return;
-        }
-
-        if (stmt instanceof VariableDeclarationNode v) {
-            transpileVarDecl(v);
-            return;
-        }
-
-        if (stmt instanceof DecisionStatementNode d){
-            out.newLine();
-            transpileDecision(d);
-            return;
-        }
-
-        if (stmt instanceof WhileStatementNode w){
-            transpileWhile(w);
-            return;
-        }
-
-        if (stmt instanceof AssignmentStatementNode a) {
-            transpileAssigment(a);            
-            return;
-        }
-
-        if (stmt instanceof ExpressionStatementNode e) {
-            out.emitLine(transpileExpression(e.expression) + out.semicollon());
-            return;
-        }
-
-        if (stmt instanceof ReturnStatementNode r) {
-            out.newLine();
-            transpileReturn(r);
-            return;
-        }
-
-        if (stmt instanceof NewArrayExpressionNode n){
-            transpileArrayDecl(n);
-            return;
+        switch (stmt) {
+            case FunctionDeclarationNode f -> {
+                out.newLine();
+                transpileFunction(f);
+            }
+            case ConstantDeclarationNode c -> transpileConstantDecl(c);
+            case VariableDeclarationNode v -> transpileVarDecl(v);
+            case DecisionStatementNode d -> {
+                out.newLine();
+                transpileDecision(d);
+            }
+            case WhileStatementNode w -> transpileWhile(w);
+            case AssignmentStatementNode a -> transpileAssigment(a);
+            case ExpressionStatementNode e -> out.emitLine(transpileExpression(e.expression) + out.semicollon());
+            case ReturnStatementNode r -> {
+                out.newLine();
+                transpileReturn(r);
+            }
+            case NewArrayExpressionNode n -> transpileArrayDecl(n);
+            case BlockStatementNode b -> throw unsupportedStatement(b);
+            case ModuleDeclarationNode m -> throw unsupportedStatement(m);
+            case ImportDeclarationNode i -> throw unsupportedStatement(i);
+            case BinaryExpressionNode b -> throw unsupportedStatement(b);
+            case IndexExpressionNode i -> throw unsupportedStatement(i);
+            case LiteralExpressionNode l -> throw unsupportedStatement(l);
+            case VariableExpressionNode v -> throw unsupportedStatement(v);
+            case CallExpressionNode c -> throw unsupportedStatement(c);
         }
+    }
 
-        throw new RuntimeException(
+    private RuntimeException unsupportedStatement(AstNode stmt){
+        return new RuntimeException(
             "Unsupported top-level statement: " + stmt.getClass().getSimpleName()
         );
     }
@@ -141,7 +142,6 @@ public class JavaTranspiler {
 
         out.openBlock();
         transpileBlock(w.body);
-        out.closeBlock();
 
         return;
     }
@@ -151,35 +151,43 @@ public class JavaTranspiler {
         out.emit("if (");
         out.emit(transpileExpression(d.condition));
         out.emit(")");
-        out.openBlock();
 
-        transpileBlock(d.ifBlock);
-        out.closeBlock();
-
-        for (OtherwiseBranchNode o : d.otherwiseBranches){
-            out.indent();
-            out.emit("else if (");
-            out.emit(transpileExpression(o.condition));
-            out.emit(")");
+        // Pushed last to first: the if block runs first, the afterall block last
+        if (d.afterallBlock != null){
+            transpileBranch(d.afterallBlock, () -> {
+                out.indent();
 
-            if (o.reason != null){
-                out.openBlockWith(" // " + o.reason + "\n");
-            } else {
+                out.emit("else ");
                 out.openBlock();
-            }
-
-            transpileBlock(o.body);
-            out.closeBlock();
+            });
         }
 
-        if (d.afterallBlock != null){
-            out.indent();
+        for (int i = d.otherwiseBranches.size() - 1; i >= 0; i--){
+            OtherwiseBranchNode o = d.otherwiseBranches.get(i);
+
+            transpileBranch(o.body, () -> {
+                out.indent();
+                out.emit("else if (");
+                out.emit(transpileExpression(o.condition));
+                out.emit(")");
 
-            out.emit("else ");
-            out.openBlock();
-            transpileBlock(d.afterallBlock);
-            out.closeBlock();
+                if (o.reason != null){
+                    out.openBlockWith(" // " + o.reason + "\n");
+                } else {
+                    out.openBlock();
+                }
+            });
         }
+
+        out.openBlock();
+        transpileBlock(d.ifBlock);
+    }
+
+    // Schedules a branch whose header is only emitted once the branches before it are
+    private void transpileBranch(BlockStatementNode body, Runnable header){
+        pending.push(out::closeBlock);
+        pushStatements(body.statements);
+        pending.push(header);
     }
 
     private void transpileFunction(FunctionDeclarationNode fn){
@@ -209,12 +217,18 @@ public class JavaTranspiler {
         out.emit(")");
         out.openBlock();
         transpileBlock(fn.body);
-        out.closeBlock();
     }
 
+    // Schedules the statements of a block just opened, then its closing brace
     private void transpileBlock(BlockStatementNode block){
-        for (StatementNode stmt : block.statements){
-            transpileStatement(stmt);
+        pending.push(out::closeBlock);
+        pushStatements(block.statements);
+    }
+
+    private void pushStatements(List<StatementNode> statements){
+        for (int i = statements.size() - 1; i >= 0; i--){
+            StatementNode stmt = statements.get(i);
+            pending.push(() -> transpileStatement(stmt));
         }
     }
 
@@ -240,67 +254,102 @@ public class JavaTranspiler {
     }
 
     private String transpileExpression(ExpressionNode e){
-        if (e instanceof LiteralExpressionNode l) {
-            return switch (l.value.getType()) {
-                case TRUE -> "true";
-                case FALSE -> "false";
-                case STRING_LITERAL -> l.value.getValue();
-                case INTEGER_LITERAL, DOUBLE_LITERAL -> l.value.getValue();
-                case NULL -> "null";
-                default -> throw new RuntimeException(
-                    "Unsupported literal: " + l.value.getType()
-                );
-            };
+        StringBuilder java = new StringBuilder();
+        // Nodes still to transpile, the text between them and operators
+        List<Object> parts = new ArrayList<>();
+        parts.add(e);
+
+        while (!parts.isEmpty()){
+            Object part = parts.remove(parts.size() - 1);
+
+            if (part instanceof String text){
+                java.append(text);
+            } else if (part instanceof Token op){
+                java.append(javaOperator(op));
+            } else {
+                transpileExpression((ExpressionNode) part, java, parts);
+            }
         }
 
-        if (e instanceof IndexExpressionNode i) {
-            return transpileExpression(i.target) + "[" + transpileExpression(i.index) + "]";
+        return java.toString();
+    }
+
+    private void transpileExpression(ExpressionNode e, StringBuilder java, List<Object> parts){
+        switch (e) {
+            case null -> throw new RuntimeException("Unsupported expression in transpiler");
+            case LiteralExpressionNode l -> java.append(transpileLiteral(l));
+            case IndexExpressionNode i -> push(parts, i.target, "[", i.index, "]");
+            case VariableExpressionNode v -> java.append(v.name.getValue());
+            case BinaryExpressionNode b -> push(parts, b.left, " ", b.operator, " ", b.right);
+            case CallExpressionNode ce -> transpileCall(ce, parts);
+            case NewArrayExpressionNode n -> throw new RuntimeException("Unsupported expression in transpiler");
         }
+    }
 
-        if (e instanceof VariableExpressionNode v ){
-            return v.name.getValue();
+    // Pushes parts so that they are transpiled in the order given
+    private void push(List<Object> parts, Object... next){
+        for (int i = next.length - 1; i >= 0; i--){
+            parts.add(next[i]);
         }
+    }
 
-        if (e instanceof BinaryExpressionNode b ){
-            return transpileExpression(b.left) + " " + javaOperator(b.operator) + " " + transpileExpression(b.right);
+    private String transpileLiteral(LiteralExpressionNode l){
+        return switch (l.value.getType()) {
+            case TRUE -> "true";
+            case FALSE -> "false";
+            case STRING_LITERAL -> l.value.getValue();
+            case INTEGER_LITERAL -> Long.toString(l.integerValue);
+            case DOUBLE_LITERAL -> Double.toString(l.doubleValue);
+            case NULL -> "null";
+            default -> throw new RuntimeException(
+                "Unsupported literal: " + l.value.getType()
+            );
+        };
+    }
+
+    private void transpileCall(CallExpressionNode ce, List<Object> parts){
+        if (ce.callee.getValue().equals("println")) {
+            push(parts, "System.out.println(", ce.arguments.get(0), ")");
+            return;
+        }
+        
+        if (ce.callee.getValue().equals("print")) {
+            push(parts, "System.out.print(", ce.arguments.get(0), ")");
+            return;
         }
 
-        if (e instanceof CallExpressionNode ce ){
-            if (ce.callee.getValue().equals("println")) {
-                return "System.out.println(" + transpileExpression(ce.arguments.get(0)) + ")";
-            }
-            
-            if (ce.callee.getValue().equals("print")) {
-                return "System.out.print(" + transpileExpression(ce.arguments.get(0)) + ")";
-            }
+        if (ce.callee.getValue().equals("printf")) {
+            push(parts, "System.out.printf(", ce.arguments.get(0), ")");
+            return;
+        }
 
-            if (ce.callee.getValue().equals("printf")) {
-                return "System.out.printf(" + transpileExpression(ce.arguments.get(0)) + ")";
-            }
+        parts.add(")");
 
-            String args = ce.arguments.stream()
-            .map(this::transpileExpression)
-            .collect(Collectors.joining(", "));
+        for (int i = ce.arguments.size() - 1; i >= 0; i--){
+            parts.add(ce.arguments.get(i));
 
-            return ce.callee.getValue() + "(" + args + ")";
+            if (i > 0){
+                parts.add(", ");
+            }
         }
 
-        throw new RuntimeException("Unsupported expression in transpiler");
+        parts.add(ce.callee.getValue() + "(");
     }
 
     private String javaType(TypeReferenceNode type){
-        String base = switch (type.getBaseType().getType()) {
-            case INTEGER_TYPE -> "int";
-            case DOUBLE_TYPE -> "double";
-            case BOOLEAN_TYPE -> "boolean";
-            case STRING_TYPE -> "String";
-            case CHARACTER_TYPE -> "char";
+        TypeSymbol symbol = resolved(type);
+        String base = switch (mapType(type)) {
+            case INTEGER -> "int";
+            case DOUBLE -> "double";
+            case BOOLEAN -> "boolean";
+            case STRING -> "String";
+            case CHARACTER -> "char";
             case VOID -> "void";
 
             default -> throw new RuntimeException("Unsupproted type '" + type.getBaseType().getType() + "'");
         };
 
-        if (type.isArray()){
+        if (symbol instanceof ArrayTypeSymbol){
             return base + "[]";
         }
 
@@ -329,7 +378,7 @@ public class JavaTranspiler {
     }
 
     private Type mapType(TypeReferenceNode tk){
-        TypeSymbol type = t.resolveTypeSymbol(tk);
+        TypeSymbol type = resolved(tk);
 
         if (type instanceof PrimitiveTypeSymbol p){
             return p.type;
@@ -341,4 +390,14 @@ public class JavaTranspiler {
 
         return Type.UNKNOWN;
     }
+
+    private TypeSymbol resolved(TypeReferenceNode type){
+        if (type.resolvedType == null){
+            throw new IllegalStateException(
+                "Type '" + type.getBaseType().getType() + "' was not resolved: check the program before transpiling it"
+            );
+        }
+
+        return type.resolvedType;
+    }
 }
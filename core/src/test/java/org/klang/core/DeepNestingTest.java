@@ -0,0 +1,135 @@
+package org.klang.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.klang.core.errors.SourceManager;
+import org.klang.core.lexer.Lexer;
+import org.klang.core.optimizer.ConstantFolder;
+import org.klang.core.parser.Parser;
+import org.klang.core.parser.ast.ProgramNode;
+import org.klang.core.parser.binary.AstReader;
+import org.klang.core.parser.binary.AstWriter;
+import org.klang.core.semantics.TypeChecker;
+import org.klang.core.transpilers.JavaTranspiler;
+
+/**
+ * Compiles programs nested {@value #DEPTH} levels deep on the calling thread's
+ * stack, which a walk recursing once per level would overflow.
+ * <p>
+ * Nested expressions go through the whole pipeline. Nested statements go
+ * through parsing, type checking and a {@code .kast} round trip only: the Java
+ * emitted for them is indented once per level, so it grows with the square of
+ * the depth.
+ * </p>
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+class DeepNestingTest {
+
+    private static final int DEPTH = 100_000;
+
+    private static final Path PATH = Path.of("deep.k");
+
+    @Test
+    void parenthesesCompile() {
+        String java = compile("integer x = " + "(".repeat(DEPTH) + "a" + ")".repeat(DEPTH) + ";\n");
+
+        assertTrue(java.contains("int x = a;"));
+    }
+
+    @Test
+    void binaryChainsCompile() {
+        String java = compile("integer x = " + "a + ".repeat(DEPTH) + "a;\n");
+
+        assertTrue(java.contains("int x = " + "a + ".repeat(DEPTH) + "a;"));
+    }
+
+    @Test
+    void nestedCallsCompile() {
+        String java = compile("integer x = " + "id(".repeat(DEPTH) + "a" + ")".repeat(DEPTH) + ";\n");
+
+        assertTrue(java.contains("int x = " + "id(".repeat(DEPTH) + "a" + ")".repeat(DEPTH) + ";"));
+    }
+
+    @Test
+    void nestedIfsCheckAndRoundTrip() {
+        checkAndRoundTrip("if (a > b) {\n".repeat(DEPTH) + "a = b;\n" + "} afterall;\n".repeat(DEPTH));
+    }
+
+    @Test
+    void nestedWhilesCheckAndRoundTrip() {
+        checkAndRoundTrip("while (a > b) {\n".repeat(DEPTH) + "a = b;\n" + "}\n".repeat(DEPTH));
+    }
+
+    @Test
+    void nestedBlocksCheckAndRoundTrip() {
+        checkAndRoundTrip("{\n".repeat(DEPTH) + "a = b;\n" + "}\n".repeat(DEPTH));
+    }
+
+    private static String compile(String statements) {
+        SourceManager sourceManager = sourceManager(statements);
+        ProgramNode program = parse(sourceManager, statements);
+
+        new TypeChecker(sourceManager, PATH).check(program);
+        new ConstantFolder().fold(program);
+
+        return new JavaTranspiler("Deep", sourceManager, PATH).transpile(program);
+    }
+
+    private static void checkAndRoundTrip(String statements) {
+        SourceManager sourceManager = sourceManager(statements);
+        ProgramNode program = parse(sourceManager, statements);
+
+        new TypeChecker(sourceManager, PATH).check(program);
+
+        byte[] stamp = {1};
+        byte[] written = AstWriter.write(program, stamp);
+        ProgramNode read = AstReader.read(ByteBuffer.wrap(written), stamp);
+
+        assertNotNull(read);
+        assertEquals(program.statements.size(), read.statements.size());
+        // The tree read back must write the very same bytes
+        assertArrayEquals(written, AstWriter.write(read, stamp));
+    }
+
+    private static ProgramNode parse(SourceManager sourceManager, String statements) {
+        ByteBuffer source = source(statements);
+        Lexer lexer = new Lexer(source, PATH.toString(), sourceManager);
+
+        return new Parser(lexer.tokenizeSourceCode(), PATH, sourceManager).parseProgram();
+    }
+
+    private static SourceManager sourceManager(String statements) {
+        return new SourceManager(source(statements));
+    }
+
+    // main declares the variables the statements use; id passes its argument on
+    private static ByteBuffer source(String statements) {
+        String program = """
+                @Use("java")
+                public integer id(integer v) {
+                    return v;
+                }
+
+                @Use("java")
+                public void main() {
+                    integer a = 1;
+                    integer b = 2;
+                """ + statements + """
+                    println(a);
+                    return;
+                }
+                """;
+
+        return ByteBuffer.wrap(program.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,172 @@
+package org.klang.core.lexer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.klang.core.errors.KException;
+import org.klang.core.errors.SourceManager;
+
+/**
+ * Checks {@link Lexer#relex(TokenStream, TextEdit)} against a full
+ * {@link Lexer#tokenizeSourceCode()} of the edited source, over chains of
+ * random edits.
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+class LexerRelexTest {
+
+    private static final String SOURCE = """
+            // Running totals, with comments, strings and every literal kind
+            @Use("java")
+            public integer total(integer[] values, integer count) {
+                integer sum = 0;
+                integer i = 0;
+
+                /* Walks the array once.
+                   Multi-line comments may span several lines. */
+                while (i < count) {
+                    sum = sum + values[i];
+                    i = i + 1;
+                }
+
+                return sum;
+            }
+
+            @Use("java")
+            public void main() {
+                double ratio = 12.5;
+                character letter = 'k';
+                String label = "m\u00e9dia: \\"ok\\" \uD83D\uDE00";
+                boolean done = true;
+
+                if (ratio >= 10.0) {
+                    println(label + ratio);
+                } otherwise (ratio != 2.25) {
+                    println(letter);
+                } afterall {
+                    println(done);
+                }
+
+                return;
+            }
+            """;
+
+    /** Fragments that open, close or split tokens when dropped anywhere. */
+    private static final String[] FRAGMENTS = {
+            " ", "\n", "x", "1", ".", "5", "/*", "*/", "//", "\"", "ab", "\u00e9", "\uD83D\uDE00", "public",
+            "==", "-", "if", "12.5", "'a'", "\n  ", ";", "{", "}", "$"
+    };
+
+    private static final int SEEDS = 24;
+    private static final int EDITS_PER_SEED = 1500;
+
+    @Test
+    void relexMatchesFullRelexOverRandomEdits() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            ByteBuffer source = ByteBuffer.wrap(SOURCE.getBytes(StandardCharsets.UTF_8));
+            TokenStream previous = lexer(source).tokenizeSourceCode();
+
+            for (int step = 0; step < EDITS_PER_SEED; step++) {
+                TextEdit edit = randomEdit(random, source);
+                ByteBuffer edited = edit.applyTo(source);
+                String where = "seed " + seed + ", edit " + step + " at " + edit.offset();
+
+                String expected;
+                try {
+                    expected = dump(lexer(edited).tokenizeSourceCode());
+                } catch (KException e) {
+                    expected = e.format();
+                }
+
+                RelexResult result;
+                try {
+                    result = lexer(edited).relex(previous, edit);
+                } catch (KException e) {
+                    assertEquals(expected, e.format(), where);
+                    // A failed relex leaves nothing to chain on, so the edit is dropped
+                    continue;
+                }
+
+                assertEquals(expected, dump(result.tokens()), where);
+                assertChangedRange(previous, edit, result, where);
+
+                previous = result.tokens();
+                source = edited;
+            }
+        }
+    }
+
+    /**
+     * Tokens before {@code start} must be untouched and tokens from
+     * {@code previousEnd} on must only be shifted to {@code end}.
+     */
+    private static void assertChangedRange(TokenStream previous, TextEdit edit, RelexResult result, String where) {
+        TokenStream tokens = result.tokens();
+        int delta = edit.insertedLength() - edit.removedLength();
+
+        assertTrue(result.start() <= result.previousEnd() && result.start() <= result.end(), where);
+
+        for (int i = 0; i < result.start(); i++) {
+            assertEquals(dump(previous, i), dump(tokens, i), where + ", prefix token " + i);
+        }
+
+        int shift = result.end() - result.previousEnd();
+        assertEquals(previous.size() + shift, tokens.size(), where);
+
+        for (int i = result.previousEnd(); i < previous.size(); i++) {
+            int j = i + shift;
+
+            assertEquals(previous.type(i), tokens.type(j), where + ", suffix token " + i);
+            assertEquals(previous.start(i) + delta, tokens.start(j), where + ", suffix token " + i);
+            assertEquals(previous.length(i), tokens.length(j), where + ", suffix token " + i);
+            assertEquals(previous.value(i), tokens.value(j), where + ", suffix token " + i);
+        }
+    }
+
+    private static TextEdit randomEdit(Random random, ByteBuffer source) {
+        int length = source.limit();
+
+        // Edits fall on UTF-8 character boundaries, as an editor's would
+        int offset = random.nextInt(length + 1);
+        while (offset < length && (source.get(offset) & 0xC0) == 0x80) {
+            offset++;
+        }
+
+        int removedEnd = offset + (random.nextInt(4) == 0 ? 0 : random.nextInt(Math.min(6, length - offset) + 1));
+        while (removedEnd < length && (source.get(removedEnd) & 0xC0) == 0x80) {
+            removedEnd++;
+        }
+
+        String inserted = random.nextInt(3) == 0 ? "" : FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+
+        return new TextEdit(offset, removedEnd - offset, inserted);
+    }
+
+    private static Lexer lexer(ByteBuffer source) {
+        return new Lexer(source.duplicate(), "relex.k", new SourceManager(source.duplicate()));
+    }
+
+    private static String dump(TokenStream tokens) {
+        StringBuilder out = new StringBuilder();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            out.append(dump(tokens, i)).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    private static String dump(TokenStream tokens, int index) {
+        return tokens.type(index) + " " + tokens.start(index) + "+" + tokens.length(index)
+                + " @" + tokens.line(index) + ":" + tokens.column(index)
+                + " " + tokens.integerValue(index) + " " + tokens.doubleValue(index)
+                + " " + tokens.value(index);
+    }
+}
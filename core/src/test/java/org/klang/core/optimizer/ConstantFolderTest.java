@@ -0,0 +1,95 @@
+package org.klang.core.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.klang.core.errors.SourceManager;
+import org.klang.core.lexer.Lexer;
+import org.klang.core.parser.Parser;
+import org.klang.core.parser.ast.ProgramNode;
+import org.klang.core.semantics.TypeChecker;
+import org.klang.core.transpilers.JavaTranspiler;
+
+/**
+ * Checks the literals {@link ConstantFolder} leaves in the emitted Java.
+ *
+ * @author Lucas Paulino Da Silva (~K')
+ * @since 0.13
+ */
+class ConstantFolderTest {
+
+    private static final Path PATH = Path.of("fold.k");
+
+    @Test
+    void integerArithmeticWrapsAroundLikeJava() {
+        String java = compile("""
+                integer a = 2147483647 + 1;
+                integer b = 0 - 2147483647 - 2;
+                integer c = 46341 * 46341;
+                println(a + b + c);
+                """);
+
+        assertEmits(java, "int a = -2147483648;");
+        assertEmits(java, "int b = 2147483647;");
+        assertEmits(java, "int c = -2147479015;");
+    }
+
+    @Test
+    void divisionAndRemainderByZeroAreLeftToRunTime() {
+        String java = compile("""
+                integer d = 7 / 0;
+                integer r = 7 % 0;
+                println(d + r);
+                """);
+
+        assertEmits(java, "int d = 7 / 0;");
+        assertEmits(java, "int r = 7 % 0;");
+    }
+
+    @Test
+    void concatenationFoldsFromTheLeft() {
+        String java = compile("""
+                String s = "a" + 1 + 2;
+                String t = "a" + (1 + 2);
+                println(s + t);
+                """);
+
+        assertEmits(java, "String s = \"a12\";");
+        assertEmits(java, "String t = \"a3\";");
+    }
+
+    @Test
+    void doubleConstantInitializedWithAnIntegerPropagatesAsDouble() {
+        String java = compile("""
+                constant double RATE = 2;
+                double r = RATE;
+                double q = RATE / 4;
+                println(r + q);
+                """);
+
+        assertEmits(java, "final double RATE = 2;");
+        assertEmits(java, "double r = 2.0;");
+        assertEmits(java, "double q = 0.5;");
+    }
+
+    private static String compile(String statements) {
+        String program = "@Use(\"java\")\npublic void main() {\n" + statements + "    return;\n}\n";
+        ByteBuffer source = ByteBuffer.wrap(program.getBytes(StandardCharsets.UTF_8));
+        SourceManager sourceManager = new SourceManager(source.duplicate());
+        Lexer lexer = new Lexer(source.duplicate(), PATH.toString(), sourceManager);
+
+        ProgramNode ast = new Parser(lexer.tokenizeSourceCode(), PATH, sourceManager).parseProgram();
+        new TypeChecker(sourceManager, PATH).check(ast);
+        new ConstantFolder().fold(ast);
+
+        return new JavaTranspiler("Fold", sourceManager, PATH).transpile(ast);
+    }
+
+    private static void assertEmits(String java, String line) {
+        assertTrue(java.lines().anyMatch(emitted -> emitted.strip().equals(line)), () -> line + " not in\n" + java);
+    }
+}